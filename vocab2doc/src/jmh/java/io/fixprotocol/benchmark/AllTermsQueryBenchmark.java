@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import io.fixprotocol.sparql.ColumnarResult;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+
+/**
+ * Measures execution of {@code allterms.rq} against a loaded dataset, reading every value
+ * 
+ * Compares a record allocated per solution with a reused cursor record and with traversal of a
+ * materialized columnar result. Run with the GC profiler to compare allocation per operation.
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AllTermsQueryBenchmark {
+
+  private static final String[] VARIABLES = {"term", "synonym", "definition", "source", "spec"};
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000", "1000000"})
+  public String vocabulary;
+
+  private ColumnarResult columnar;
+  private Dataset dataset;
+  private Query query;
+  private final Query2Doc query2Doc = new Query2Doc();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dataset = query2Doc.getDataset(SyntheticVocabulary.sourceUri(vocabulary));
+    query = QueryRegistry.getDefault().getQuery("allterms");
+    columnar = ColumnarResult.of(query2Doc.executeSelectCursor(dataset, query, null));
+  }
+
+  @Benchmark
+  public void allTerms(Blackhole blackhole) {
+    final QueryResultSet resultSet = query2Doc.executeSelect(dataset, query, null);
+    try {
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        for (String variable : VARIABLES) {
+          blackhole.consume(record.getValue(variable));
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+  }
+
+  @Benchmark
+  public void allTermsCursor(Blackhole blackhole) {
+    consumeByIndex(query2Doc.executeSelectCursor(dataset, query, null), blackhole);
+  }
+
+  @Benchmark
+  public ColumnarResult allTermsMaterialize() {
+    return ColumnarResult.of(query2Doc.executeSelectCursor(dataset, query, null));
+  }
+
+  @Benchmark
+  public void columnarTraversal(Blackhole blackhole) {
+    consumeByIndex(columnar.cursor(), blackhole);
+  }
+
+  private static void consumeByIndex(QueryResultSet resultSet, Blackhole blackhole) {
+    try {
+      final int columnCount = resultSet.getVariableNames().size();
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        for (int col = 0; col < columnCount; col++) {
+          blackhole.consume(resultSet.getValue(record, col));
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with the GC profiler enabled so that allocation rates are reported
+ * 
+ * Accepts the same command line options as the JMH runner, for example a benchmark name pattern
+ * or {@code -p vocabulary=10000} to restrict vocabulary sizes.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class BenchmarkRunner {
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    final CommandLineOptions commandLine = new CommandLineOptions(args);
+    final Options options =
+        new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build();
+    new Runner(options).run();
+  }
+
+  private BenchmarkRunner() {
+
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import io.fixprotocol.sparql.Query2Doc;
+
+/**
+ * Measures parsing a vocabulary into a dataset
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatasetLoadBenchmark {
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000", "1000000"})
+  public String vocabulary;
+
+  private final Query2Doc query2Doc = new Query2Doc();
+  private String sourceUri;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    sourceUri = SyntheticVocabulary.sourceUri(vocabulary);
+  }
+
+  @Benchmark
+  public Dataset load() throws IOException {
+    return query2Doc.getDataset(sourceUri);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import io.fixprotocol.output.EncodingWriter;
+import io.fixprotocol.output.MemorySink;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.vocabulary.VocabularyDiff;
+import io.fixprotocol.vocabulary.VocabularyDiff.Change;
+
+/**
+ * Measures comparison of two versions of a vocabulary and rendering of a report
+ * 
+ * The newer version is generated with its concept numbers shifted by a tenth of the vocabulary,
+ * so a tenth of concepts are added, a tenth removed, and the rest have changed values. That is
+ * the worst case for the second pass of a comparison.
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DiffBenchmark {
+
+  @Param({"10000", "100000"})
+  public String vocabulary;
+
+  private final VocabularyDiff diff = new VocabularyDiff();
+  private Dataset newVersion;
+  private Dataset oldVersion;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    final int concepts = Integer.parseInt(vocabulary);
+    final Path path =
+        Paths.get("target/jmh-data", "vocabulary-" + concepts + "-revised.ttl").toAbsolutePath();
+    if (!Files.exists(path)) {
+      Files.createDirectories(path.getParent());
+      SyntheticVocabulary.write(path, concepts / 10, concepts);
+    }
+    final Query2Doc query2Doc = new Query2Doc();
+    oldVersion = query2Doc.getDataset(SyntheticVocabulary.sourceUri(vocabulary));
+    newVersion = query2Doc.getDataset(path.toString());
+  }
+
+  @Benchmark
+  public List<Change> compare() throws IOException {
+    return diff.compare(oldVersion, newVersion);
+  }
+
+  @Benchmark
+  public long compareAndReport() throws IOException {
+    final MemorySink sink = new MemorySink();
+    try (EncodingWriter writer = new EncodingWriter(sink)) {
+      diff.writeReport(writer, TextFormatterFactory.getInstance(TextFormatterFactory.HTML),
+          diff.compare(oldVersion, newVersion));
+    }
+    return sink.getBytesWritten();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.vocabulary.RowOrder;
+import io.fixprotocol.vocabulary.Vocabulary2Doc;
+
+/**
+ * Measures end-to-end document generation, from parsing to writing a file
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerateBenchmark {
+
+  @Param({TextFormatterFactory.HTML, TextFormatterFactory.MARKDOWN})
+  public String format;
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000", "1000000"})
+  public String vocabulary;
+
+  private String sourceUri;
+  private Path target;
+  private final Vocabulary2Doc vocabulary2Doc = new Vocabulary2Doc();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    sourceUri = SyntheticVocabulary.sourceUri(vocabulary);
+    target = Files.createTempFile("vocabulary", "." + format);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(target);
+    Files.deleteIfExists(Paths.get(target + ".rows"));
+  }
+
+  @Benchmark
+  public void generate() throws IOException {
+    vocabulary2Doc.generate(sourceUri, target.toString(), format);
+  }
+
+  /**
+   * Sorts terms and synonyms in memory in a parallel sort instead of by the query engine
+   */
+  @Benchmark
+  public void generateSorted() throws IOException {
+    vocabulary2Doc.generateSorted(sourceUri, target.toString(), format, RowOrder.codePoint());
+  }
+
+  /**
+   * Renders rows on all available processors while the query streams and the writer drains
+   */
+  @Benchmark
+  public void generatePipelined() throws IOException {
+    vocabulary2Doc.generatePipelined(sourceUri, target.toString(), format,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * After the first invocation, no row has changed, so every row is copied from the previous
+   * document
+   */
+  @Benchmark
+  public int generateIncremental() throws IOException {
+    return vocabulary2Doc.generateIncremental(sourceUri, target.toString(), format);
+  }
+}
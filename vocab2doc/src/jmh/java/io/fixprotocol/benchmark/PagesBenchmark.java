@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.vocabulary.LinkedVocabulary2Doc;
+
+/**
+ * Measures generation of a linked page per term from a loaded vocabulary
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PagesBenchmark {
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000"})
+  public String vocabulary;
+
+  private Dataset dataset;
+  private Path directory;
+  private LinkedVocabulary2Doc generator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dataset = new Query2Doc().getDataset(SyntheticVocabulary.sourceUri(vocabulary));
+    directory = Files.createTempDirectory("pages");
+    generator = new LinkedVocabulary2Doc(Runtime.getRuntime().availableProcessors());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Map<String, String> generatePages() throws IOException {
+    return generator.generate(dataset, directory, TextFormatterFactory.HTML);
+  }
+}
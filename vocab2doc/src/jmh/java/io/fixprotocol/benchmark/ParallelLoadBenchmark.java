@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import io.fixprotocol.sparql.ParallelLoader;
+
+/**
+ * Measures load time of a vocabulary against the number of parser threads
+ * 
+ * {@code loadParts} parses a vocabulary divided into four Turtle files. {@code loadNTriples}
+ * parses the same vocabulary as one N-Triples file split at line boundaries.
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelLoadBenchmark {
+
+  private static final int PARTS = 4;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  @Param({"100000", "1000000"})
+  public String vocabulary;
+
+  private ParallelLoader loader;
+  private List<String> nTriples;
+  private List<String> parts;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    loader = new ParallelLoader(threads);
+    parts = SyntheticVocabulary.sourceUris(Integer.parseInt(vocabulary), PARTS);
+    nTriples = List.of(SyntheticVocabulary.nTriplesUri(vocabulary));
+  }
+
+  @Benchmark
+  public Dataset loadNTriples() throws IOException {
+    return loader.load(nTriples);
+  }
+
+  @Benchmark
+  public Dataset loadParts() throws IOException {
+    return loader.load(parts);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Measures escaping of all definitions of a vocabulary as HTML
+ * 
+ * Rendering goes through the HTML {@link TextFormatter}, which delegates to
+ * {@code PlainText2HTMLRenderer}. Output is appended to a reused buffer so that allocation reported
+ * by the GC profiler is that of the renderer.
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000", "1000000"})
+  public String vocabulary;
+
+  private List<String> definitions;
+  private final TextFormatter formatter =
+      TextFormatterFactory.getInstance(TextFormatterFactory.HTML);
+  private final StringBuilder output = new StringBuilder(1024 * 1024);
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    definitions = new ArrayList<>();
+    final QueryResultSet resultSet = new Query2Doc().executeNamed(
+        SyntheticVocabulary.sourceUri(vocabulary), "allterms", null);
+    try {
+      while (resultSet.hasNext()) {
+        definitions.add(resultSet.next().getValue("definition"));
+      }
+    } finally {
+      resultSet.close();
+    }
+  }
+
+  @Benchmark
+  public int render() throws IOException {
+    output.setLength(0);
+    for (String definition : definitions) {
+      formatter.render(output, definition);
+    }
+    return output.length();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import io.fixprotocol.search.SearchHit;
+import io.fixprotocol.search.SearchIndex;
+import io.fixprotocol.sparql.Query2Doc;
+
+/**
+ * Measures opening a saved search index and lookups against it
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+  private static final int LIMIT = 20;
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000"})
+  public String vocabulary;
+
+  private SearchIndex index;
+  private Path indexPath;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    indexPath = Paths.get("target/jmh-data", "search-" + vocabulary + ".idx");
+    Files.createDirectories(indexPath.getParent());
+    SearchIndex.build(new Query2Doc().getDataset(SyntheticVocabulary.sourceUri(vocabulary)))
+        .save(indexPath);
+    index = SearchIndex.load(indexPath);
+  }
+
+  @Benchmark
+  public List<SearchHit> fuzzy() {
+    return index.findFuzzy("Settlment Price", 2, LIMIT);
+  }
+
+  @Benchmark
+  public List<SearchHit> keywords() {
+    return index.findByKeywords("market price", LIMIT);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public SearchIndex open() throws IOException {
+    return SearchIndex.load(indexPath);
+  }
+
+  @Benchmark
+  public List<SearchHit> prefix() {
+    return index.findByPrefix("Cl", LIMIT);
+  }
+}
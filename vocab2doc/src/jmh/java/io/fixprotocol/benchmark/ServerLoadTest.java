@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import io.fixprotocol.search.SearchIndex;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.vocabulary.VocabularyServer;
+
+/**
+ * Drives a {@link VocabularyServer} with concurrent clients and reports latency percentiles
+ * 
+ * Each client repeatedly requests a random resource: a term page (60%), a search (25%), the
+ * glossary (5%), or a term page revalidated with its entity tag (10%). Latencies are recorded per
+ * kind of request for the measured period after a warmup.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar io.fixprotocol.benchmark.ServerLoadTest
+ * [vocabulary] [clients] [seconds]}
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class ServerLoadTest {
+
+  private static final String[] KINDS = {"term", "search", "glossary", "revalidate"};
+
+  private static final class ClientResult {
+    final long[][] latencies = new long[KINDS.length][];
+    final int[] counts = new int[KINDS.length];
+    final int[] errors = new int[KINDS.length];
+
+    ClientResult() {
+      for (int k = 0; k < KINDS.length; k++) {
+        latencies[k] = new long[1024];
+      }
+    }
+
+    void record(int kind, long nanos) {
+      if (counts[kind] == latencies[kind].length) {
+        latencies[kind] = Arrays.copyOf(latencies[kind], counts[kind] * 2);
+      }
+      latencies[kind][counts[kind]++] = nanos;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    final String vocabulary = args.length > 0 ? args[0] : SyntheticVocabulary.FIX_VOCABULARY;
+    final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+    final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+    final String sourceUri = SyntheticVocabulary.sourceUri(vocabulary);
+    final SearchIndex index = SearchIndex.build(new Query2Doc().getDataset(sourceUri));
+    final String[] terms = new String[index.getConceptCount()];
+    for (int i = 0; i < terms.length; i++) {
+      terms[i] = index.getTerm(i);
+    }
+
+    final VocabularyServer server = new VocabularyServer(sourceUri,
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        VocabularyServer.DEFAULT_CACHE_CAPACITY, VocabularyServer.DEFAULT_RELOAD_INTERVAL_MILLIS,
+        Runtime.getRuntime().availableProcessors());
+    server.start();
+    final String base = "http://localhost:" + server.getAddress().getPort();
+    final ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+    try {
+      // warm up for a quarter of the measured time, then measure
+      run(clientThreads, clients, base, terms, TimeUnit.SECONDS.toNanos(seconds) / 4);
+      final long start = System.nanoTime();
+      final List<ClientResult> results =
+          run(clientThreads, clients, base, terms, TimeUnit.SECONDS.toNanos(seconds));
+      final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+      report(vocabulary, clients, elapsedSeconds, results);
+    } finally {
+      clientThreads.shutdownNow();
+      server.stop();
+    }
+  }
+
+  private static void report(String vocabulary, int clients, double elapsedSeconds,
+      List<ClientResult> results) {
+    System.out.format("Vocabulary %s, %d clients, %.1f s%n", vocabulary, clients,
+        elapsedSeconds);
+    System.out.format("%-12s %10s %8s %10s %10s %10s %10s%n", "request", "count", "errors",
+        "req/s", "p50 ms", "p99 ms", "max ms");
+    int totalErrors = 0;
+    long[] all = new long[0];
+    for (int k = 0; k <= KINDS.length; k++) {
+      long[] latencies;
+      int errors = 0;
+      if (k < KINDS.length) {
+        int count = 0;
+        for (ClientResult result : results) {
+          count += result.counts[k];
+          errors += result.errors[k];
+        }
+        totalErrors += errors;
+        latencies = new long[count];
+        int position = 0;
+        for (ClientResult result : results) {
+          System.arraycopy(result.latencies[k], 0, latencies, position, result.counts[k]);
+          position += result.counts[k];
+        }
+        final long[] merged = Arrays.copyOf(all, all.length + latencies.length);
+        System.arraycopy(latencies, 0, merged, all.length, latencies.length);
+        all = merged;
+      } else {
+        latencies = all;
+        errors = totalErrors;
+      }
+      if (latencies.length == 0) {
+        continue;
+      }
+      Arrays.sort(latencies);
+      System.out.format("%-12s %10d %8d %10.0f %10.3f %10.3f %10.3f%n",
+          k < KINDS.length ? KINDS[k] : "all", latencies.length, errors,
+          latencies.length / elapsedSeconds, percentile(latencies, 50) / 1e6,
+          percentile(latencies, 99) / 1e6, latencies[latencies.length - 1] / 1e6);
+    }
+  }
+
+  private static long percentile(long[] sorted, int percent) {
+    final int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  private static List<ClientResult> run(ExecutorService clientThreads, int clients, String base,
+      String[] terms, long durationNanos) throws InterruptedException, ExecutionException {
+    final HttpClient httpClient =
+        HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+    final long deadline = System.nanoTime() + durationNanos;
+    final List<Future<ClientResult>> futures = new ArrayList<>(clients);
+    for (int c = 0; c < clients; c++) {
+      final Random random = new Random(c);
+      final Callable<ClientResult> client = () -> {
+        final ClientResult result = new ClientResult();
+        while (System.nanoTime() < deadline) {
+          final int choice = random.nextInt(100);
+          final String term = terms[random.nextInt(terms.length)];
+          final int kind;
+          final String path;
+          if (choice < 60) {
+            kind = 0;
+            path = "/term/" + encode(term).replace("+", "%20");
+          } else if (choice < 85) {
+            kind = 1;
+            path = "/search?q=" + encode(term.substring(0, Math.min(3, term.length())));
+          } else if (choice < 90) {
+            kind = 2;
+            path = "/glossary";
+          } else {
+            kind = 3;
+            path = "/term/" + encode(term).replace("+", "%20");
+          }
+          try {
+            String etag = null;
+            if (kind == 3) {
+              etag =
+                  send(httpClient, base + path, null).headers().firstValue("ETag").orElse(null);
+            }
+            final long start = System.nanoTime();
+            send(httpClient, base + path, etag);
+            result.record(kind, System.nanoTime() - start);
+          } catch (IOException e) {
+            result.errors[kind]++;
+          }
+        }
+        return result;
+      };
+      futures.add(clientThreads.submit(client));
+    }
+    final List<ClientResult> results = new ArrayList<>(clients);
+    for (Future<ClientResult> future : futures) {
+      results.add(future.get());
+    }
+    return results;
+  }
+
+  private static String encode(String s) {
+    return URLEncoder.encode(s, StandardCharsets.UTF_8);
+  }
+
+  private static HttpResponse<byte[]> send(HttpClient httpClient, String uri, String etag)
+      throws IOException, InterruptedException {
+    final HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri));
+    if (etag != null) {
+      builder.header("If-None-Match", etag);
+    }
+    final HttpResponse<byte[]> response =
+        httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() != 200 && response.statusCode() != 304) {
+      throw new IOException("Status " + response.statusCode() + " for " + uri);
+    }
+    return response;
+  }
+}
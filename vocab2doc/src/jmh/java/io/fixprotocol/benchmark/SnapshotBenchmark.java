@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import io.fixprotocol.snapshot.Snapshot;
+import io.fixprotocol.vocabulary.Vocabulary2Doc;
+
+/**
+ * Compares generating a document from Turtle with generating it from a snapshot, from a cold JVM
+ * 
+ * Each fork measures a single invocation, so times include class loading and initialization. The
+ * snapshot is compiled by a separate process so that the measured JVM never initializes Jena
+ * unless the benchmark needs it.
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class SnapshotBenchmark {
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000"})
+  public String vocabulary;
+
+  private Path snapshot;
+  private String sourceUri;
+  private Path target;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, InterruptedException {
+    sourceUri = SyntheticVocabulary.sourceUri(vocabulary);
+    snapshot = Paths.get("target/jmh-data", "vocabulary-" + vocabulary + Snapshot.FILE_EXTENSION);
+    if (!Files.exists(snapshot)) {
+      Files.createDirectories(snapshot.getParent());
+      final Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+      final int exitCode = new ProcessBuilder(java.toString(), "-cp",
+          System.getProperty("java.class.path"), Snapshot.class.getName(), sourceUri,
+          snapshot.toString()).inheritIO().start().waitFor();
+      if (exitCode != 0) {
+        throw new IOException("Failed to compile snapshot; exit code " + exitCode);
+      }
+    }
+    target = Files.createTempFile("vocabulary", ".html");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(target);
+  }
+
+  @Benchmark
+  public void fromSnapshot() throws IOException {
+    new Vocabulary2Doc().generateFromSnapshot(snapshot.toString(), target.toString(), "html");
+  }
+
+  @Benchmark
+  public void fromTurtle() throws IOException {
+    new Vocabulary2Doc().generate(sourceUri, target.toString(), "html");
+  }
+}
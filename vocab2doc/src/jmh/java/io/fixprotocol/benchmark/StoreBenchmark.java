@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.apache.jena.tdb2.sys.StoreConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.sparql.TdbStore;
+
+/**
+ * Compares a persistent TDB2 store with parsing the source into memory
+ * 
+ * Cold start benchmarks open their source and run {@code allterms.rq} once: the store path only
+ * verifies the checksum of an unchanged source, while the in-memory path parses it. Query
+ * benchmarks measure throughput against an already opened dataset.
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StoreBenchmark {
+
+  /**
+   * Makes each cold start reopen the store from disk
+   */
+  @State(Scope.Thread)
+  public static class ColdStore {
+
+    @Setup(Level.Invocation)
+    public void release(StoreBenchmark benchmark) {
+      StoreConnection.release(Location.create(benchmark.storeDirectory));
+    }
+  }
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000"})
+  public String vocabulary;
+
+  private Dataset memoryDataset;
+  private Query query;
+  private final Query2Doc query2Doc = new Query2Doc();
+  private String sourceUri;
+  private String storeDirectory;
+  private Dataset storeDataset;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    sourceUri = SyntheticVocabulary.sourceUri(vocabulary);
+    query = QueryRegistry.getDefault().getQuery("allterms");
+    storeDirectory = Files.createTempDirectory("tdb").toString();
+    final TdbStore store = new TdbStore(storeDirectory);
+    store.update(sourceUri);
+    storeDataset = store.getDataset();
+    memoryDataset = query2Doc.getDataset(sourceUri);
+  }
+
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public void coldStartMemory(Blackhole blackhole) throws IOException {
+    drain(query2Doc.getDataset(sourceUri), blackhole);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  public void coldStartStore(ColdStore coldStore, Blackhole blackhole) throws IOException {
+    final TdbStore store = new TdbStore(storeDirectory);
+    store.update(sourceUri);
+    drain(store.getDataset(), blackhole);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public void queryMemory(Blackhole blackhole) {
+    drain(memoryDataset, blackhole);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public void queryStore(Blackhole blackhole) {
+    drain(storeDataset, blackhole);
+  }
+
+  private void drain(Dataset dataset, Blackhole blackhole) {
+    final QueryResultSet resultSet = query2Doc.executeSelect(dataset, query, null);
+    try {
+      while (resultSet.hasNext()) {
+        blackhole.consume(resultSet.next().getValue("definition"));
+      }
+    } finally {
+      resultSet.close();
+    }
+  }
+}
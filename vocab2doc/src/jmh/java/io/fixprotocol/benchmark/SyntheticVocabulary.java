@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+
+/**
+ * Generates a vocabulary of SKOS concepts in Turtle with the shape of {@code fix-vocabulary.ttl}
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class SyntheticVocabulary {
+
+  /**
+   * Name of the vocabulary bundled with this project
+   */
+  public static final String FIX_VOCABULARY = "fix-vocabulary";
+
+  private static final String DATA_DIR = "target/jmh-data";
+  private static final String[] WORDS = {"order", "price", "quote", "trade", "settlement",
+      "market", "instrument", "party", "allocation", "execution", "yield", "coupon", "option",
+      "future", "swap", "collateral", "venue", "clearing", "regulatory", "report"};
+
+  /**
+   * Returns a source URI for a vocabulary, generating a synthetic file on first use
+   * 
+   * @param vocabulary {@link #FIX_VOCABULARY} or a number of concepts
+   * @return a source URI suitable for {@code Query2Doc}
+   * @throws IOException If the file cannot be written
+   */
+  public static String sourceUri(String vocabulary) throws IOException {
+    if (FIX_VOCABULARY.equals(vocabulary)) {
+      return FIX_VOCABULARY + ".ttl";
+    }
+    final int concepts = Integer.parseInt(vocabulary);
+    final Path path = Paths.get(DATA_DIR, "vocabulary-" + concepts + ".ttl").toAbsolutePath();
+    if (!Files.exists(path)) {
+      Files.createDirectories(path.getParent());
+      write(path, concepts);
+    }
+    return path.toString();
+  }
+
+  /**
+   * Returns source URIs of a vocabulary divided into parts with disjoint concepts, generating
+   * files on first use
+   * 
+   * @param concepts total number of concepts
+   * @param parts number of files
+   * @return source URIs of Turtle files
+   * @throws IOException If a file cannot be written
+   */
+  public static List<String> sourceUris(int concepts, int parts) throws IOException {
+    final List<String> uris = new ArrayList<>(parts);
+    final int partSize = concepts / parts;
+    for (int part = 0; part < parts; part++) {
+      final Path path = Paths.get(DATA_DIR, String.format("vocabulary-%d-part%d-of-%d.ttl",
+          concepts, part + 1, parts)).toAbsolutePath();
+      if (!Files.exists(path)) {
+        Files.createDirectories(path.getParent());
+        write(path, part * partSize, partSize);
+      }
+      uris.add(path.toString());
+    }
+    return uris;
+  }
+
+  /**
+   * Returns a source URI for a vocabulary in N-Triples format, converting it on first use
+   * 
+   * @param vocabulary {@link #FIX_VOCABULARY} or a number of concepts
+   * @return a source URI of an N-Triples file
+   * @throws IOException If the file cannot be written
+   */
+  public static String nTriplesUri(String vocabulary) throws IOException {
+    final Path path = Paths.get(DATA_DIR, "vocabulary-" + vocabulary + ".nt").toAbsolutePath();
+    if (!Files.exists(path)) {
+      Files.createDirectories(path.getParent());
+      try (OutputStream out = Files.newOutputStream(path)) {
+        RDFDataMgr.write(out, DatasetFactory.create(sourceUri(vocabulary)).getDefaultModel(),
+            Lang.NTRIPLES);
+      }
+    }
+    return path.toString();
+  }
+
+  /**
+   * Writes a synthetic vocabulary
+   * 
+   * @param path file to write
+   * @param concepts number of concepts
+   * @throws IOException If an I/O error occurs
+   */
+  public static void write(Path path, int concepts) throws IOException {
+    write(path, 0, concepts);
+  }
+
+  /**
+   * Writes a range of concepts of a synthetic vocabulary
+   * 
+   * @param path file to write
+   * @param first number of the first concept
+   * @param concepts number of concepts
+   * @throws IOException If an I/O error occurs
+   */
+  public static void write(Path path, int first, int concepts) throws IOException {
+    final Random random = new Random(first + concepts);
+    try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      writer.write("@prefix : <http://example.org/vocabulary#> .\n");
+      writer.write("@prefix dct: <http://purl.org/dc/terms/> .\n");
+      writer.write("@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n\n");
+      for (int i = first; i < first + concepts; i++) {
+        writer.write(":C");
+        writer.write(Integer.toString(i));
+        writer.write(" a skos:Concept ;\n  skos:prefLabel \"");
+        writer.write(words(random, 1 + random.nextInt(3), true));
+        writer.write(' ');
+        writer.write(Integer.toString(i));
+        writer.write("\" ;\n  skos:definition \"");
+        writer.write(definition(random));
+        writer.write('"');
+        if (random.nextInt(10) == 0) {
+          writer.write(" ;\n  skos:altLabel \"");
+          writer.write(words(random, 2, true));
+          writer.write(" alt ");
+          writer.write(Integer.toString(i));
+          writer.write('"');
+        }
+        if (random.nextInt(5) == 0) {
+          writer.write(" ;\n  dct:source \"ISO ");
+          writer.write(Integer.toString(random.nextInt(30000)));
+          writer.write('"');
+        }
+        if (random.nextBoolean()) {
+          writer.write(" ;\n  dct:isPartOf \"EP");
+          writer.write(Integer.toString(random.nextInt(300)));
+          writer.write('"');
+        }
+        writer.write(" .\n");
+      }
+    }
+  }
+
+  private static String definition(Random random) {
+    final StringBuilder sb = new StringBuilder(words(random, 8 + random.nextInt(40), false));
+    // Sprinkle characters that must be escaped in HTML
+    switch (random.nextInt(4)) {
+      case 0:
+        sb.append(" & ").append(words(random, 3, false));
+        break;
+      case 1:
+        sb.append(" \\\"").append(words(random, 2, false)).append("\\\"");
+        break;
+      case 2:
+        sb.append(" < ").append(random.nextInt(100)).append(" days");
+        break;
+      default:
+        sb.append(" (the buyer's price)");
+    }
+    return sb.append('.').toString();
+  }
+
+  private static String words(Random random, int count, boolean capitalize) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      final String word = WORDS[random.nextInt(WORDS.length)];
+      if (capitalize) {
+        sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+      } else {
+        sb.append(word);
+      }
+    }
+    return sb.toString();
+  }
+
+  private SyntheticVocabulary() {
+
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.validation.Finding;
+import io.fixprotocol.validation.Validator;
+
+/**
+ * Measures validation of a loaded vocabulary with the default rules
+ * 
+ * @author Don Mendelson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValidateBenchmark {
+
+  @Param({SyntheticVocabulary.FIX_VOCABULARY, "10000", "100000"})
+  public String vocabulary;
+
+  @Param({"1", "4"})
+  public int parallelism;
+
+  private Dataset dataset;
+  private Validator validator;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dataset = new Query2Doc().getDataset(SyntheticVocabulary.sourceUri(vocabulary));
+    validator = new Validator(parallelism);
+  }
+
+  @Benchmark
+  public List<Finding> validate() {
+    return validator.validate(dataset);
+  }
+}
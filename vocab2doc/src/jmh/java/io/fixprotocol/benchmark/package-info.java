@@ -0,0 +1,25 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+/**
+ * Benchmarks of the stages of document generation
+ * 
+ * Built by Maven profile {@code jmh}. Each benchmark runs against {@code fix-vocabulary.ttl} and
+ * against synthetic vocabularies of a given number of concepts.
+ * 
+ * @author Don Mendelson
+ *
+ */
+package io.fixprotocol.benchmark;
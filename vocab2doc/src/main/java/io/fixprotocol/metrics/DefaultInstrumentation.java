@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.metrics;
+
+/**
+ * Holds the default instrumentation
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class DefaultInstrumentation {
+
+  static volatile Instrumentation instance = fromProperty(System.getProperty(
+      Instrumentation.PROPERTY));
+
+  static Instrumentation fromProperty(String value) {
+    if ("timing".equals(value)) {
+      return new TimingSummary();
+    } else if ("jfr".equals(value)) {
+      return new JfrInstrumentation();
+    } else {
+      return Instrumentation.NONE;
+    }
+  }
+
+  private DefaultInstrumentation() {
+
+  }
+}
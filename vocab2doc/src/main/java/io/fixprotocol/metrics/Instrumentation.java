@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.metrics;
+
+/**
+ * Receives timings of processing stages and counts of work performed
+ * 
+ * Components report into the default instance, {@link #NONE} unless another is installed by
+ * {@link #setDefault(Instrumentation)} or selected by system property {@value #PROPERTY}, with
+ * value {@code timing} or {@code jfr}. When disabled, reporting costs a call to an empty method,
+ * and {@link #start(Stage)} does not read the clock.
+ * <p>
+ * Implementations must be thread-safe.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public interface Instrumentation {
+
+  /**
+   * Work that is counted
+   */
+  enum Counter {
+    /**
+     * Bytes written to an output file
+     */
+    BYTES,
+    /**
+     * Characters substituted by an escape sequence when rendering text
+     */
+    ESCAPES,
+    /**
+     * Rows of a table rendered
+     */
+    ROWS
+  }
+
+  /**
+   * A stage of processing that is timed
+   * 
+   * Stages may nest. When a document is written as it is rendered, {@link #RENDER} includes time
+   * spent in {@link #WRITE}.
+   */
+  enum Stage {
+    /**
+     * Parsing a vocabulary into a dataset
+     */
+    LOAD,
+    /**
+     * Merging synonyms into terms
+     */
+    MERGE,
+    /**
+     * Executing a query, from execution until its results are closed
+     */
+    QUERY,
+    /**
+     * Rendering rows in a text format
+     */
+    RENDER,
+    /**
+     * Serving a request of the documentation server
+     */
+    REQUEST,
+    /**
+     * Evaluating a validation rule over a vocabulary
+     */
+    VALIDATE,
+    /**
+     * Writing bytes to an output file
+     */
+    WRITE
+  }
+
+  /**
+   * Instrumentation that discards everything
+   */
+  Instrumentation NONE = new Instrumentation() {
+
+    @Override
+    public void count(Counter counter, long amount) {
+
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public long start(Stage stage) {
+      return 0;
+    }
+
+    @Override
+    public void stop(Stage stage, long start) {
+
+    }
+  };
+
+  /**
+   * Name of a system property that selects the default instrumentation
+   */
+  String PROPERTY = "io.fixprotocol.instrumentation";
+
+  /**
+   * @return the instrumentation that components report into
+   */
+  static Instrumentation getDefault() {
+    return DefaultInstrumentation.instance;
+  }
+
+  /**
+   * Installs the instrumentation that components report into
+   * 
+   * @param instrumentation an instrumentation, or {@code null} to disable
+   */
+  static void setDefault(Instrumentation instrumentation) {
+    DefaultInstrumentation.instance = instrumentation != null ? instrumentation : NONE;
+  }
+
+  /**
+   * Adds to a counter
+   * 
+   * @param counter work counted
+   * @param amount quantity to add
+   */
+  void count(Counter counter, long amount);
+
+  /**
+   * @return {@code true} if reports are recorded. A component may skip work done only to report.
+   */
+  boolean isEnabled();
+
+  /**
+   * Marks the start of a stage
+   * 
+   * @param stage stage of processing
+   * @return a token to pass to {@link #stop(Stage, long)}
+   */
+  long start(Stage stage);
+
+  /**
+   * Marks the end of a stage
+   * 
+   * @param stage stage of processing
+   * @param start token returned by {@link #start(Stage)}
+   */
+  void stop(Stage stage, long start);
+}
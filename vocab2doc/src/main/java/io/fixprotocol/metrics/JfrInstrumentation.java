@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Exports stages and counters as JDK Flight Recorder events
+ * 
+ * Each completed stage commits a {@value #STAGE_EVENT} event on the thread that performed it, so
+ * latency of a request can be attributed to stages by thread in a recording. Counters are
+ * accumulated and emitted as a periodic {@value #COUNTERS_EVENT} event. Events cost little unless
+ * they are enabled in a recording, for example by
+ * {@code -XX:StartFlightRecording:settings=profile}.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class JfrInstrumentation implements Instrumentation {
+
+  /**
+   * Name of the event for a completed stage
+   */
+  public static final String STAGE_EVENT = "io.fixprotocol.Stage";
+
+  /**
+   * Name of the periodic event of counter totals
+   */
+  public static final String COUNTERS_EVENT = "io.fixprotocol.Counters";
+
+  @Name(STAGE_EVENT)
+  @Label("Vocabulary Stage")
+  @Category("vocab2doc")
+  @Description("A completed stage of processing a vocabulary")
+  @StackTrace(false)
+  static final class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+  }
+
+  @Name(COUNTERS_EVENT)
+  @Label("Vocabulary Counters")
+  @Category("vocab2doc")
+  @Description("Totals of work performed since the instrumentation was created")
+  @Period("1 s")
+  @StackTrace(false)
+  static final class CountersEvent extends Event {
+    @Label("Bytes Written")
+    @DataAmount
+    long bytes;
+
+    @Label("Escapes")
+    long escapes;
+
+    @Label("Rows")
+    long rows;
+  }
+
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder escapes = new LongAdder();
+  private final Runnable periodic = this::emitCounters;
+  private final LongAdder rows = new LongAdder();
+
+  public JfrInstrumentation() {
+    FlightRecorder.addPeriodicEvent(CountersEvent.class, periodic);
+  }
+
+  /**
+   * Stops emitting periodic counter events
+   */
+  public void close() {
+    FlightRecorder.removePeriodicEvent(periodic);
+  }
+
+  @Override
+  public void count(Counter counter, long amount) {
+    switch (counter) {
+      case BYTES:
+        bytes.add(amount);
+        break;
+      case ESCAPES:
+        escapes.add(amount);
+        break;
+      case ROWS:
+        rows.add(amount);
+        break;
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public long start(Stage stage) {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void stop(Stage stage, long start) {
+    final StageEvent event = new StageEvent();
+    if (event.isEnabled()) {
+      event.elapsed = System.nanoTime() - start;
+      event.stage = stage.name().toLowerCase();
+      event.commit();
+    }
+  }
+
+  private void emitCounters() {
+    final CountersEvent event = new CountersEvent();
+    event.bytes = bytes.sum();
+    event.escapes = escapes.sum();
+    event.rows = rows.sum();
+    event.commit();
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates total time and occurrences of each stage and totals of counters
+ * 
+ * Totals are summed over all threads, so concurrent stages can total more than elapsed time.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class TimingSummary implements Instrumentation {
+
+  private static final Counter[] COUNTERS = Counter.values();
+  private static final Stage[] STAGES = Stage.values();
+
+  private final LongAdder[] counts = new LongAdder[COUNTERS.length];
+  private final LongAdder[] occurrences = new LongAdder[STAGES.length];
+  private final LongAdder[] nanos = new LongAdder[STAGES.length];
+
+  public TimingSummary() {
+    for (int i = 0; i < STAGES.length; i++) {
+      occurrences[i] = new LongAdder();
+      nanos[i] = new LongAdder();
+    }
+    for (int i = 0; i < COUNTERS.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  @Override
+  public void count(Counter counter, long amount) {
+    counts[counter.ordinal()].add(amount);
+  }
+
+  /**
+   * @param counter work counted
+   * @return total of a counter
+   */
+  public long getCount(Counter counter) {
+    return counts[counter.ordinal()].sum();
+  }
+
+  /**
+   * @param stage stage of processing
+   * @return number of times a stage was completed
+   */
+  public long getOccurrences(Stage stage) {
+    return occurrences[stage.ordinal()].sum();
+  }
+
+  /**
+   * @param stage stage of processing
+   * @return total time spent in a stage in nanoseconds
+   */
+  public long getTotalNanos(Stage stage) {
+    return nanos[stage.ordinal()].sum();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  /**
+   * Writes a table of stages that occurred and counters, one per line
+   * 
+   * @param appendable destination of summary
+   * @throws IOException If an I/O error occurs
+   */
+  public void print(Appendable appendable) throws IOException {
+    appendable.append(String.format("%-8s %10s %12s %12s%n", "stage", "count", "total ms",
+        "mean ms"));
+    for (Stage stage : STAGES) {
+      final long count = getOccurrences(stage);
+      if (count > 0) {
+        final double totalMillis = getTotalNanos(stage) / 1e6;
+        appendable.append(String.format("%-8s %10d %12.3f %12.3f%n",
+            stage.name().toLowerCase(), count, totalMillis, totalMillis / count));
+      }
+    }
+    for (Counter counter : COUNTERS) {
+      appendable.append(
+          String.format("%-8s %10d%n", counter.name().toLowerCase(), getCount(counter)));
+    }
+  }
+
+  /**
+   * Clears all totals
+   */
+  public void reset() {
+    for (int i = 0; i < STAGES.length; i++) {
+      occurrences[i].reset();
+      nanos[i].reset();
+    }
+    for (LongAdder count : counts) {
+      count.reset();
+    }
+  }
+
+  @Override
+  public long start(Stage stage) {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void stop(Stage stage, long start) {
+    final int i = stage.ordinal();
+    nanos[i].add(System.nanoTime() - start);
+    occurrences[i].increment();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    try {
+      print(sb);
+    } catch (IOException e) {
+      // not thrown by StringBuilder
+    }
+    return sb.toString();
+  }
+}
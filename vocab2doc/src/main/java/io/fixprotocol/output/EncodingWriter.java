@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Writer that encodes text as UTF-8 in large batches
+ * 
+ * Characters are accumulated in a buffer and only encoded when it fills, on {@link #flush()} or on
+ * {@link #close()}. Encoded bytes go to a reusable buffer that is passed to an {@link OutputSink}.
+ * Unlike a Writer wrapping an OutputStream, appending a character or a short string does not pass
+ * through an encoder.
+ * <p>
+ * Malformed input is replaced, consistent with {@link java.io.FileWriter}. This class is not
+ * thread-safe.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class EncodingWriter extends Writer {
+
+  /**
+   * Default number of characters buffered before encoding
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final ByteBuffer byteBuffer;
+  private final CharBuffer charBuffer;
+  private boolean closed = false;
+  private final CharsetEncoder encoder;
+  private final OutputSink sink;
+
+  /**
+   * Constructs a writer with default buffer size
+   * 
+   * @param sink destination of encoded bytes. It is closed when this writer is closed.
+   */
+  public EncodingWriter(OutputSink sink) {
+    this(sink, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a writer
+   * 
+   * @param sink destination of encoded bytes. It is closed when this writer is closed.
+   * @param bufferSize number of characters to buffer before encoding and writing to the sink.
+   *        Controls the granularity of writes.
+   */
+  public EncodingWriter(OutputSink sink, int bufferSize) {
+    if (bufferSize < 2) {
+      throw new IllegalArgumentException("Buffer too small");
+    }
+    this.sink = sink;
+    this.charBuffer = CharBuffer.allocate(bufferSize);
+    this.encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.byteBuffer =
+        ByteBuffer.allocate((int) Math.ceil(bufferSize * encoder.maxBytesPerChar()));
+  }
+
+  @Override
+  public Writer append(char c) throws IOException {
+    write(c);
+    return this;
+  }
+
+  @Override
+  public Writer append(CharSequence csq) throws IOException {
+    final CharSequence text = csq != null ? csq : "null";
+    return append(text, 0, text.length());
+  }
+
+  @Override
+  public Writer append(CharSequence csq, int start, int end) throws IOException {
+    final CharSequence text = csq != null ? csq : "null";
+    ensureOpen();
+    int index = start;
+    while (index < end) {
+      if (!charBuffer.hasRemaining()) {
+        encode(false);
+      }
+      final int length = Math.min(end - index, charBuffer.remaining());
+      if (text instanceof String) {
+        // Bulk copy without an intermediate CharBuffer wrapper
+        final int position = charBuffer.position();
+        ((String) text).getChars(index, index + length, charBuffer.array(),
+            charBuffer.arrayOffset() + position);
+        charBuffer.position(position + length);
+      } else {
+        for (int i = index; i < index + length; i++) {
+          charBuffer.put(text.charAt(i));
+        }
+      }
+      index += length;
+    }
+    return this;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      encode(true);
+      encoder.flush(byteBuffer);
+      drain();
+    } finally {
+      closed = true;
+      sink.close();
+    }
+  }
+
+  /**
+   * Encodes buffered characters and writes them to the sink
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    encode(false);
+  }
+
+  /**
+   * @return the destination of encoded bytes
+   */
+  public OutputSink getSink() {
+    return sink;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    ensureOpen();
+    int index = off;
+    final int end = off + len;
+    while (index < end) {
+      if (!charBuffer.hasRemaining()) {
+        encode(false);
+      }
+      final int length = Math.min(end - index, charBuffer.remaining());
+      charBuffer.put(cbuf, index, length);
+      index += length;
+    }
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    ensureOpen();
+    if (!charBuffer.hasRemaining()) {
+      encode(false);
+    }
+    charBuffer.put((char) c);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    append(str, off, off + len);
+  }
+
+  private void drain() throws IOException {
+    byteBuffer.flip();
+    if (byteBuffer.hasRemaining()) {
+      sink.write(byteBuffer);
+    }
+    byteBuffer.clear();
+  }
+
+  private void encode(boolean endOfInput) throws IOException {
+    charBuffer.flip();
+    CoderResult result;
+    do {
+      result = encoder.encode(charBuffer, byteBuffer, endOfInput);
+      drain();
+    } while (result.isOverflow());
+    // A trailing high surrogate remains until its pair arrives
+    charBuffer.compact();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Writer closed");
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Counter;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+
+/**
+ * Writes bytes to a file through a {@link FileChannel}
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class FileChannelSink implements OutputSink {
+
+  private long bytesWritten = 0;
+  private final FileChannel channel;
+  private long writeCount = 0;
+
+  /**
+   * Opens a file for writing, replacing any existing content
+   * 
+   * @param path file to write
+   * @throws IOException If the file cannot be opened
+   */
+  public FileChannelSink(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  @Override
+  public long getWriteCount() {
+    return writeCount;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.WRITE);
+    final int length = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      bytesWritten += channel.write(buffer);
+      writeCount++;
+    }
+    instrumentation.stop(Stage.WRITE, start);
+    instrumentation.count(Counter.BYTES, length);
+  }
+}
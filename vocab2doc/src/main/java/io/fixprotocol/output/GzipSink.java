@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses bytes with gzip before passing them to another sink, for example to publish
+ * precompressed files for static hosting
+ * 
+ * Counts of this sink are of uncompressed bytes; counts of the delegate are of compressed bytes.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class GzipSink implements OutputSink {
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private long bytesWritten = 0;
+  private final OutputSink delegate;
+  private final GZIPOutputStream gzip;
+  private final byte[] transfer;
+  private long writeCount = 0;
+
+  /**
+   * Constructs a compressing sink
+   * 
+   * @param delegate destination of compressed bytes. It is closed when this sink is closed.
+   * @throws IOException If the gzip header cannot be written
+   */
+  public GzipSink(OutputSink delegate) throws IOException {
+    this.delegate = delegate;
+    this.transfer = new byte[DEFAULT_BUFFER_SIZE];
+    this.gzip = new GZIPOutputStream(new OutputStream() {
+
+      @Override
+      public void close() {
+        // The delegate is closed after the gzip stream by GzipSink.close()
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        delegate.write(ByteBuffer.wrap(b, off, len));
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+    }, DEFAULT_BUFFER_SIZE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      // Writes the trailer and releases native memory of the deflater
+      gzip.close();
+    } finally {
+      delegate.close();
+    }
+  }
+
+  /**
+   * @return sink of compressed bytes
+   */
+  public OutputSink getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  @Override
+  public long getWriteCount() {
+    return writeCount;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) throws IOException {
+    writeCount++;
+    if (buffer.hasArray()) {
+      final int remaining = buffer.remaining();
+      gzip.write(buffer.array(), buffer.arrayOffset() + buffer.position(), remaining);
+      buffer.position(buffer.limit());
+      bytesWritten += remaining;
+    } else {
+      while (buffer.hasRemaining()) {
+        final int length = Math.min(buffer.remaining(), transfer.length);
+        buffer.get(transfer, 0, length);
+        gzip.write(transfer, 0, length);
+        bytesWritten += length;
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Collects bytes in memory, for example to serve a document without writing a file
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class MemorySink implements OutputSink {
+
+  private byte[] bytes;
+  private int length = 0;
+  private long writeCount = 0;
+
+  /**
+   * Constructs a sink with a default initial capacity
+   */
+  public MemorySink() {
+    this(64 * 1024);
+  }
+
+  /**
+   * Constructs a sink
+   * 
+   * @param initialCapacity initial size of buffer in bytes; it grows as needed
+   */
+  public MemorySink(int initialCapacity) {
+    this.bytes = new byte[initialCapacity];
+  }
+
+  @Override
+  public void close() {
+
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return length;
+  }
+
+  @Override
+  public long getWriteCount() {
+    return writeCount;
+  }
+
+  /**
+   * @return a copy of the bytes written
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(bytes, length);
+  }
+
+  /**
+   * Decodes the bytes written
+   * 
+   * @param charset encoding of bytes
+   * @return decoded text
+   */
+  public String toString(Charset charset) {
+    return new String(bytes, 0, length, charset);
+  }
+
+  @Override
+  public void write(ByteBuffer buffer) {
+    final int remaining = buffer.remaining();
+    if (length + remaining > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + remaining));
+    }
+    buffer.get(bytes, length, remaining);
+    length += remaining;
+    writeCount++;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A destination of encoded bytes
+ * 
+ * @author Don Mendelson
+ *
+ */
+public interface OutputSink extends Closeable {
+
+  /**
+   * Writes all remaining bytes of a buffer
+   * 
+   * @param buffer bytes to write. On return, the buffer has no remaining bytes.
+   * @throws IOException If an I/O error occurs
+   */
+  void write(ByteBuffer buffer) throws IOException;
+
+  /**
+   * @return total number of bytes written to this sink
+   */
+  long getBytesWritten();
+
+  /**
+   * @return number of write operations issued to the underlying destination, for example system
+   *         calls to write a file
+   */
+  long getWriteCount();
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.search;
+
+/**
+ * A concept found by a search
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class SearchHit {
+
+  private final int concept;
+  private final String conceptIri;
+  private final int distance;
+  private final String label;
+  private final String term;
+
+  SearchHit(int concept, String conceptIri, String term, String label, int distance) {
+    this.concept = concept;
+    this.conceptIri = conceptIri;
+    this.term = term;
+    this.label = label;
+    this.distance = distance;
+  }
+
+  /**
+   * @return position of the concept in the index, in term order
+   */
+  public int getConcept() {
+    return concept;
+  }
+
+  /**
+   * @return IRI of the concept
+   */
+  public String getConceptIri() {
+    return conceptIri;
+  }
+
+  /**
+   * @return number of edits between the search string and the matched label; zero unless the hit
+   *         came from a fuzzy search
+   */
+  public int getDistance() {
+    return distance;
+  }
+
+  /**
+   * @return the label that matched, either the preferred term or a synonym. For a keyword search,
+   *         this is the preferred term.
+   */
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * @return preferred label of the concept
+   */
+  public String getTerm() {
+    return term;
+  }
+
+  @Override
+  public String toString() {
+    return "SearchHit [term=" + term + ", label=" + label + ", distance=" + distance + "]";
+  }
+}
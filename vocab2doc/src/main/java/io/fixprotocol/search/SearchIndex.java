@@ -0,0 +1,636 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+
+/**
+ * An index of vocabulary concepts for lookup by label prefix, approximate label or keyword
+ * 
+ * The index is built from the {@code skos:prefLabel}, {@code skos:altLabel},
+ * {@code skos:definition} and {@code skos:scopeNote} of each {@code skos:Concept}. Labels are
+ * kept as a sorted table of normalized keys, so that all labels sharing a prefix occupy one range
+ * found by binary search. Every word of the labels, definitions and scope notes is kept in an
+ * inverted index of sorted postings.
+ * <p>
+ * The whole index is a single buffer in a versioned binary format. A saved index is memory-mapped
+ * by {@link #load(Path)}, so lookups need no parsing or loading of a dataset. Strings are decoded
+ * only for the entries visited by a lookup.
+ * <p>
+ * Instances are immutable and thread-safe.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class SearchIndex {
+
+  private static final class ConceptEntry {
+    final String definition;
+    final String iri;
+    final Set<String> notes = new LinkedHashSet<>();
+    final Set<String> synonyms = new LinkedHashSet<>();
+    final String term;
+
+    ConceptEntry(String iri, String term, String definition) {
+      this.iri = iri;
+      this.term = term;
+      this.definition = definition;
+    }
+  }
+
+  private static final class LabelEntry {
+    final int concept;
+    final byte[] key;
+    final String text;
+
+    LabelEntry(byte[] key, String text, int concept) {
+      this.key = key;
+      this.text = text;
+      this.concept = concept;
+    }
+  }
+
+  /**
+   * Name of the query that selects indexed data
+   */
+  public static final String SEARCH_QUERY = "searchterms";
+
+  /**
+   * Version of the binary format written by this class
+   */
+  public static final int VERSION = 1;
+
+  // "FXSI"
+  static final int MAGIC = 0x46585349;
+
+  // Header: magic, version, counts of concepts, labels and tokens, then offsets of each section
+  private static final int CONCEPT_COUNT = 8;
+  private static final int LABEL_COUNT = 12;
+  private static final int TOKEN_COUNT = 16;
+  private static final int IRIS = 20;
+  private static final int TERMS = 24;
+  private static final int DEFINITIONS = 28;
+  private static final int LABEL_KEYS = 32;
+  private static final int LABEL_TEXTS = 36;
+  private static final int LABEL_CONCEPTS = 40;
+  private static final int TOKENS = 44;
+  private static final int POSTING_STARTS = 48;
+  private static final int POSTINGS = 52;
+  private static final int HEADER_LENGTH = 56;
+
+  /**
+   * Builds an index from a dataset
+   * 
+   * @param dataset source of vocabulary concepts
+   * @return a new index held in memory
+   * @throws IOException if the search query cannot be read
+   */
+  public static SearchIndex build(Dataset dataset) throws IOException {
+    final Query query = QueryRegistry.getDefault().getQuery(SEARCH_QUERY);
+    final QueryResultSet resultSet = new Query2Doc().executeSelectCursor(dataset, query, null);
+    final Map<String, ConceptEntry> entries = new LinkedHashMap<>();
+    try {
+      final List<String> variableNames = resultSet.getVariableNames();
+      final int conceptIndex = variableNames.indexOf("concept");
+      final int termIndex = variableNames.indexOf("term");
+      final int synonymIndex = variableNames.indexOf("synonym");
+      final int definitionIndex = variableNames.indexOf("definition");
+      final int noteIndex = variableNames.indexOf("note");
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        final String iri = resultSet.getValue(record, conceptIndex);
+        ConceptEntry entry = entries.get(iri);
+        // Solutions are ordered, so the first one has the least term and definition
+        if (entry == null) {
+          entry = new ConceptEntry(iri, resultSet.getValue(record, termIndex),
+              resultSet.getValue(record, definitionIndex));
+          entries.put(iri, entry);
+        }
+        final String synonym = resultSet.getValue(record, synonymIndex);
+        if (!synonym.isEmpty()) {
+          entry.synonyms.add(synonym);
+        }
+        final String note = resultSet.getValue(record, noteIndex);
+        if (!note.isEmpty()) {
+          entry.notes.add(note);
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+    final List<ConceptEntry> concepts = new ArrayList<>(entries.values());
+    concepts.sort(Comparator.<ConceptEntry, String>comparing(e -> e.term)
+        .thenComparing(e -> e.iri));
+    return new SearchIndex(ByteBuffer.wrap(write(concepts)));
+  }
+
+  /**
+   * Memory-maps a saved index
+   * 
+   * @param path file written by {@link #save(Path)}
+   * @return an index backed by the file
+   * @throws IOException if the file cannot be read or is not an index of a supported version
+   */
+  public static SearchIndex load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new SearchIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage() + " " + path);
+    }
+  }
+
+  /**
+   * Builds a search index and saves it to a file
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of source vocabulary</li>
+   *        <li>name of index file to write</li>
+   *        </ol>
+   * @throws IOException if the source cannot be read or the index cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      useage();
+    } else {
+      final SearchIndex index = build(new Query2Doc().getDataset(args[0]));
+      index.save(Paths.get(args[1]));
+      System.out.format("%d concepts, %d labels, %d tokens%n", index.getConceptCount(),
+          index.labelCount, index.tokenCount);
+    }
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.search.SearchIndex <in-URI> <index-file>");
+  }
+
+  private static int commonPrefixLength(String a, String b) {
+    final int length = Math.min(a.length(), b.length());
+    int i = 0;
+    while (i < length && a.charAt(i) == b.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Computes a row of the edit distance matrix between a key and a candidate
+   * 
+   * @return least value in the row
+   */
+  private static int nextRow(String key, char c, int[] previous, int[] current, int depth) {
+    current[0] = depth;
+    int rowMin = depth;
+    for (int j = 1; j <= key.length(); j++) {
+      final int cost = c == key.charAt(j - 1) ? 0 : 1;
+      current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+      rowMin = Math.min(rowMin, current[j]);
+    }
+    return rowMin;
+  }
+
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] write(List<ConceptEntry> concepts) throws IOException {
+    final List<LabelEntry> labels = new ArrayList<>();
+    final Map<String, List<Integer>> postings = new HashMap<>();
+    for (int concept = 0; concept < concepts.size(); concept++) {
+      final ConceptEntry entry = concepts.get(concept);
+      final Set<String> keys = new LinkedHashSet<>();
+      final Set<String> tokens = new LinkedHashSet<>();
+      keys.add(Tokenizer.normalize(entry.term));
+      labels.add(new LabelEntry(utf8(Tokenizer.normalize(entry.term)), entry.term, concept));
+      tokens.addAll(Tokenizer.tokenize(entry.term));
+      for (String synonym : entry.synonyms) {
+        final String key = Tokenizer.normalize(synonym);
+        if (keys.add(key)) {
+          labels.add(new LabelEntry(utf8(key), synonym, concept));
+        }
+        tokens.addAll(Tokenizer.tokenize(synonym));
+      }
+      tokens.addAll(Tokenizer.tokenize(entry.definition));
+      for (String note : entry.notes) {
+        tokens.addAll(Tokenizer.tokenize(note));
+      }
+      // Concepts are visited in order, so each posting list is sorted
+      for (String token : tokens) {
+        postings.computeIfAbsent(token, k -> new ArrayList<>()).add(concept);
+      }
+    }
+    labels.sort((a, b) -> {
+      final int c = Arrays.compareUnsigned(a.key, b.key);
+      return c != 0 ? c : Integer.compare(a.concept, b.concept);
+    });
+    final List<byte[]> tokenKeys = new ArrayList<>(postings.size());
+    for (String token : postings.keySet()) {
+      tokenKeys.add(utf8(token));
+    }
+    tokenKeys.sort(Arrays::compareUnsigned);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    final int[] header = new int[HEADER_LENGTH / Integer.BYTES];
+    header[0] = MAGIC;
+    header[1] = VERSION;
+    header[CONCEPT_COUNT / Integer.BYTES] = concepts.size();
+    header[LABEL_COUNT / Integer.BYTES] = labels.size();
+    header[TOKEN_COUNT / Integer.BYTES] = tokenKeys.size();
+    out.write(new byte[HEADER_LENGTH]);
+
+    final List<byte[]> strings = new ArrayList<>(concepts.size());
+    header[IRIS / Integer.BYTES] = out.size();
+    concepts.forEach(e -> strings.add(utf8(e.iri)));
+    writeStrings(out, strings);
+    strings.clear();
+    header[TERMS / Integer.BYTES] = out.size();
+    concepts.forEach(e -> strings.add(utf8(e.term)));
+    writeStrings(out, strings);
+    strings.clear();
+    header[DEFINITIONS / Integer.BYTES] = out.size();
+    concepts.forEach(e -> strings.add(utf8(e.definition)));
+    writeStrings(out, strings);
+    strings.clear();
+    header[LABEL_KEYS / Integer.BYTES] = out.size();
+    labels.forEach(e -> strings.add(e.key));
+    writeStrings(out, strings);
+    strings.clear();
+    header[LABEL_TEXTS / Integer.BYTES] = out.size();
+    labels.forEach(e -> strings.add(utf8(e.text)));
+    writeStrings(out, strings);
+    header[LABEL_CONCEPTS / Integer.BYTES] = out.size();
+    for (LabelEntry label : labels) {
+      out.writeInt(label.concept);
+    }
+    header[TOKENS / Integer.BYTES] = out.size();
+    writeStrings(out, tokenKeys);
+    header[POSTING_STARTS / Integer.BYTES] = out.size();
+    int start = 0;
+    for (byte[] token : tokenKeys) {
+      out.writeInt(start);
+      start += postings.get(new String(token, StandardCharsets.UTF_8)).size();
+    }
+    out.writeInt(start);
+    header[POSTINGS / Integer.BYTES] = out.size();
+    for (byte[] token : tokenKeys) {
+      for (int concept : postings.get(new String(token, StandardCharsets.UTF_8))) {
+        out.writeInt(concept);
+      }
+    }
+    out.flush();
+
+    final byte[] index = bytes.toByteArray();
+    final ByteBuffer buffer = ByteBuffer.wrap(index);
+    for (int i = 0; i < header.length; i++) {
+      buffer.putInt(i * Integer.BYTES, header[i]);
+    }
+    return index;
+  }
+
+  /**
+   * A string table is an array of n + 1 offsets followed by the UTF-8 bytes of n strings
+   */
+  private static void writeStrings(DataOutputStream out, List<byte[]> strings)
+      throws IOException {
+    int offset = 0;
+    for (byte[] s : strings) {
+      out.writeInt(offset);
+      offset += s.length;
+    }
+    out.writeInt(offset);
+    for (byte[] s : strings) {
+      out.write(s);
+    }
+  }
+
+  private final ByteBuffer buffer;
+  private final int conceptCount;
+  private final int labelCount;
+  private final int tokenCount;
+
+  private SearchIndex(ByteBuffer buffer) {
+    if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a search index");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported search index version " + buffer.getInt(4));
+    }
+    this.buffer = buffer;
+    this.conceptCount = buffer.getInt(CONCEPT_COUNT);
+    this.labelCount = buffer.getInt(LABEL_COUNT);
+    this.tokenCount = buffer.getInt(TOKEN_COUNT);
+  }
+
+  /**
+   * Finds concepts by words of their labels, definitions or scope notes
+   * 
+   * @param text words to find. Every word must occur in a concept for it to match.
+   * @param limit maximum number of hits to return
+   * @return hits in term order, labeled by preferred term
+   */
+  public List<SearchHit> findByKeywords(String text, int limit) {
+    final Set<String> words = new LinkedHashSet<>(Tokenizer.tokenize(text));
+    if (words.isEmpty()) {
+      return List.of();
+    }
+    final int postingStarts = buffer.getInt(POSTING_STARTS);
+    final int postingsOffset = buffer.getInt(POSTINGS);
+    final int[][] ranges = new int[words.size()][];
+    int w = 0;
+    for (String word : words) {
+      final byte[] key = utf8(word);
+      final int token = lowerBound(TOKENS, tokenCount, key);
+      if (token == tokenCount || compareKey(TOKENS, tokenCount, token, key) != 0) {
+        return List.of();
+      }
+      ranges[w++] = new int[] {buffer.getInt(postingStarts + token * Integer.BYTES),
+          buffer.getInt(postingStarts + (token + 1) * Integer.BYTES)};
+    }
+    Arrays.sort(ranges, Comparator.comparingInt(r -> r[1] - r[0]));
+
+    // Walk the shortest posting list, advancing the others by binary search
+    final List<SearchHit> hits = new ArrayList<>();
+    for (int i = ranges[0][0]; i < ranges[0][1] && hits.size() < limit; i++) {
+      final int concept = buffer.getInt(postingsOffset + i * Integer.BYTES);
+      boolean all = true;
+      for (int r = 1; r < ranges.length && all; r++) {
+        all = containsPosting(postingsOffset, ranges[r], concept);
+      }
+      if (all) {
+        final String term = getTerm(concept);
+        hits.add(new SearchHit(concept, getConceptIri(concept), term, term, 0));
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Finds concepts with a label that starts with a prefix, ignoring case
+   * 
+   * @param prefix start of a preferred term or synonym
+   * @param limit maximum number of hits to return
+   * @return hits in label order, at most one per concept
+   */
+  public List<SearchHit> findByPrefix(String prefix, int limit) {
+    final byte[] key = utf8(Tokenizer.normalize(prefix));
+    final List<SearchHit> hits = new ArrayList<>();
+    final BitSet found = new BitSet(conceptCount);
+    for (int label = lowerBound(LABEL_KEYS, labelCount, key); label < labelCount
+        && hits.size() < limit && startsWith(LABEL_KEYS, labelCount, label, key); label++) {
+      addLabelHit(hits, found, label, 0);
+    }
+    return hits;
+  }
+
+  /**
+   * Finds concepts with a label within an edit distance of a string, ignoring case
+   * 
+   * @param label approximate preferred term or synonym
+   * @param maxEdits maximum number of single character insertions, deletions or substitutions
+   * @param limit maximum number of hits to return
+   * @return hits ordered by distance, then by label, at most one per concept
+   */
+  public List<SearchHit> findFuzzy(String label, int maxEdits, int limit) {
+    final String key = Tokenizer.normalize(label);
+    final List<int[]> candidates = new ArrayList<>();
+
+    // The sorted label keys are walked as a trie. Rows of the edit distance matrix are shared by
+    // keys with a common prefix, and all keys under a prefix that is already too distant are
+    // skipped.
+    // A row deeper than the key length plus maxEdits is always pruned
+    final int[][] rows = new int[key.length() + maxEdits + 2][];
+    rows[0] = new int[key.length() + 1];
+    for (int j = 0; j <= key.length(); j++) {
+      rows[0][j] = j;
+    }
+    String previous = "";
+    int validDepth = 0;
+    int i = 0;
+    while (i < labelCount) {
+      final String candidate = string(LABEL_KEYS, labelCount, i);
+      int depth = Math.min(commonPrefixLength(previous, candidate), validDepth);
+      boolean pruned = false;
+      while (depth < candidate.length() && !pruned) {
+        depth++;
+        if (rows[depth] == null) {
+          rows[depth] = new int[key.length() + 1];
+        }
+        pruned = nextRow(key, candidate.charAt(depth - 1), rows[depth - 1], rows[depth],
+            depth) > maxEdits;
+      }
+      previous = candidate;
+      validDepth = depth;
+      if (pruned && !Character.isHighSurrogate(candidate.charAt(depth - 1))) {
+        i = prefixEnd(LABEL_KEYS, labelCount, i, utf8(candidate.substring(0, depth)));
+      } else {
+        final int distance = rows[depth][key.length()];
+        if (!pruned && distance <= maxEdits) {
+          candidates.add(new int[] {distance, i});
+        }
+        i++;
+      }
+    }
+    candidates.sort(Comparator.<int[]>comparingInt(c -> c[0]).thenComparingInt(c -> c[1]));
+    final List<SearchHit> hits = new ArrayList<>();
+    final BitSet found = new BitSet(conceptCount);
+    for (int[] candidate : candidates) {
+      if (hits.size() == limit) {
+        break;
+      }
+      addLabelHit(hits, found, candidate[1], candidate[0]);
+    }
+    return hits;
+  }
+
+  /**
+   * @param concept position of a concept, less than {@link #getConceptCount()}
+   * @return IRI of the concept
+   */
+  public String getConceptIri(int concept) {
+    return string(IRIS, conceptCount, concept);
+  }
+
+  /**
+   * @return number of concepts in this index
+   */
+  public int getConceptCount() {
+    return conceptCount;
+  }
+
+  /**
+   * @param concept position of a concept, less than {@link #getConceptCount()}
+   * @return definition of the concept, empty if it has none
+   */
+  public String getDefinition(int concept) {
+    return string(DEFINITIONS, conceptCount, concept);
+  }
+
+  /**
+   * @param concept position of a concept, less than {@link #getConceptCount()}
+   * @return preferred label of the concept
+   */
+  public String getTerm(int concept) {
+    return string(TERMS, conceptCount, concept);
+  }
+
+  /**
+   * Writes this index to a file
+   * 
+   * @param path file to write. An existing file is replaced.
+   * @throws IOException if the file cannot be written
+   */
+  public void save(Path path) throws IOException {
+    final ByteBuffer source = buffer.duplicate();
+    source.clear();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    }
+  }
+
+  private void addLabelHit(List<SearchHit> hits, BitSet found, int label, int distance) {
+    final int concept = buffer.getInt(buffer.getInt(LABEL_CONCEPTS) + label * Integer.BYTES);
+    if (!found.get(concept)) {
+      found.set(concept);
+      hits.add(new SearchHit(concept, getConceptIri(concept), getTerm(concept),
+          string(LABEL_TEXTS, labelCount, label), distance));
+    }
+  }
+
+  /**
+   * Compares a string in a table to a key as unsigned bytes
+   */
+  private int compareKey(int table, int count, int index, byte[] key) {
+    final int offsets = buffer.getInt(table);
+    final int data = offsets + (count + 1) * Integer.BYTES;
+    final int start = data + buffer.getInt(offsets + index * Integer.BYTES);
+    final int length = data + buffer.getInt(offsets + (index + 1) * Integer.BYTES) - start;
+    final int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      final int c = Byte.toUnsignedInt(buffer.get(start + i)) - Byte.toUnsignedInt(key[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return length - key.length;
+  }
+
+  private boolean containsPosting(int postingsOffset, int[] range, int concept) {
+    int low = range[0];
+    int high = range[1] - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int value = buffer.getInt(postingsOffset + mid * Integer.BYTES);
+      if (value < concept) {
+        low = mid + 1;
+      } else if (value > concept) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the position of the first string in a sorted table, at or after a position, that does
+   * not start with a prefix. The string at the starting position must start with the prefix.
+   */
+  private int prefixEnd(int table, int count, int from, byte[] prefix) {
+    int low = from + 1;
+    int high = count;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (startsWith(table, count, mid, prefix)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the position of the first string in a sorted table that is not less than a key
+   */
+  private int lowerBound(int table, int count, byte[] key) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (compareKey(table, count, mid, key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private boolean startsWith(int table, int count, int index, byte[] prefix) {
+    final int offsets = buffer.getInt(table);
+    final int data = offsets + (count + 1) * Integer.BYTES;
+    final int start = data + buffer.getInt(offsets + index * Integer.BYTES);
+    final int end = data + buffer.getInt(offsets + (index + 1) * Integer.BYTES);
+    if (end - start < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(start + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String string(int table, int count, int index) {
+    final int offsets = buffer.getInt(table);
+    final int data = offsets + (count + 1) * Integer.BYTES;
+    final int start = buffer.getInt(offsets + index * Integer.BYTES);
+    final byte[] bytes = new byte[buffer.getInt(offsets + (index + 1) * Integer.BYTES) - start];
+    final ByteBuffer source = buffer.duplicate();
+    source.position(data + start);
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalizes labels and splits text into search tokens
+ * 
+ * A token is a maximal run of letters and digits, folded to lower case.
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class Tokenizer {
+
+  /**
+   * Returns the form of a label used as a lookup key: lower case, with runs of whitespace
+   * collapsed to a single space and leading and trailing whitespace removed
+   */
+  static String normalize(String label) {
+    final StringBuilder sb = new StringBuilder(label.length());
+    boolean space = false;
+    for (int i = 0; i < label.length(); i++) {
+      final char c = label.charAt(i);
+      if (Character.isWhitespace(c)) {
+        space = sb.length() > 0;
+      } else {
+        if (space) {
+          sb.append(' ');
+          space = false;
+        }
+        sb.append(c);
+      }
+    }
+    return sb.toString().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Splits text into tokens
+   * 
+   * @param text text to split
+   * @return tokens in order of appearance, possibly repeated
+   */
+  static List<String> tokenize(String text) {
+    final List<String> tokens = new ArrayList<>();
+    int start = -1;
+    int i = 0;
+    while (i < text.length()) {
+      final int codePoint = text.codePointAt(i);
+      if (Character.isLetterOrDigit(codePoint)) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+      i += Character.charCount(codePoint);
+    }
+    if (start >= 0) {
+      tokens.add(text.substring(start).toLowerCase(Locale.ROOT));
+    }
+    return tokens;
+  }
+
+  private Tokenizer() {
+
+  }
+}
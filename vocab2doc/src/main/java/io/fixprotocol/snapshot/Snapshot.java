@@ -0,0 +1,361 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+
+/**
+ * A query result saved in a versioned binary file
+ * 
+ * A snapshot consists of a table of distinct strings followed by fixed-width records, one per
+ * row. Each field of a record is the index of its value in the string table. A snapshot is read by
+ * memory-mapping its file and is traversed through the same {@link QueryResultSet} interface as a
+ * live query, so a consumer may render it without loading an RDF dataset. Values are decoded only
+ * as they are read.
+ * <p>
+ * Instances are immutable and thread-safe. A cursor is for use by a single thread.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class Snapshot {
+
+  /**
+   * Conventional file extension of a snapshot
+   */
+  public static final String FILE_EXTENSION = ".fxvs";
+
+  /**
+   * Version of the binary format written by this class
+   */
+  public static final int VERSION = 1;
+
+  // "FXVS"
+  static final int MAGIC = 0x46585653;
+
+  // Header: magic, version, counts of variables, rows and strings, offset of string data
+  private static final int VARIABLE_COUNT = 8;
+  private static final int ROW_COUNT = 12;
+  private static final int STRING_COUNT = 16;
+  private static final int STRING_DATA = 20;
+  private static final int HEADER_LENGTH = 24;
+
+  /**
+   * Runs a query and saves its result as a snapshot
+   * 
+   * @param dataset source of data
+   * @param queryName name of a query known to {@link QueryRegistry}
+   * @param path file to write. An existing file is replaced.
+   * @throws IOException if the query cannot be read or the file cannot be written
+   */
+  public static void export(Dataset dataset, String queryName, Path path) throws IOException {
+    final Query query = QueryRegistry.getDefault().getQuery(queryName);
+    write(new Query2Doc().executeSelectCursor(dataset, query, null), path);
+  }
+
+  /**
+   * Compiles a vocabulary into a snapshot of the all terms query
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of source vocabulary</li>
+   *        <li>name of snapshot file to write</li>
+   *        <li>name of query, default {@code allterms}</li>
+   *        </ol>
+   * @throws IOException if the source cannot be read or the snapshot cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      useage();
+    } else {
+      final String queryName = args.length > 2 ? args[2] : "allterms";
+      export(new Query2Doc().getDataset(args[0]), queryName, Paths.get(args[1]));
+    }
+  }
+
+  /**
+   * Memory-maps a snapshot file
+   * 
+   * @param path file written by {@link #write(QueryResultSet, Path)}
+   * @return a snapshot backed by the file
+   * @throws IOException if the file cannot be read or is not a snapshot of a supported version
+   */
+  public static Snapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage() + " " + path);
+    }
+  }
+
+  public static void useage() {
+    System.err.println(
+        "Useage: java io.fixprotocol.snapshot.Snapshot <in-URI> <snapshot-file> [query-name]");
+  }
+
+  /**
+   * Saves the remaining records of a result set as a snapshot. The result set is consumed and
+   * closed.
+   * 
+   * @param resultSet results to save
+   * @param path file to write. An existing file is replaced.
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(QueryResultSet resultSet, Path path) throws IOException {
+    final List<String> variableNames;
+    final List<String> strings = new ArrayList<>();
+    final Map<String, Integer> stringIds = new HashMap<>();
+    int[] records = new int[1024];
+    int fieldCount = 0;
+    try {
+      variableNames = List.copyOf(resultSet.getVariableNames());
+      // Empty string is always index 0, so that unbound values need no lookup
+      strings.add("");
+      stringIds.put("", 0);
+      for (String name : variableNames) {
+        stringIds.computeIfAbsent(name, k -> addString(strings, k));
+      }
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        for (int col = 0; col < variableNames.size(); col++) {
+          if (fieldCount == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+          }
+          records[fieldCount++] = stringIds.computeIfAbsent(resultSet.getValue(record, col),
+              k -> addString(strings, k));
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+
+    final List<byte[]> encoded = new ArrayList<>(strings.size());
+    for (String s : strings) {
+      encoded.add(s.getBytes(StandardCharsets.UTF_8));
+    }
+    // string offsets and the variable and record tables precede string data
+    final int stringData = HEADER_LENGTH + (encoded.size() + 1) * Integer.BYTES
+        + (variableNames.size() + fieldCount) * Integer.BYTES;
+    try (OutputStream file = Files.newOutputStream(path);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 65536))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(variableNames.size());
+      out.writeInt(variableNames.isEmpty() ? 0 : fieldCount / variableNames.size());
+      out.writeInt(encoded.size());
+      out.writeInt(stringData);
+      int offset = 0;
+      for (byte[] s : encoded) {
+        out.writeInt(offset);
+        offset += s.length;
+      }
+      out.writeInt(offset);
+      for (String name : variableNames) {
+        out.writeInt(stringIds.get(name));
+      }
+      for (int i = 0; i < fieldCount; i++) {
+        out.writeInt(records[i]);
+      }
+      for (byte[] s : encoded) {
+        out.write(s);
+      }
+    }
+  }
+
+  private static int addString(List<String> strings, String s) {
+    strings.add(s);
+    return strings.size() - 1;
+  }
+
+  private final ByteBuffer buffer;
+  private final int records;
+  private final int rowCount;
+  private final int stringCount;
+  private final int stringData;
+  private final List<String> variableNames;
+
+  private Snapshot(ByteBuffer buffer) {
+    if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a snapshot");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IllegalArgumentException("Unsupported snapshot version " + buffer.getInt(4));
+    }
+    this.buffer = buffer;
+    final int variableCount = buffer.getInt(VARIABLE_COUNT);
+    this.rowCount = buffer.getInt(ROW_COUNT);
+    this.stringCount = buffer.getInt(STRING_COUNT);
+    this.stringData = buffer.getInt(STRING_DATA);
+    final int variables = HEADER_LENGTH + (stringCount + 1) * Integer.BYTES;
+    final List<String> names = new ArrayList<>(variableCount);
+    for (int col = 0; col < variableCount; col++) {
+      names.add(string(buffer.getInt(variables + col * Integer.BYTES)));
+    }
+    this.variableNames = List.copyOf(names);
+    this.records = variables + variableCount * Integer.BYTES;
+  }
+
+  /**
+   * Returns a new cursor over the rows of this snapshot. Records returned by the cursor are reused
+   * and are only valid until its next call to {@code next()}.
+   * 
+   * @return a result set positioned before the first row
+   */
+  public QueryResultSet cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * @return number of rows
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return number of distinct strings, including variable names
+   */
+  public int getStringCount() {
+    return stringCount;
+  }
+
+  /**
+   * Returns a value
+   * 
+   * @param row row index, zero-based
+   * @param variableIndex position of the variable in {@link #getVariableNames()}
+   * @return variable value as a String, empty if unbound
+   * @throws IndexOutOfBoundsException if either index is out of range
+   */
+  public String getValue(int row, int variableIndex) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row);
+    }
+    if (variableIndex < 0 || variableIndex >= variableNames.size()) {
+      throw new IndexOutOfBoundsException("Variable " + variableIndex);
+    }
+    return string(stringId(row, variableIndex));
+  }
+
+  /**
+   * @return names of the variables in column order
+   */
+  public List<String> getVariableNames() {
+    return variableNames;
+  }
+
+  private String string(int id) {
+    if (id == 0) {
+      return "";
+    }
+    final int offsets = HEADER_LENGTH;
+    final int start = buffer.getInt(offsets + id * Integer.BYTES);
+    final byte[] bytes = new byte[buffer.getInt(offsets + (id + 1) * Integer.BYTES) - start];
+    final ByteBuffer source = buffer.duplicate();
+    source.position(stringData + start);
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int stringId(int row, int variableIndex) {
+    return buffer.getInt(records + (row * variableNames.size() + variableIndex) * Integer.BYTES);
+  }
+
+  private class Cursor implements QueryResultSet, QueryResultRecord {
+
+    private int row = -1;
+
+    @Override
+    public void close() {
+      row = rowCount;
+    }
+
+    @Override
+    public boolean contains(String variableName) {
+      final int col = variableNames.indexOf(variableName);
+      return col >= 0 && stringId(row, col) != 0;
+    }
+
+    @Override
+    public String getValue(QueryResultRecord record, int variableIndex) {
+      return record == this ? getValue(variableIndex)
+          : record.getValue(variableNames.get(variableIndex));
+    }
+
+    String getValue(int variableIndex) {
+      return string(stringId(row, variableIndex));
+    }
+
+    @Override
+    public String getValue(String variableName) {
+      final int col = variableNames.indexOf(variableName);
+      return col >= 0 ? getValue(col) : "";
+    }
+
+    @Override
+    public List<String> getVariableNames() {
+      return variableNames;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return row + 1 < rowCount;
+    }
+
+    @Override
+    public QueryResultRecord next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      row++;
+      return this;
+    }
+
+    @Override
+    public Iterator<String> variableNames() {
+      final List<String> bound = new ArrayList<>(variableNames.size());
+      for (int col = 0; col < variableNames.size(); col++) {
+        if (stringId(row, col) != 0) {
+          bound.add(variableNames.get(col));
+        }
+      }
+      return bound.iterator();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A query result materialized into columns for repeated traversal
+ * 
+ * Each column is an array of values, one per row. Equal values are interned within a result so
+ * that repeated strings, such as the source or specification of many terms, share one instance.
+ * An instance is immutable once created and may be traversed by many threads concurrently.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class ColumnarResult {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  /**
+   * Materializes the remaining records of a result set. The result set is consumed and closed.
+   * 
+   * @param resultSet results to copy
+   * @return a new columnar result
+   */
+  public static ColumnarResult of(QueryResultSet resultSet) {
+    try {
+      final List<String> variableNames = List.copyOf(resultSet.getVariableNames());
+      final int columnCount = variableNames.size();
+      final Map<String, String> dictionary = new HashMap<>();
+      String[][] columns = new String[columnCount][INITIAL_CAPACITY];
+      int rowCount = 0;
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        if (columnCount > 0 && rowCount == columns[0].length) {
+          for (int col = 0; col < columnCount; col++) {
+            columns[col] = Arrays.copyOf(columns[col], rowCount * 2);
+          }
+        }
+        for (int col = 0; col < columnCount; col++) {
+          final String value = resultSet.getValue(record, col);
+          columns[col][rowCount] = dictionary.computeIfAbsent(value, v -> v);
+        }
+        rowCount++;
+      }
+      for (int col = 0; col < columnCount; col++) {
+        columns[col] = Arrays.copyOf(columns[col], rowCount);
+      }
+      return new ColumnarResult(variableNames, columns, rowCount, dictionary.size());
+    } finally {
+      resultSet.close();
+    }
+  }
+
+  private final String[][] columns;
+  private final int distinctValueCount;
+  private final int rowCount;
+  private final List<String> variableNames;
+
+  private ColumnarResult(List<String> variableNames, String[][] columns, int rowCount,
+      int distinctValueCount) {
+    this.variableNames = variableNames;
+    this.columns = columns;
+    this.rowCount = rowCount;
+    this.distinctValueCount = distinctValueCount;
+  }
+
+  /**
+   * Returns a new cursor over the rows of this result. Records returned by the cursor are reused
+   * and are only valid until its next call to {@code next()}.
+   * 
+   * @return a result set positioned before the first row
+   */
+  public QueryResultSet cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * @return number of distinct values stored across all columns
+   */
+  public int getDistinctValueCount() {
+    return distinctValueCount;
+  }
+
+  /**
+   * @return number of rows
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Returns a value
+   * 
+   * @param row row index, zero-based
+   * @param variableIndex position of the variable in {@link #getVariableNames()}
+   * @return variable value as a String, empty if unbound
+   * @throws IndexOutOfBoundsException if either index is out of range
+   */
+  public String getValue(int row, int variableIndex) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row);
+    }
+    return columns[variableIndex][row];
+  }
+
+  /**
+   * Returns the position of a variable
+   * 
+   * @param variableName name of a variable
+   * @return index of the variable, or -1 if not in this result
+   */
+  public int getVariableIndex(String variableName) {
+    return variableNames.indexOf(variableName);
+  }
+
+  /**
+   * @return names of the variables in column order
+   */
+  public List<String> getVariableNames() {
+    return variableNames;
+  }
+
+  private class Cursor implements QueryResultSet, QueryResultRecord {
+
+    private int row = -1;
+
+    @Override
+    public void close() {
+      row = rowCount;
+    }
+
+    @Override
+    public boolean contains(String variableName) {
+      final int col = getVariableIndex(variableName);
+      return col >= 0 && !columns[col][row].isEmpty();
+    }
+
+    @Override
+    public String getValue(QueryResultRecord record, int variableIndex) {
+      return record == this ? getValue(variableIndex)
+          : record.getValue(variableNames.get(variableIndex));
+    }
+
+    String getValue(int variableIndex) {
+      return columns[variableIndex][row];
+    }
+
+    @Override
+    public String getValue(String variableName) {
+      final int col = getVariableIndex(variableName);
+      return col >= 0 ? columns[col][row] : "";
+    }
+
+    @Override
+    public List<String> getVariableNames() {
+      return variableNames;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return row + 1 < rowCount;
+    }
+
+    @Override
+    public QueryResultRecord next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      row++;
+      return this;
+    }
+
+    @Override
+    public Iterator<String> variableNames() {
+      final List<String> bound = new ArrayList<>(variableNames.size());
+      for (int col = 0; col < variableNames.size(); col++) {
+        if (!columns[col][row].isEmpty()) {
+          bound.add(variableNames.get(col));
+        }
+      }
+      return bound.iterator();
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+
+/**
+ * A size-bounded cache of parsed datasets, keyed by source URI
+ * 
+ * When a source resolves to a local file, a cached dataset is only reused while the file's
+ * last-modified time and content hash are unchanged. A change on disk causes the source to be
+ * parsed again. Sources that do not resolve to a local file are treated as immutable.
+ * <p>
+ * The least recently used dataset is evicted when the cache exceeds its capacity. This class is
+ * thread-safe.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class DatasetCache {
+
+  /**
+   * Default number of datasets retained
+   */
+  public static final int DEFAULT_CAPACITY = 8;
+
+  private static final class CachedDataset {
+    final Dataset dataset;
+    final byte[] hash;
+    final long lastModified;
+    final long size;
+
+    CachedDataset(Dataset dataset, long lastModified, long size, byte[] hash) {
+      this.dataset = dataset;
+      this.lastModified = lastModified;
+      this.size = size;
+      this.hash = hash;
+    }
+  }
+
+  private final Map<String, CachedDataset> entries;
+
+  /**
+   * Constructs a cache with default capacity
+   */
+  public DatasetCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a cache
+   * 
+   * @param capacity maximum number of datasets to retain
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public DatasetCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedDataset> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns a dataset for a source, parsing it only if it is not cached or has changed
+   * 
+   * @param sourceUri identifier of source
+   * @return a dataset
+   * @throws IOException If an I/O error occurs reading the source
+   */
+  public Dataset get(String sourceUri) throws IOException {
+    final Path path = resolvePath(sourceUri);
+    final long lastModified = path != null ? Files.getLastModifiedTime(path).toMillis() : 0L;
+    final long size = path != null ? Files.size(path) : 0L;
+
+    synchronized (entries) {
+      final CachedDataset entry = entries.get(sourceUri);
+      if (entry != null
+          && (path == null || (entry.lastModified == lastModified && entry.size == size))) {
+        return entry.dataset;
+      }
+    }
+
+    // Timestamp changed or not cached. The file is hashed outside the lock so that a large
+    // source does not block callers of other sources.
+    final byte[] hash = path != null ? hash(path) : null;
+    synchronized (entries) {
+      // Re-check, since the entry may have been replaced while hashing
+      final CachedDataset entry = entries.get(sourceUri);
+      if (entry != null && hash != null && Arrays.equals(hash, entry.hash)) {
+        // Only reload if content changed too
+        entries.put(sourceUri, new CachedDataset(entry.dataset, lastModified, size, hash));
+        return entry.dataset;
+      }
+    }
+
+    final Dataset dataset = DatasetFactory.create(sourceUri);
+    synchronized (entries) {
+      entries.put(sourceUri, new CachedDataset(dataset, lastModified, size, hash));
+    }
+    return dataset;
+  }
+
+  /**
+   * Removes all cached datasets
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Removes a cached dataset, if present
+   * 
+   * @param sourceUri identifier of source
+   */
+  public void invalidate(String sourceUri) {
+    synchronized (entries) {
+      entries.remove(sourceUri);
+    }
+  }
+
+  /**
+   * @return number of datasets currently cached
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  static byte[] hash(Path path) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    final byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(path)) {
+      int bytesRead;
+      while ((bytesRead = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, bytesRead);
+      }
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Resolves a source URI to a local file the same way a file name or classpath resource would be
+   * located for parsing
+   * 
+   * @return path of a local file, or {@code null} if the source is not a local file
+   */
+  static Path resolvePath(String sourceUri) {
+    try {
+      final URI uri = new URI(sourceUri);
+      if ("file".equalsIgnoreCase(uri.getScheme())) {
+        return Paths.get(uri);
+      } else if (uri.getScheme() != null && uri.getScheme().length() > 1) {
+        return null;
+      }
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      // not a URI; try as a file name
+    }
+    try {
+      final Path path = Paths.get(sourceUri);
+      if (Files.isRegularFile(path)) {
+        return path;
+      }
+    } catch (InvalidPathException e) {
+      return null;
+    }
+    final URL resource = DatasetCache.class.getClassLoader().getResource(sourceUri);
+    if (resource != null && "file".equalsIgnoreCase(resource.getProtocol())) {
+      try {
+        return Paths.get(resource.toURI());
+      } catch (URISyntaxException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+
+/**
+ * Parses multiple vocabulary sources concurrently into one dataset
+ * 
+ * Each source is parsed on its own thread into a separate graph, which becomes a named graph of
+ * the dataset named by its source URI. The default graph of the dataset is either a merged copy
+ * of all sources or a read-only union view over them.
+ * <p>
+ * A large local N-Triples or N-Quads file is also split at line boundaries and its pieces parsed
+ * in parallel, since each line of those formats is a complete statement. Blank node labels are
+ * scoped to a source, so a label shared by pieces of the same file denotes the same node. Turtle
+ * and other formats with prefixes or multi-line statements are parsed by a single thread.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class ParallelLoader {
+
+  /**
+   * Default minimum size in bytes of a piece of a split file
+   */
+  public static final long DEFAULT_MIN_PIECE_SIZE = 8L * 1024 * 1024;
+
+  /**
+   * Reads a range of a file by positional reads, so pieces can share a channel
+   */
+  private static final class RangeInputStream extends InputStream {
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    RangeInputStream(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+      buffer.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      final int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    private boolean fill() throws IOException {
+      if (buffer.hasRemaining()) {
+        return true;
+      }
+      if (position >= end) {
+        return false;
+      }
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), end - position));
+      final int bytesRead = channel.read(buffer, position);
+      buffer.flip();
+      if (bytesRead <= 0) {
+        return false;
+      }
+      position += bytesRead;
+      return true;
+    }
+  }
+
+  /**
+   * Finds the start of the line at or following an offset
+   */
+  static long lineStart(FileChannel channel, long offset) throws IOException {
+    final long size = channel.size();
+    if (offset == 0) {
+      return 0;
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(8192);
+    long position = offset - 1;
+    while (position < size) {
+      buffer.clear();
+      final int bytesRead = channel.read(buffer, position);
+      if (bytesRead <= 0) {
+        break;
+      }
+      for (int i = 0; i < bytesRead; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += bytesRead;
+    }
+    return size;
+  }
+
+  private static void mergeNamedGraphs(DatasetGraph source, DatasetGraph target) {
+    final Iterator<Node> names = source.listGraphNodes();
+    while (names.hasNext()) {
+      final Node name = names.next();
+      final Graph graph = source.getGraph(name);
+      if (target.containsGraph(name)) {
+        final Graph existing = target.getGraph(name);
+        graph.find().forEachRemaining(existing::add);
+      } else {
+        target.addGraph(name, graph);
+      }
+    }
+  }
+
+  private final long minPieceSize;
+  private final int threads;
+
+  /**
+   * Constructs a loader with default piece size
+   * 
+   * @param threads number of parser threads
+   */
+  public ParallelLoader(int threads) {
+    this(threads, DEFAULT_MIN_PIECE_SIZE);
+  }
+
+  /**
+   * Constructs a loader
+   * 
+   * @param threads number of parser threads
+   * @param minPieceSize a splittable file is only split into pieces of at least this many bytes
+   * @throws IllegalArgumentException if threads or piece size is not positive
+   */
+  public ParallelLoader(int threads, long minPieceSize) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    if (minPieceSize < 1) {
+      throw new IllegalArgumentException("Piece size must be positive");
+    }
+    this.threads = threads;
+    this.minPieceSize = minPieceSize;
+  }
+
+  /**
+   * Parses sources into a dataset whose default graph is a merged copy of all sources
+   * 
+   * @param sourceUris identifiers of sources
+   * @return a dataset with a named graph for each source
+   * @throws IOException If a source cannot be read or parsed
+   */
+  public Dataset load(List<String> sourceUris) throws IOException {
+    return load(sourceUris, false);
+  }
+
+  /**
+   * Parses sources into a dataset
+   * 
+   * @param sourceUris identifiers of sources
+   * @param unionDefaultGraph if {@code true}, the default graph is a view of the union of sources,
+   *        which saves copying at the expense of slower queries. Otherwise, sources are merged
+   *        into a new default graph.
+   * @return a dataset with a named graph for each source. Named graphs of quad sources are
+   *         merged into the dataset as well.
+   * @throws IOException If a source cannot be read or parsed
+   */
+  public Dataset load(List<String> sourceUris, boolean unionDefaultGraph) throws IOException {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final List<FileChannel> channels = new ArrayList<>();
+    try {
+      // Submit all pieces of all sources before waiting on any
+      final List<List<Future<DatasetGraph>>> pieces = new ArrayList<>(sourceUris.size());
+      for (String sourceUri : sourceUris) {
+        pieces.add(submit(sourceUri, executor, channels));
+      }
+
+      final DatasetGraph datasetGraph = DatasetGraphFactory.create();
+      final List<Graph> sourceGraphs = new ArrayList<>(sourceUris.size());
+      for (int i = 0; i < sourceUris.size(); i++) {
+        final Iterator<Future<DatasetGraph>> iter = pieces.get(i).iterator();
+        final DatasetGraph first = iter.next().get();
+        final Graph graph = first.getDefaultGraph();
+        mergeNamedGraphs(first, datasetGraph);
+        while (iter.hasNext()) {
+          final DatasetGraph piece = iter.next().get();
+          piece.getDefaultGraph().find().forEachRemaining(graph::add);
+          mergeNamedGraphs(piece, datasetGraph);
+        }
+        sourceGraphs.add(graph);
+        datasetGraph.addGraph(NodeFactory.createURI(sourceUris.get(i)), graph);
+      }
+
+      final Graph defaultGraph;
+      if (sourceGraphs.size() == 1) {
+        defaultGraph = sourceGraphs.get(0);
+      } else if (unionDefaultGraph) {
+        defaultGraph = new MultiUnion(sourceGraphs.toArray(new Graph[0]));
+      } else {
+        defaultGraph = GraphFactory.createDefaultGraph();
+        for (Graph graph : sourceGraphs) {
+          graph.find().forEachRemaining(defaultGraph::add);
+        }
+      }
+      datasetGraph.setDefaultGraph(defaultGraph);
+      return DatasetFactory.wrap(datasetGraph);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted loading sources", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new IOException(cause);
+      }
+    } finally {
+      executor.shutdownNow();
+      for (FileChannel channel : channels) {
+        channel.close();
+      }
+    }
+  }
+
+  private List<Future<DatasetGraph>> submit(String sourceUri, ExecutorService executor,
+      List<FileChannel> channels) throws IOException {
+    final List<Future<DatasetGraph>> futures = new ArrayList<>();
+    final Lang lang = RDFLanguages.filenameToLang(sourceUri);
+    final Path path = DatasetCache.resolvePath(sourceUri);
+    final int pieceCount;
+    FileChannel channel = null;
+    if (path != null && (Lang.NTRIPLES.equals(lang) || Lang.NQUADS.equals(lang))) {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+      channels.add(channel);
+      pieceCount = (int) Math.max(1, Math.min(threads, channel.size() / minPieceSize));
+    } else {
+      pieceCount = 1;
+    }
+
+    if (pieceCount == 1) {
+      futures.add(executor.submit(() -> {
+        final DatasetGraph piece = DatasetGraphFactory.create();
+        RDFParser.create().source(sourceUri).parse(piece);
+        return piece;
+      }));
+    } else {
+      // All pieces allocate blank nodes from the same seed, so equal labels yield equal nodes
+      final UUID scope = UUID.randomUUID();
+      final long size = channel.size();
+      long start = 0;
+      for (int i = 1; i <= pieceCount; i++) {
+        final long end = i < pieceCount ? lineStart(channel, size * i / pieceCount) : size;
+        if (end > start) {
+          final InputStream in = new RangeInputStream(channel, start, end);
+          futures.add(executor.submit(() -> {
+            final DatasetGraph piece = DatasetGraphFactory.create();
+            RDFParser.create().source(in).lang(lang)
+                .labelToNode(LabelToNode.createScopeByDocumentHash(scope)).parse(piece);
+            return piece;
+          }));
+        }
+        start = end;
+      }
+    }
+    return futures;
+  }
+}
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Node_Variable;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
@@ -27,11 +28,15 @@ import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.QuerySolution;
+import org.apache.jena.query.ReadWrite;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Stage;
 
 /**
  * Executes a SPARQL query
@@ -42,6 +47,50 @@ import org.apache.jena.sparql.core.Var;
 public final class Query2Doc {
 
 
+  /**
+   * A record that is reused for every solution of a result set; variables are resolved by index
+   */
+  private class CursorRecord implements QueryResultRecord {
+
+    private Binding binding;
+    private final Var[] vars;
+
+    CursorRecord(List<Var> vars) {
+      this.vars = vars.toArray(new Var[0]);
+    }
+
+    @Override
+    public boolean contains(String varName) {
+      return binding.contains(Var.alloc(varName));
+    }
+
+    String getValue(int variableIndex) {
+      return lexicalValue(binding.get(vars[variableIndex]));
+    }
+
+    @Override
+    public String getValue(String variableName) {
+      return lexicalValue(binding.get(Var.alloc(variableName)));
+    }
+
+    @Override
+    public Iterator<String> variableNames() {
+      final Iterator<Var> iter = binding.vars();
+      return new Iterator<>() {
+
+        @Override
+        public boolean hasNext() {
+          return iter.hasNext();
+        }
+
+        @Override
+        public String next() {
+          return iter.next().getVarName();
+        }
+      };
+    }
+  }
+
   private class QueryResultRecordImpl implements QueryResultRecord {
 
     private final QuerySolution solution;
@@ -83,11 +132,19 @@ public final class Query2Doc {
     private final ResultSet results;
     private final List<String> variableNames;
     private final QueryExecution qexec;
+    private final Dataset transactional;
+    private final CursorRecord cursor;
+    private boolean closed;
+    private final long start;
 
-    QueryResultSetImpl(QueryExecution qexec, ResultSet results, List<String> variableNames) {
+    QueryResultSetImpl(QueryExecution qexec, ResultSet results, List<String> variableNames,
+        Dataset transactional, CursorRecord cursor, long start) {
+      this.start = start;
       this.qexec = qexec;
       this.results = results;
       this.variableNames = variableNames;
+      this.transactional = transactional;
+      this.cursor = cursor;
     }
 
     @Override
@@ -102,17 +159,56 @@ public final class Query2Doc {
 
     @Override
     public QueryResultRecord next() {
+      if (cursor != null) {
+        cursor.binding = results.nextBinding();
+        return cursor;
+      }
       QuerySolution solution = results.next();
       return new QueryResultRecordImpl(solution);
     }
 
+    @Override
+    public String getValue(QueryResultRecord record, int variableIndex) {
+      if (record == cursor) {
+        return cursor.getValue(variableIndex);
+      }
+      return record.getValue(variableNames.get(variableIndex));
+    }
+
     @Override
     public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
       qexec.close();
+      if (transactional != null) {
+        transactional.end();
+      }
+      Instrumentation.getDefault().stop(Stage.QUERY, start);
     }
 
   }
 
+  private final DatasetCache datasetCache;
+
+  /**
+   * Constructs an instance that parses its source on every query
+   */
+  public Query2Doc() {
+    this(null);
+  }
+
+  /**
+   * Constructs an instance that reuses parsed sources
+   * 
+   * @param datasetCache cache of datasets, shareable among instances. If {@code null}, the source
+   *        is parsed on every query.
+   */
+  public Query2Doc(DatasetCache datasetCache) {
+    this.datasetCache = datasetCache;
+  }
+
   /**
    * Returns the result of a SPARQL select query
    * 
@@ -122,18 +218,192 @@ public final class Query2Doc {
    * @throws IOException If an I/O error occurs
    */
   public QueryResultSet executeSelect(String sourceUri, String queryString) throws IOException {
+    return executeSelect(getDataset(sourceUri), queryString);
+  }
 
-    final Query query = QueryFactory.create(queryString);
+  /**
+   * Returns the result of a SPARQL select query against a loaded dataset
+   * 
+   * @param dataset source of data
+   * @param queryString a SPARQL select query
+   * @return a result set
+   */
+  public QueryResultSet executeSelect(Dataset dataset, String queryString) {
+    return executeSelect(dataset, QueryFactory.create(queryString), null);
+  }
 
+  /**
+   * Returns the result of a parsed SPARQL select query
+   * 
+   * @param sourceUri identifier of source
+   * @param query a parsed select query, for example from {@link QueryRegistry}. It is not
+   *        modified.
+   * @return a result set
+   * @throws IOException If an I/O error occurs
+   */
+  public QueryResultSet executeSelect(String sourceUri, Query query) throws IOException {
+    return executeSelect(getDataset(sourceUri), query, null);
+  }
+
+  /**
+   * Returns the result of a parsed SPARQL select query with initial variable bindings
+   * 
+   * @param dataset source of data
+   * @param query a parsed select query, for example from {@link QueryRegistry}. It is not
+   *        modified.
+   * @param initialBinding values of variables to bind before execution, or {@code null} for none.
+   *        See {@link org.apache.jena.query.QuerySolutionMap}.
+   * @return a result set. If the dataset is a {@link TdbStore}, a read transaction is held until
+   *         the result set is closed.
+   */
+  public QueryResultSet executeSelect(Dataset dataset, Query query, QuerySolution initialBinding) {
+    return execute(dataset, query, initialBinding, false);
+  }
+
+  /**
+   * Returns the result of a parsed SPARQL select query as a cursor
+   * 
+   * Unlike {@link #executeSelect(Dataset, Query, QuerySolution)}, a single record is reused for
+   * every solution, so no record is allocated per row. A record returned by
+   * {@link QueryResultSet#next()} is only valid until the next call. Values are best retrieved by
+   * index into {@link QueryResultSet#getVariableNames()}.
+   * 
+   * @param dataset source of data
+   * @param query a parsed select query. It is not modified.
+   * @param initialBinding values of variables to bind before execution, or {@code null} for none
+   * @return a result set
+   */
+  public QueryResultSet executeSelectCursor(Dataset dataset, Query query,
+      QuerySolution initialBinding) {
+    return execute(dataset, query, initialBinding, true);
+  }
+
+  /**
+   * Returns the result of a parsed SPARQL ask query
+   *
+   * @param dataset source of data
+   * @param query a parsed ask query. It is not modified.
+   * @return {@code true} if the query pattern has any solution
+   */
+  public boolean executeAsk(Dataset dataset, Query query) {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.QUERY);
+    final boolean transaction = TdbStore.isTransactional(dataset) && !dataset.isInTransaction();
+    if (transaction) {
+      dataset.begin(ReadWrite.READ);
+    }
+    try (QueryExecution qexec = QueryExecutionFactory.create(query, dataset)) {
+      return qexec.execAsk();
+    } finally {
+      if (transaction) {
+        dataset.end();
+      }
+      instrumentation.stop(Stage.QUERY, start);
+    }
+  }
+
+  private QueryResultSet execute(Dataset dataset, Query query, QuerySolution initialBinding,
+      boolean reuseRecord) {
     final List<Var> queryVars = query.getProjectVars();
     final List<String> varNames =
         queryVars.stream().map(Node_Variable::getName).collect(Collectors.toList());
 
+    final long start = Instrumentation.getDefault().start(Stage.QUERY);
+    final boolean transaction = TdbStore.isTransactional(dataset) && !dataset.isInTransaction();
+    if (transaction) {
+      dataset.begin(ReadWrite.READ);
+    }
+    try {
+      QueryExecution qexec = initialBinding != null
+          ? QueryExecutionFactory.create(query, dataset, initialBinding)
+          : QueryExecutionFactory.create(query, dataset);
+      final ResultSet results = qexec.execSelect();
+      return new QueryResultSetImpl(qexec, results, varNames, transaction ? dataset : null,
+          reuseRecord ? new CursorRecord(queryVars) : null, start);
+    } catch (RuntimeException e) {
+      if (transaction) {
+        dataset.end();
+      }
+      throw e;
+    }
+  }
 
-    final Dataset dataset = DatasetFactory.create(sourceUri);
+  /**
+   * Returns the result of a named SPARQL select query from the default {@link QueryRegistry}
+   * 
+   * @param sourceUri identifier of source
+   * @param queryName name of a registered query or query resource
+   * @param initialBinding values of variables to bind before execution, or {@code null} for none
+   * @return a result set
+   * @throws IOException If an I/O error occurs or the query is not found
+   */
+  public QueryResultSet executeNamed(String sourceUri, String queryName,
+      QuerySolution initialBinding) throws IOException {
+    final Query query = QueryRegistry.getDefault().getQuery(queryName);
+    return executeSelect(getDataset(sourceUri), query, initialBinding);
+  }
 
-    QueryExecution qexec = QueryExecutionFactory.create(query, dataset);
-      final ResultSet results = qexec.execSelect();
-      return new QueryResultSetImpl(qexec, results, varNames);
+  /**
+   * Consistent with the value of a result record: lexical form of a literal, otherwise the node as
+   * a string
+   */
+  static String lexicalValue(Node node) {
+    if (node == null) {
+      return "";
+    } else if (node.isLiteral()) {
+      return node.getLiteralLexicalForm();
+    } else if (node.isURI()) {
+      return node.getURI();
+    } else if (node.isBlank()) {
+      return node.getBlankNodeLabel();
+    } else {
+      return "";
+    }
+  }
+
+  /**
+   * Returns a dataset for a source, from cache if configured
+   * 
+   * @param sourceUri identifier of source
+   * @return a dataset
+   * @throws IOException If an I/O error occurs
+   */
+  public Dataset getDataset(String sourceUri) throws IOException {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.LOAD);
+    try {
+      if (datasetCache != null) {
+        return datasetCache.get(sourceUri);
+      } else {
+        return DatasetFactory.create(sourceUri);
+      }
+    } finally {
+      instrumentation.stop(Stage.LOAD, start);
+    }
+  }
+
+  /**
+   * Returns a dataset for multiple sources, parsed concurrently
+   * 
+   * Each source becomes a named graph, and the default graph is the merge of all sources, so
+   * queries written for a single source work unchanged. A single source is served from cache if
+   * configured.
+   * 
+   * @param sourceUris identifiers of sources
+   * @return a dataset
+   * @throws IOException If an I/O error occurs
+   * @see ParallelLoader
+   */
+  public Dataset getDataset(List<String> sourceUris) throws IOException {
+    if (sourceUris.size() == 1 && datasetCache != null) {
+      return getDataset(sourceUris.get(0));
+    }
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.LOAD);
+    try {
+      return new ParallelLoader(Runtime.getRuntime().availableProcessors()).load(sourceUris);
+    } finally {
+      instrumentation.stop(Stage.LOAD, start);
+    }
   }
 }
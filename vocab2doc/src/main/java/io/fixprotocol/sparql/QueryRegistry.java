@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.jena.query.ParameterizedSparqlString;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+
+/**
+ * A registry of SPARQL queries that are read and parsed once
+ * 
+ * Queries are identified by name. A name that has not been registered explicitly is loaded from a
+ * classpath resource of the same name with extension {@code .rq}. Parsed queries are shared, so
+ * callers must not modify them.
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class QueryRegistry {
+
+  /**
+   * File extension of query resources
+   */
+  public static final String QUERY_EXTENSION = ".rq";
+
+  private static final class Holder {
+    static final QueryRegistry DEFAULT = new QueryRegistry();
+  }
+
+  private static final class PreparedQuery {
+    final Query query;
+    final String queryString;
+
+    PreparedQuery(String queryString) {
+      this.queryString = queryString;
+      this.query = QueryFactory.create(queryString);
+    }
+  }
+
+  /**
+   * Returns a registry shared within the JVM
+   * 
+   * @return the default registry
+   */
+  public static QueryRegistry getDefault() {
+    return Holder.DEFAULT;
+  }
+
+  private final ClassLoader classLoader;
+  private final ConcurrentMap<String, PreparedQuery> queries = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a registry that loads resources with the class loader of this class
+   */
+  public QueryRegistry() {
+    this(QueryRegistry.class.getClassLoader());
+  }
+
+  /**
+   * Constructs a registry
+   * 
+   * @param classLoader loader of query resources
+   */
+  public QueryRegistry(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * Returns a parsed query
+   * 
+   * @param name name of a registered query or of a query resource, with or without extension
+   * @return a parsed query. It must not be modified.
+   * @throws IOException If the query resource is not found or cannot be read
+   */
+  public Query getQuery(String name) throws IOException {
+    return getPrepared(name).query;
+  }
+
+  /**
+   * Returns the text of a query
+   * 
+   * @param name name of a registered query or of a query resource, with or without extension
+   * @return query text
+   * @throws IOException If the query resource is not found or cannot be read
+   */
+  public String getQueryString(String name) throws IOException {
+    return getPrepared(name).queryString;
+  }
+
+  /**
+   * Returns a new parameterized query so that variables may be bound before execution
+   * 
+   * @param name name of a registered query or of a query resource, with or without extension
+   * @return a new parameterized query, owned by the caller
+   * @throws IOException If the query resource is not found or cannot be read
+   */
+  public ParameterizedSparqlString getParameterized(String name) throws IOException {
+    return new ParameterizedSparqlString(getPrepared(name).queryString);
+  }
+
+  /**
+   * Registers a query, replacing any previous query of the same name
+   * 
+   * @param name name of the query
+   * @param queryString a SPARQL query
+   * @throws org.apache.jena.query.QueryParseException if the query is invalid
+   */
+  public void register(String name, String queryString) {
+    queries.put(baseName(name), new PreparedQuery(queryString));
+  }
+
+  private PreparedQuery getPrepared(String name) throws IOException {
+    final String key = baseName(name);
+    PreparedQuery prepared = queries.get(key);
+    if (prepared == null) {
+      prepared = new PreparedQuery(loadResource(key + QUERY_EXTENSION));
+      final PreparedQuery existing = queries.putIfAbsent(key, prepared);
+      if (existing != null) {
+        prepared = existing;
+      }
+    }
+    return prepared;
+  }
+
+  private String loadResource(String resourceName) throws IOException {
+    try (InputStream querySource = classLoader.getResourceAsStream(resourceName)) {
+      if (querySource == null) {
+        throw new IOException("Query resource not found: " + resourceName);
+      }
+      try (ByteArrayOutputStream queryTarget = new ByteArrayOutputStream(2048)) {
+        querySource.transferTo(queryTarget);
+        return queryTarget.toString(StandardCharsets.UTF_8);
+      }
+    }
+  }
+
+  private static String baseName(String name) {
+    return name.endsWith(QUERY_EXTENSION)
+        ? name.substring(0, name.length() - QUERY_EXTENSION.length())
+        : name;
+  }
+}
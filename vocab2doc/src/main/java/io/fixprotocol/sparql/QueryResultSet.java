@@ -21,6 +21,21 @@ import java.util.List;
 public interface QueryResultSet extends Iterator<QueryResultRecord> {
 
   List<String> getVariableNames();
+
+  /**
+   * Returns the value of a variable of a record of this result set by position
+   * 
+   * The default implementation resolves the name of the variable from
+   * {@link #getVariableNames()}. Result sets that hold values by position override it to avoid
+   * the lookup by name.
+   * 
+   * @param record the record last returned by {@link #next()}
+   * @param variableIndex position of the variable in {@link #getVariableNames()}
+   * @return variable value as a String, empty if unbound
+   */
+  default String getValue(QueryResultRecord record, int variableIndex) {
+    return record.getValue(getVariableNames().get(variableIndex));
+  }
   
   void close();
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import org.apache.jena.atlas.web.TypedInputStream;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.stream.StreamManager;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.util.Symbol;
+import org.apache.jena.tdb2.TDB2;
+import org.apache.jena.tdb2.TDB2Factory;
+
+/**
+ * A persistent, on-disk store of vocabularies backed by TDB2
+ * 
+ * Each source is loaded into its own named graph, and the default graph of the store is the union
+ * of all sources. To query a single source with queries written for a single source, use the view
+ * returned by {@link #getDataset(String)}. A checksum of each source
+ * is recorded in the store; {@link #update(String...)} only reloads sources whose content has
+ * changed since they were last loaded.
+ * <p>
+ * Queries through {@link Query2Doc} run in a read transaction for the life of the result set, so
+ * results must be consumed and closed on the thread that executed the query.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class TdbStore {
+
+  private static final String CHECKSUMS_FILE = "vocab2doc-sources.properties";
+  private static final String GRAPH_PREFIX = "urn:x-vocab2doc:source:";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final Symbol SOURCE_VIEW = Symbol.create("urn:x-vocab2doc:sourceView");
+
+  /**
+   * Tells whether a dataset must be read in a transaction
+   * 
+   * @param dataset a dataset
+   * @return {@code true} if the dataset is a TDB2 dataset or a view of a source of a store
+   */
+  public static boolean isTransactional(Dataset dataset) {
+    return TDB2Factory.isTDB2(dataset) || dataset.getContext().isTrue(SOURCE_VIEW);
+  }
+
+  private final Properties checksums = new Properties();
+  private final Path checksumsPath;
+  private final Dataset dataset;
+
+  /**
+   * Opens a store, creating it if it does not exist
+   * 
+   * @param directory location of the store
+   * @throws IOException If the directory or its checksums cannot be read
+   */
+  public TdbStore(String directory) throws IOException {
+    final Path path = Paths.get(directory);
+    Files.createDirectories(path);
+    this.dataset = TDB2Factory.connectDataset(directory);
+    this.dataset.getContext().set(TDB2.symUnionDefaultGraph, true);
+    this.checksumsPath = path.resolve(CHECKSUMS_FILE);
+    if (Files.exists(checksumsPath)) {
+      try (InputStream in = Files.newInputStream(checksumsPath)) {
+        checksums.load(in);
+      }
+    }
+  }
+
+  /**
+   * Returns the dataset of this store. Its default graph is the union of all loaded sources.
+   * 
+   * @return a TDB2 dataset
+   */
+  public Dataset getDataset() {
+    return dataset;
+  }
+
+  /**
+   * Returns a view of a single source of this store. Its default graph is the named graph of the
+   * source, so other sources loaded into the store are not visible. Like the store, the view must
+   * be read in a transaction, which {@link Query2Doc} begins for each query.
+   * 
+   * @param sourceUri identifier of a loaded source
+   * @return a dataset of the source
+   */
+  public Dataset getDataset(String sourceUri) {
+    final Graph graph =
+        dataset.asDatasetGraph().getGraph(NodeFactory.createURI(graphName(sourceUri)));
+    final Dataset view = DatasetFactory.wrap(DatasetGraphFactory.wrap(graph));
+    view.getContext().set(SOURCE_VIEW, true);
+    return view;
+  }
+
+  /**
+   * Loads sources that are new or have changed since they were last loaded
+   * 
+   * @param sourceUris identifiers of sources
+   * @return number of sources that were loaded
+   * @throws IOException If a source cannot be read or checksums cannot be saved
+   */
+  public synchronized int update(String... sourceUris) throws IOException {
+    int loaded = 0;
+    for (String sourceUri : sourceUris) {
+      final String checksum = checksum(sourceUri);
+      if (!checksum.equals(checksums.getProperty(sourceUri))) {
+        load(sourceUri);
+        checksums.setProperty(sourceUri, checksum);
+        saveChecksums();
+        loaded++;
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Removes a source from the store
+   * 
+   * @param sourceUri identifier of source
+   * @throws IOException If checksums cannot be saved
+   */
+  public synchronized void remove(String sourceUri) throws IOException {
+    dataset.begin(ReadWrite.WRITE);
+    try {
+      dataset.removeNamedModel(graphName(sourceUri));
+      dataset.commit();
+    } finally {
+      dataset.end();
+    }
+    checksums.remove(sourceUri);
+    saveChecksums();
+  }
+
+  private void load(String sourceUri) {
+    dataset.begin(ReadWrite.WRITE);
+    try {
+      final Model model = dataset.getNamedModel(graphName(sourceUri));
+      model.removeAll();
+      RDFDataMgr.read(model, sourceUri);
+      dataset.commit();
+    } finally {
+      dataset.end();
+    }
+  }
+
+  private void saveChecksums() throws IOException {
+    final Path temp = checksumsPath.resolveSibling(CHECKSUMS_FILE + ".tmp");
+    try (OutputStream out = Files.newOutputStream(temp)) {
+      checksums.store(out, "Checksums of loaded sources");
+    }
+    Files.move(temp, checksumsPath, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static String checksum(String sourceUri) throws IOException {
+    final Path path = DatasetCache.resolvePath(sourceUri);
+    if (path != null) {
+      return hex(DatasetCache.hash(path));
+    }
+    // Not a local file; read its content through the same locators used for parsing
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    try (TypedInputStream in = StreamManager.get().open(sourceUri)) {
+      if (in == null) {
+        throw new IOException("Source not found: " + sourceUri);
+      }
+      try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+        digestIn.transferTo(OutputStream.nullOutputStream());
+      }
+    }
+    return hex(digest.digest());
+  }
+
+  private static String graphName(String sourceUri) {
+    return GRAPH_PREFIX + URLEncoder.encode(sourceUri, StandardCharsets.UTF_8);
+  }
+
+  private static String hex(byte[] bytes) {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+}
@@ -16,11 +16,15 @@
 package io.fixprotocol.text;
 
 import java.io.IOException;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Counter;
 import io.fixprotocol.text.TextRenderer.ParagraphOption;
 
 /**
  * Formats the structure of text for HTML
  * 
+ * This class is thread-safe.
+ * 
  * @author Don Mendelson
  *
  */
@@ -28,7 +32,7 @@ class HtmlFormatter implements TextFormatter {
 
   private static final String NEWLINE = System.lineSeparator();
   
-  private PlainText2HTMLRenderer renderer = new PlainText2HTMLRenderer();
+  private final PlainText2HTMLRenderer renderer = new PlainText2HTMLRenderer();
   
   public HtmlFormatter() {
     renderer.setParagraphOption(ParagraphOption.USE_BREAK);
@@ -39,6 +43,16 @@ class HtmlFormatter implements TextFormatter {
     appendable.append("</b>");
   }
 
+  @Override
+  public void endDeletion(Appendable appendable) throws IOException {
+    appendable.append("</del>");
+  }
+
+  @Override
+  public void endInsertion(Appendable appendable) throws IOException {
+    appendable.append("</ins>");
+  }
+
   @Override
   public void endCell(Appendable appendable) throws IOException {
     appendable.append("</td>");
@@ -76,6 +90,16 @@ class HtmlFormatter implements TextFormatter {
     appendable.append("<b>");
   }
 
+  @Override
+  public void startDeletion(Appendable appendable) throws IOException {
+    appendable.append("<del>");
+  }
+
+  @Override
+  public void startInsertion(Appendable appendable) throws IOException {
+    appendable.append("<ins>");
+  }
+
   @Override
   public void startCell(Appendable appendable) throws IOException {
     appendable.append("<td>");
@@ -98,7 +122,10 @@ class HtmlFormatter implements TextFormatter {
 
   @Override
   public void render(Appendable appendable, String text) throws IOException {
-    renderer.render(text, appendable);
+    final int escapes = renderer.renderCounting(text, appendable);
+    if (escapes > 0) {
+      Instrumentation.getDefault().count(Counter.ESCAPES, escapes);
+    }
   }
 
 }
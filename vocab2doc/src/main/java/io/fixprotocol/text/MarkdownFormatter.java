@@ -16,12 +16,18 @@
 package io.fixprotocol.text;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Formats the structure of text for markdown
  * 
  * The formatting of tables is not standardized in markdown. This implementation is consistent with
  * the most common styles, including GitHub Flavored Markdown.
+ * <p>
+ * A heading row must be followed by a separator row with a cell per column, so a complete heading
+ * row is only written by {@link #columnHeadings(Appendable, List)}. Headings written one at a time
+ * by {@link #startColumnHeading(Appendable)} are plain cells. This class holds no state, so it is
+ * thread-safe.
  * 
  * @author Don Mendelson
  *
@@ -29,13 +35,29 @@ import java.io.IOException;
 class MarkdownFormatter implements TextFormatter {
   private static final String NEWLINE = System.lineSeparator();
 
-  private int columns = 0;
+  @Override
+  public void columnHeadings(Appendable appendable, List<String> titles) throws IOException {
+    startRow(appendable);
+    for (String title : titles) {
+      appendable.append("| ");
+      render(appendable, title);
+      endColumnHeading(appendable);
+    }
+    appendable.append(" |");
+    appendable.append(NEWLINE);
+    headingSeparator(appendable, titles.size());
+  }
 
   @Override
   public void endBold(Appendable appendable) throws IOException {
     appendable.append("**");
   }
 
+  @Override
+  public void endDeletion(Appendable appendable) throws IOException {
+    appendable.append("~~");
+  }
+
   @Override
   public void endCell(Appendable appendable) throws IOException {
     appendable.append(' ');
@@ -50,14 +72,6 @@ class MarkdownFormatter implements TextFormatter {
   public void endRow(Appendable appendable) throws IOException {
     appendable.append(" |");
     appendable.append(NEWLINE);
-    if (columns > 0) {
-      for (int c = columns; c > 0; c--) {
-        appendable.append("| - ");
-      }
-      appendable.append("|");
-      appendable.append(NEWLINE);
-      columns = 0;
-    }
   }
 
   @Override
@@ -81,6 +95,11 @@ class MarkdownFormatter implements TextFormatter {
     appendable.append("**");
   }
 
+  @Override
+  public void startDeletion(Appendable appendable) throws IOException {
+    appendable.append("~~");
+  }
+
   @Override
   public void startCell(Appendable appendable) throws IOException {
     appendable.append("| ");
@@ -89,7 +108,6 @@ class MarkdownFormatter implements TextFormatter {
   @Override
   public void startColumnHeading(Appendable appendable) throws IOException {
     appendable.append("| ");
-    columns++;
   }
 
   @Override
@@ -107,4 +125,12 @@ class MarkdownFormatter implements TextFormatter {
     appendable.append(text);
   }
 
+  private static void headingSeparator(Appendable appendable, int columns) throws IOException {
+    for (int c = columns; c > 0; c--) {
+      appendable.append("| - ");
+    }
+    appendable.append("|");
+    appendable.append(NEWLINE);
+  }
+
 }
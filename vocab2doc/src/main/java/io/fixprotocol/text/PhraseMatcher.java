@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds occurrences of many phrases in text in a single pass
+ * 
+ * Phrases are compiled into an Aho-Corasick automaton, so the cost of a scan depends on the length
+ * of the text and the number of matches, not on the number of phrases. Matching ignores case and
+ * only accepts a phrase that starts and ends at word boundaries. Where matches overlap, the
+ * leftmost is chosen, and the longest of those that start at the same position.
+ * <p>
+ * A matcher is not modified after construction, so it may be shared by threads.
+ * 
+ * @author Don Mendelson
+ *
+ * @param <T> type of value associated with a phrase
+ */
+public final class PhraseMatcher<T> {
+
+  /**
+   * An occurrence of a phrase in text
+   *
+   * @param <T> type of value associated with a phrase
+   */
+  public static final class Match<T> {
+    private final int end;
+    private final int start;
+    private final T value;
+
+    Match(int start, int end, T value) {
+      this.start = start;
+      this.end = end;
+      this.value = value;
+    }
+
+    /**
+     * @return position in text after the last character of the match
+     */
+    public int getEnd() {
+      return end;
+    }
+
+    /**
+     * @return position in text of the first character of the match
+     */
+    public int getStart() {
+      return start;
+    }
+
+    /**
+     * @return value associated with the matched phrase
+     */
+    public T getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + ") " + value;
+    }
+  }
+
+  private static final char[] NO_KEYS = new char[0];
+  private static final int[] NO_CHILDREN = new int[0];
+  private static final int ROOT = 0;
+
+  private static boolean isWordChar(CharSequence text, int index) {
+    return Character.isLetterOrDigit(text.charAt(index));
+  }
+
+  // Node arrays indexed by state
+  private int[][] children = new int[16][];
+  // Nearest state along failure links that ends a phrase, or -1
+  private int[] dictionaryLink = new int[16];
+  private int[] failure = new int[16];
+  private char[][] keys = new char[16][];
+  private int[] lengths = new int[16];
+  private int stateCount = 0;
+  private final List<T> values = new ArrayList<>();
+  // Index of phrase ending at a state, or -1
+  private int[] phrases = new int[16];
+
+  /**
+   * Compiles phrases
+   * 
+   * @param phrases map of phrase to value. Phrases that differ only by case are the same phrase;
+   *        the last one wins. Empty phrases are ignored.
+   */
+  public PhraseMatcher(Map<String, T> phrases) {
+    newState(0);
+    for (Map.Entry<String, T> entry : phrases.entrySet()) {
+      add(entry.getKey(), entry.getValue());
+    }
+    link();
+  }
+
+  /**
+   * Finds non-overlapping occurrences of phrases
+   * 
+   * @param text text to scan
+   * @return matches in order of position
+   */
+  public List<Match<T>> findAll(CharSequence text) {
+    final int length = text.length();
+    int[] longest = null;
+    int[] longestPhrase = null;
+    int state = ROOT;
+    for (int i = 0; i < length; i++) {
+      final char c = Character.toLowerCase(text.charAt(i));
+      int next = child(state, c);
+      while (next < 0 && state != ROOT) {
+        state = failure[state];
+        next = child(state, c);
+      }
+      state = next >= 0 ? next : ROOT;
+
+      final int end = i + 1;
+      if (end < length && isWordChar(text, end)) {
+        continue;
+      }
+      for (int s = phrases[state] >= 0 ? state : dictionaryLink[state]; s >= 0;
+          s = dictionaryLink[s]) {
+        final int start = end - lengths[s];
+        if (start == 0 || !isWordChar(text, start - 1)) {
+          if (longest == null) {
+            longest = new int[length];
+            longestPhrase = new int[length];
+          }
+          if (lengths[s] > longest[start]) {
+            longest[start] = lengths[s];
+            longestPhrase[start] = phrases[s];
+          }
+        }
+      }
+    }
+    if (longest == null) {
+      return Collections.emptyList();
+    }
+    final List<Match<T>> matches = new ArrayList<>();
+    for (int start = 0; start < length; start++) {
+      if (longest[start] > 0) {
+        final int end = start + longest[start];
+        matches.add(new Match<>(start, end, values.get(longestPhrase[start])));
+        start = end - 1;
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * @return number of distinct phrases
+   */
+  public int size() {
+    return values.size();
+  }
+
+  private void add(String phrase, T value) {
+    if (phrase.isEmpty()) {
+      return;
+    }
+    int state = ROOT;
+    for (int i = 0; i < phrase.length(); i++) {
+      final char c = Character.toLowerCase(phrase.charAt(i));
+      int next = child(state, c);
+      if (next < 0) {
+        next = newState(i + 1);
+        addChild(state, c, next);
+      }
+      state = next;
+    }
+    if (phrases[state] >= 0) {
+      values.set(phrases[state], value);
+    } else {
+      phrases[state] = values.size();
+      values.add(value);
+    }
+  }
+
+  private void addChild(int state, char c, int child) {
+    final char[] stateKeys = keys[state];
+    final int i = -(Arrays.binarySearch(stateKeys, c) + 1);
+    final char[] newKeys = new char[stateKeys.length + 1];
+    final int[] newChildren = new int[stateKeys.length + 1];
+    System.arraycopy(stateKeys, 0, newKeys, 0, i);
+    System.arraycopy(children[state], 0, newChildren, 0, i);
+    newKeys[i] = c;
+    newChildren[i] = child;
+    System.arraycopy(stateKeys, i, newKeys, i + 1, stateKeys.length - i);
+    System.arraycopy(children[state], i, newChildren, i + 1, stateKeys.length - i);
+    keys[state] = newKeys;
+    children[state] = newChildren;
+  }
+
+  private int child(int state, char c) {
+    final int i = Arrays.binarySearch(keys[state], c);
+    return i >= 0 ? children[state][i] : -1;
+  }
+
+  /**
+   * Sets failure and dictionary links breadth first, so links of shallower states are known
+   */
+  private void link() {
+    final Queue<Integer> queue = new ArrayDeque<>();
+    dictionaryLink[ROOT] = -1;
+    for (int child : children[ROOT]) {
+      failure[child] = ROOT;
+      dictionaryLink[child] = -1;
+      queue.add(child);
+    }
+    while (!queue.isEmpty()) {
+      final int state = queue.remove();
+      final char[] stateKeys = keys[state];
+      for (int i = 0; i < stateKeys.length; i++) {
+        final char c = stateKeys[i];
+        final int child = children[state][i];
+        int fallback = failure[state];
+        int target = child(fallback, c);
+        while (target < 0 && fallback != ROOT) {
+          fallback = failure[fallback];
+          target = child(fallback, c);
+        }
+        failure[child] = target >= 0 ? target : ROOT;
+        final int link = failure[child];
+        dictionaryLink[child] = phrases[link] >= 0 ? link : dictionaryLink[link];
+        queue.add(child);
+      }
+    }
+  }
+
+  private int newState(int depth) {
+    if (stateCount == keys.length) {
+      final int capacity = stateCount * 2;
+      children = Arrays.copyOf(children, capacity);
+      dictionaryLink = Arrays.copyOf(dictionaryLink, capacity);
+      failure = Arrays.copyOf(failure, capacity);
+      keys = Arrays.copyOf(keys, capacity);
+      lengths = Arrays.copyOf(lengths, capacity);
+      phrases = Arrays.copyOf(phrases, capacity);
+    }
+    final int state = stateCount++;
+    keys[state] = NO_KEYS;
+    children[state] = NO_CHILDREN;
+    lengths[state] = depth;
+    phrases[state] = -1;
+    return state;
+  }
+}
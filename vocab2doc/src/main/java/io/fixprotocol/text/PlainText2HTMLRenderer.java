@@ -18,6 +18,8 @@ package io.fixprotocol.text;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.Function;
@@ -38,11 +40,29 @@ import java.util.function.Function;
  * odd numbered instances</li>
  * </ul>
  * 
+ * Once configured, an instance may be shared by any number of threads. State of a render is kept in
+ * a {@link RenderState} for the duration of the call; configuration is compiled into an immutable
+ * matcher that is replaced, not modified, when transforms are added.
+ * 
  * @author Don Mendelson
  *
  */
 class PlainText2HTMLRenderer implements TextRenderer {
 
+  /**
+   * State of a single render call
+   */
+  static final class RenderState {
+    int lastParagraphCount = -1;
+    final ParagraphOption paragraphOption;
+    int paragraphCount = 0;
+    int quoteCount = 0;
+
+    RenderState(ParagraphOption paragraphOption) {
+      this.paragraphOption = paragraphOption;
+    }
+  }
+
   public class Transform implements Comparable<Transform> {
     private final String from;
     private final String to;
@@ -69,7 +89,7 @@ class PlainText2HTMLRenderer implements TextRenderer {
     public Transform(String from, String to) {
       this.from = from;
       this.to = to;
-      this.transformer = from1 -> Transform.this.to;
+      this.transformer = null;
     }
 
     /**
@@ -104,7 +124,17 @@ class PlainText2HTMLRenderer implements TextRenderer {
     }
 
     public String transform() {
-      return transformer.apply(getFrom());
+      return to != null ? to : transformer.apply(getFrom());
+    }
+
+    /**
+     * Returns the substitute value within a render
+     * 
+     * @param state state of the current render
+     * @return substitute value
+     */
+    String transform(RenderState state) {
+      return transform();
     }
 
   }
@@ -112,33 +142,41 @@ class PlainText2HTMLRenderer implements TextRenderer {
   class DoubleQuoteTransform extends Transform {
 
     public DoubleQuoteTransform() {
-      super("\"", new Function<String, String>() {
-        @Override
-        public String apply(String from) {
-          String to = quoteCount % 2 == 0 ? "<q>" : "</q>";
-          quoteCount++;
-          return to;
-        }
+      super("\"", (Function<String, String>) null);
+    }
+
+    @Override
+    public String transform() {
+      return transform(new RenderState(paragraphOption));
+    }
 
-      });
+    @Override
+    String transform(RenderState state) {
+      String to = state.quoteCount % 2 == 0 ? "<q>" : "</q>";
+      state.quoteCount++;
+      return to;
     }
   }
 
   class EndParagraphTransform extends Transform {
 
     public EndParagraphTransform(String from) {
-      super(from, new Function<String, String>() {
-
-        @Override
-        public String apply(String from) {
-          if (paragraphOption == ParagraphOption.USE_PARAGRAPH) {
-            paragraphCount = 0;
-            return "</p>";
-          } else {
-            return "<br/>";
-          }
-        }
-      });
+      super(from, (Function<String, String>) null);
+    }
+
+    @Override
+    public String transform() {
+      return transform(new RenderState(paragraphOption));
+    }
+
+    @Override
+    String transform(RenderState state) {
+      if (state.paragraphOption == ParagraphOption.USE_PARAGRAPH) {
+        state.paragraphCount = 0;
+        return "</p>";
+      } else {
+        return "<br/>";
+      }
     }
   }
 
@@ -152,11 +190,9 @@ class PlainText2HTMLRenderer implements TextRenderer {
     System.out.println(renderer.render(args[0]));
   }
 
-  private int paragraphCount = 0;
-  private int lastParagraphCount = -1;
+  private volatile TransformTrie<Transform> matcher;
+  private volatile ParagraphOption paragraphOption = ParagraphOption.USE_PARAGRAPH;
   private final SortedSet<Transform> transforms;
-  private ParagraphOption paragraphOption = ParagraphOption.USE_PARAGRAPH;
-  private int quoteCount = 0;
 
 
   @Override
@@ -171,9 +207,10 @@ class PlainText2HTMLRenderer implements TextRenderer {
 
   public PlainText2HTMLRenderer(Collection<Transform> transforms) {
     this.transforms = new TreeSet<Transform>(transforms);
+    compile();
   }
 
-  public void addDefaultTransforms() {
+  public synchronized void addDefaultTransforms() {
     this.transforms.addAll(Arrays.asList(
         new EndParagraphTransform("\n"),
         new EndParagraphTransform("\r\n"), 
@@ -189,10 +226,12 @@ class PlainText2HTMLRenderer implements TextRenderer {
         new Transform("\u2014", "&#x2014;"),
         new Transform("\u2022", "&bull;"), 
         new DoubleQuoteTransform()));
+    compile();
   }
 
-  public void addTransforms(Collection<Transform> transforms) {
+  public synchronized void addTransforms(Collection<Transform> transforms) {
     this.transforms.addAll(transforms);
+    compile();
   }
 
   @Override
@@ -210,52 +249,79 @@ class PlainText2HTMLRenderer implements TextRenderer {
 
   @Override
   public void render(String input, Appendable output) throws IOException {
+    renderCounting(input, output);
+  }
+
+  /**
+   * Renders text, counting substitutions
+   * 
+   * @param input plain text
+   * @param output destination of HTML
+   * @return number of substrings transformed
+   * @throws IOException If an I/O error occurs
+   */
+  int renderCounting(String input, Appendable output) throws IOException {
     int inputLen = input.length();
     if (inputLen == 0) {
-      return;
+      return 0;
     }
+    int transformed = 0;
+    final TransformTrie<Transform> matcher = this.matcher;
+    final RenderState state = new RenderState(paragraphOption);
     int index = 0;
-    lastParagraphCount = -1;
-    quoteCount = 0;
 
     while (index < inputLen) {
-      output.append(paragraph());
-
-      boolean transformed = false;
-      for (Transform transform : transforms) {
-        if (transform.getFrom().regionMatches(0, input, index, transform.getFrom().length())) {
-          output.append(transform.transform());
-          index += transform.getFrom().length();
-          transformed = true;
-          break;
-        }
+      paragraph(state, output);
+
+      // Copy a run of characters that need no transform in bulk
+      final int candidate = matcher.nextCandidate(input, index, inputLen);
+      if (candidate > index) {
+        output.append(input, index, candidate);
+        index = candidate;
+        continue;
       }
-      if (!transformed) {
+
+      final Transform transform = matcher.match(input, index, inputLen);
+      if (transform != null) {
+        output.append(transform.transform(state));
+        index += transform.getFrom().length();
+        transformed++;
+      } else {
         output.append(input.charAt(index));
         index++;
       }
     }
 
-    output.append(closeLastParagraph());
+    closeLastParagraph(state, output);
+    return transformed;
+  }
 
+  /**
+   * Compiles configured transforms. Where transforms overlap, the longest match wins, consistent
+   * with their sort order. Renders in progress keep using the previous matcher.
+   */
+  private void compile() {
+    final Map<String, Transform> entries = new LinkedHashMap<>();
+    for (Transform transform : transforms) {
+      entries.putIfAbsent(transform.getFrom(), transform);
+    }
+    matcher = new TransformTrie<>(entries);
   }
 
-  private String paragraph() {
-    if (paragraphOption == ParagraphOption.USE_PARAGRAPH && lastParagraphCount != paragraphCount) {
-      String to = paragraphCount % 2 == 0 ? "<p>" : "</p>";
-      paragraphCount++;
-      lastParagraphCount = paragraphCount;
-      return to;
-    } else {
-      return "";
+  private static void paragraph(RenderState state, Appendable output) throws IOException {
+    if (state.paragraphOption == ParagraphOption.USE_PARAGRAPH
+        && state.lastParagraphCount != state.paragraphCount) {
+      String to = state.paragraphCount % 2 == 0 ? "<p>" : "</p>";
+      state.paragraphCount++;
+      state.lastParagraphCount = state.paragraphCount;
+      output.append(to);
     }
   }
 
-  private String closeLastParagraph() {
-    if (paragraphOption == ParagraphOption.USE_PARAGRAPH) {
-      return "</p>";
-    } else {
-      return "";
+  private static void closeLastParagraph(RenderState state, Appendable output)
+      throws IOException {
+    if (state.paragraphOption == ParagraphOption.USE_PARAGRAPH) {
+      output.append("</p>");
     }
   }
 }
@@ -16,10 +16,13 @@
 package io.fixprotocol.text;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Formats the structure of text for a presentation protocol
  * 
+ * Implementations provided by {@link TextFormatterFactory} are thread-safe.
+ * 
  * @author Don Mendelson
  *
  */
@@ -33,6 +36,23 @@ public interface TextFormatter {
    */
   void render(Appendable appendable, String text) throws IOException;
 
+  /**
+   * Write a table row of column headings
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @param titles text of column headings
+   * @throws IOException If an I/O error occurs
+   */
+  default void columnHeadings(Appendable appendable, List<String> titles) throws IOException {
+    startRow(appendable);
+    for (String title : titles) {
+      startColumnHeading(appendable);
+      render(appendable, title);
+      endColumnHeading(appendable);
+    }
+    endRow(appendable);
+  }
+
   /**
    * Stop writing text in bold
    * 
@@ -41,6 +61,30 @@ public interface TextFormatter {
    */
   void endBold(Appendable appendable) throws IOException;
 
+  /**
+   * Stop writing text marked as deleted
+   * 
+   * The default implementation closes the marker of {@link #startDeletion(Appendable)}.
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @throws IOException If an I/O error occurs
+   */
+  default void endDeletion(Appendable appendable) throws IOException {
+    appendable.append("-]");
+  }
+
+  /**
+   * Stop writing text marked as inserted
+   * 
+   * The default implementation stops writing in bold.
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @throws IOException If an I/O error occurs
+   */
+  default void endInsertion(Appendable appendable) throws IOException {
+    endBold(appendable);
+  }
+
   /**
    * Write the end of a table cell
    * 
@@ -99,6 +143,30 @@ public interface TextFormatter {
    */
   void startBold(Appendable appendable) throws IOException;
 
+  /**
+   * Write subsequent text marked as deleted, as in a comparison of versions
+   * 
+   * The default implementation encloses deleted text in {@code [-} and {@code -]}.
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @throws IOException If an I/O error occurs
+   */
+  default void startDeletion(Appendable appendable) throws IOException {
+    appendable.append("[-");
+  }
+
+  /**
+   * Write subsequent text marked as inserted, as in a comparison of versions
+   * 
+   * The default implementation writes inserted text in bold.
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @throws IOException If an I/O error occurs
+   */
+  default void startInsertion(Appendable appendable) throws IOException {
+    startBold(appendable);
+  }
+
   /**
    * Write the start of a table cell
    * 
@@ -110,6 +178,10 @@ public interface TextFormatter {
   /**
    * Write the start of a table column heading
    * 
+   * A format may need to know all of the headings of a row to complete it; markdown writes a
+   * separator row with a cell per column. Use {@link #columnHeadings(Appendable, List)} to write a
+   * complete heading row.
+   * 
    * @param appendable An object to which char sequences and values can be appended
    * @throws IOException If an I/O error occurs
    */
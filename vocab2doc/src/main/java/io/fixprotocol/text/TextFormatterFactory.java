@@ -33,6 +33,29 @@ public class TextFormatterFactory {
    */
   public static final String MARKDOWN = "md";
 
+  private static final TextFormatter HTML_FORMATTER = new HtmlFormatter();
+  private static final TextFormatter MARKDOWN_FORMATTER = new MarkdownFormatter();
+
+  /**
+   * Returns a shared instance of a {@link TextFormatter}
+   * 
+   * The instance is thread-safe and may be used concurrently.
+   * 
+   * @param format a code for a text protocol
+   * @return an implementation of TextFormatter
+   * @throws IllegalArgumentException if {@link format} is unrecognized
+   */
+  public static TextFormatter getInstance(String format) {
+    switch (format) {
+      case HTML:
+        return HTML_FORMATTER;
+      case MARKDOWN:
+        return MARKDOWN_FORMATTER;
+      default:
+        throw new IllegalArgumentException();
+    }
+  }
+
   /**
    * Creates an instance of a {@link TextFormatter}
    * 
@@ -20,6 +20,9 @@ import java.io.IOException;
 /**
  * Renders text in another format
  * 
+ * Once configured, implementations may be shared by threads; render methods keep no state between
+ * calls.
+ * 
  * @author Don Mendelson
  *
  */
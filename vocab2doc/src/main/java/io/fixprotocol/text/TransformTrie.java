@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.text;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable matcher of substitution keys, compiled from a set of transforms
+ * 
+ * A bitmap of the first character of every key lets runs of text that cannot match be skipped
+ * without a lookup. Candidate positions are resolved by walking a trie, returning the value of the
+ * longest key that matches.
+ * 
+ * @author Don Mendelson
+ *
+ * @param <T> type of value associated with a key
+ */
+final class TransformTrie<T> {
+
+  private static final class Node<T> {
+    private static final char[] NO_KEYS = new char[0];
+
+    Node<T>[] children;
+    char[] keys = NO_KEYS;
+    T value;
+
+    Node<T> child(char c) {
+      final int i = Arrays.binarySearch(keys, c);
+      if (i >= 0) {
+        return children[i];
+      }
+      // keys are kept sorted for binary search
+      final int insertion = -(i + 1);
+      final char[] newKeys = new char[keys.length + 1];
+      @SuppressWarnings("unchecked")
+      final Node<T>[] newChildren = (Node<T>[]) new Node<?>[keys.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, insertion);
+      newKeys[insertion] = c;
+      System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+      if (children != null) {
+        System.arraycopy(children, 0, newChildren, 0, insertion);
+        System.arraycopy(children, insertion, newChildren, insertion + 1,
+            keys.length - insertion);
+      }
+      final Node<T> node = new Node<>();
+      newChildren[insertion] = node;
+      keys = newKeys;
+      children = newChildren;
+      return node;
+    }
+
+    Node<T> find(char c) {
+      final int i = Arrays.binarySearch(keys, c);
+      return i >= 0 ? children[i] : null;
+    }
+  }
+
+  private final long[] firstChars;
+  private final Node<T> root = new Node<>();
+
+  /**
+   * Compiles a matcher
+   * 
+   * @param entries map of key to value. Empty keys are ignored since they cannot advance input.
+   */
+  TransformTrie(Map<String, T> entries) {
+    final Map<String, T> sorted = new TreeMap<>(entries);
+    char maxFirst = 0;
+    for (final String key : sorted.keySet()) {
+      if (!key.isEmpty()) {
+        maxFirst = (char) Math.max(maxFirst, key.charAt(0));
+      }
+    }
+    firstChars = new long[(maxFirst >>> 6) + 1];
+
+    for (final Map.Entry<String, T> entry : sorted.entrySet()) {
+      final String key = entry.getKey();
+      if (key.isEmpty()) {
+        continue;
+      }
+      final char first = key.charAt(0);
+      firstChars[first >>> 6] |= 1L << first;
+      Node<T> node = root;
+      for (int i = 0; i < key.length(); i++) {
+        node = node.child(key.charAt(i));
+      }
+      node.value = entry.getValue();
+    }
+  }
+
+  /**
+   * Returns the value of the longest key that matches input at a position
+   * 
+   * @param input text to match
+   * @param index position in input
+   * @param end limit of input
+   * @return value of the longest matching key, or {@code null} if none matches
+   */
+  T match(CharSequence input, int index, int end) {
+    T matched = null;
+    Node<T> node = root;
+    for (int i = index; i < end; i++) {
+      node = node.find(input.charAt(i));
+      if (node == null) {
+        break;
+      }
+      if (node.value != null) {
+        matched = node.value;
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Returns the position of the next character that may start a key
+   * 
+   * @param input text to scan
+   * @param index position to start scanning
+   * @param end limit of input
+   * @return position of a candidate character, or {@code end} if there is none
+   */
+  int nextCandidate(CharSequence input, int index, int end) {
+    final long[] bits = firstChars;
+    final int limit = bits.length << 6;
+    for (int i = index; i < end; i++) {
+      final char c = input.charAt(i);
+      if (c < limit && (bits[c >>> 6] & (1L << c)) != 0) {
+        return i;
+      }
+    }
+    return end;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.validation;
+
+import java.util.function.Predicate;
+import org.apache.jena.rdf.model.Resource;
+
+/**
+ * A rule expressed as a Java predicate that every concept must satisfy
+ * 
+ * Concepts are tested independently, so {@link Validator} may divide them among threads. A
+ * predicate must only read the model of a concept.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class ConceptRule implements Rule {
+
+  private final Predicate<Resource> conforms;
+  private final String description;
+  private final String name;
+  private final Severity severity;
+
+  /**
+   * Constructs a rule
+   * 
+   * @param name identifier of the rule
+   * @param severity seriousness of a violation
+   * @param description explanation of a violation
+   * @param conforms thread-safe predicate that a conforming concept satisfies
+   */
+  public ConceptRule(String name, Severity severity, String description,
+      Predicate<Resource> conforms) {
+    this.name = name;
+    this.severity = severity;
+    this.description = description;
+    this.conforms = conforms;
+  }
+
+  /**
+   * Tests a concept
+   * 
+   * @param concept a resource of type {@code skos:Concept}
+   * @return {@code true} if the concept conforms to this rule
+   */
+  public boolean conforms(Resource concept) {
+    return conforms.test(concept);
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Severity getSeverity() {
+    return severity;
+  }
+}
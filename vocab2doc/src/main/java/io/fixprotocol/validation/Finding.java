@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.validation;
+
+import java.util.Objects;
+import io.fixprotocol.validation.Rule.Severity;
+
+/**
+ * A violation of a rule
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class Finding {
+
+  private final String focus;
+  private final String message;
+  private final String rule;
+  private final Severity severity;
+
+  /**
+   * Constructs a finding
+   * 
+   * @param rule name of the violated rule
+   * @param severity seriousness of the violation
+   * @param focus IRI of the resource in violation, or an empty string if the violation is not
+   *        attributed to a resource
+   * @param message explanation of the violation
+   */
+  public Finding(String rule, Severity severity, String focus, String message) {
+    this.rule = Objects.requireNonNull(rule);
+    this.severity = Objects.requireNonNull(severity);
+    this.focus = Objects.requireNonNull(focus);
+    this.message = Objects.requireNonNull(message);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final Finding other = (Finding) obj;
+    return rule.equals(other.rule) && severity == other.severity && focus.equals(other.focus)
+        && message.equals(other.message);
+  }
+
+  /**
+   * @return IRI of the resource in violation, or an empty string
+   */
+  public String getFocus() {
+    return focus;
+  }
+
+  /**
+   * @return explanation of the violation
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * @return name of the violated rule
+   */
+  public String getRule() {
+    return rule;
+  }
+
+  /**
+   * @return seriousness of the violation
+   */
+  public Severity getSeverity() {
+    return severity;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(rule, severity, focus, message);
+  }
+
+  @Override
+  public String toString() {
+    return "Finding [rule=" + rule + ", severity=" + severity + ", focus=" + focus + ", message="
+        + message + "]";
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.validation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+
+/**
+ * A rule expressed as a SPARQL query that matches violations
+ * 
+ * An ask query is violated if its pattern has any solution. A select query is violated once for
+ * each solution. Variable {@code focus}, if projected, is the resource in violation, and variable
+ * {@code message}, if projected and bound, explains the violation in place of the description of
+ * the rule.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class QueryRule implements Rule {
+
+  /**
+   * Name of the query variable of the resource in violation
+   */
+  public static final String FOCUS_VARIABLE = "focus";
+
+  /**
+   * Name of the query variable of an explanation of a violation
+   */
+  public static final String MESSAGE_VARIABLE = "message";
+
+  /**
+   * Constructs a rule from a query of the default {@link QueryRegistry}
+   * 
+   * @param name identifier of the rule
+   * @param severity seriousness of a violation
+   * @param description explanation of a violation
+   * @param queryName name of a registered query or query resource
+   * @return a new rule
+   * @throws IOException If the query is not found
+   */
+  public static QueryRule fromRegistry(String name, Severity severity, String description,
+      String queryName) throws IOException {
+    return new QueryRule(name, severity, description,
+        QueryRegistry.getDefault().getQuery(queryName));
+  }
+
+  private final String description;
+  private final String name;
+  private final Query query;
+  private final Severity severity;
+
+  /**
+   * Constructs a rule
+   * 
+   * @param name identifier of the rule
+   * @param severity seriousness of a violation
+   * @param description explanation of a violation
+   * @param query a parsed ask or select query that matches violations. It is not modified.
+   * @throws IllegalArgumentException if the query is neither an ask nor a select query
+   */
+  public QueryRule(String name, Severity severity, String description, Query query) {
+    if (!query.isAskType() && !query.isSelectType()) {
+      throw new IllegalArgumentException("Rule query must be ask or select");
+    }
+    this.name = name;
+    this.severity = severity;
+    this.description = description;
+    this.query = query;
+  }
+
+  /**
+   * Evaluates this rule
+   * 
+   * @param dataset vocabulary to validate
+   * @return violations of this rule
+   */
+  public List<Finding> evaluate(Dataset dataset) {
+    final List<Finding> findings = new ArrayList<>();
+    final Query2Doc query2Doc = new Query2Doc();
+    if (query.isAskType()) {
+      if (query2Doc.executeAsk(dataset, query)) {
+        findings.add(new Finding(name, severity, "", description));
+      }
+      return findings;
+    }
+    final QueryResultSet resultSet = query2Doc.executeSelectCursor(dataset, query, null);
+    try {
+      final List<String> variableNames = resultSet.getVariableNames();
+      final int focusIndex = variableNames.indexOf(FOCUS_VARIABLE);
+      final int messageIndex = variableNames.indexOf(MESSAGE_VARIABLE);
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        final String focus = focusIndex >= 0 ? resultSet.getValue(record, focusIndex) : "";
+        final String message = messageIndex >= 0 ? resultSet.getValue(record, messageIndex) : "";
+        findings.add(new Finding(name, severity, focus,
+            message.isEmpty() ? description : message));
+      }
+    } finally {
+      resultSet.close();
+    }
+    return findings;
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Severity getSeverity() {
+    return severity;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.validation;
+
+/**
+ * A rule that a vocabulary should conform to
+ * 
+ * Implementations must be thread-safe.
+ * 
+ * @author Don Mendelson
+ *
+ * @see QueryRule
+ * @see ConceptRule
+ */
+public interface Rule {
+
+  /**
+   * Seriousness of a violation of a rule
+   */
+  enum Severity {
+    /**
+     * The vocabulary is invalid
+     */
+    ERROR,
+    /**
+     * The vocabulary is valid but likely contains a mistake
+     */
+    WARNING
+  }
+
+  /**
+   * @return explanation of a violation of this rule
+   */
+  String getDescription();
+
+  /**
+   * @return identifier of this rule
+   */
+  String getName();
+
+  /**
+   * @return seriousness of a violation of this rule
+   */
+  Severity getSeverity();
+}
@@ -0,0 +1,454 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.validation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.SKOS;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.output.EncodingWriter;
+import io.fixprotocol.output.FileChannelSink;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.TdbStore;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.validation.Rule.Severity;
+
+/**
+ * Validates a vocabulary against a set of rules
+ * 
+ * Rules are evaluated in parallel in a fork/join pool. Each {@link QueryRule} is a task. Each
+ * {@link ConceptRule} is divided recursively into tasks over ranges of concepts, so a slow
+ * predicate is spread over all workers. The dataset is only read. A TDB2 dataset or a view of
+ * a {@link TdbStore} is read in a transaction by each task.
+ * <p>
+ * Findings are ordered by severity, rule and focus, so a report does not depend on the order in
+ * which tasks finished.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class Validator {
+
+  /**
+   * Output format code for JSON
+   */
+  public static final String JSON = "json";
+
+  /**
+   * Default maximum number of concepts tested by a single task of a concept rule
+   */
+  public static final int DEFAULT_THRESHOLD = 1024;
+
+  static final List<String> COLUMN_TITLES = List.of("Severity", "Rule", "Focus", "Message");
+
+  private static final Comparator<Finding> FINDING_ORDER = Comparator
+      .comparing(Finding::getSeverity).thenComparing(Finding::getRule)
+      .thenComparing(Finding::getFocus).thenComparing(Finding::getMessage);
+
+  private static final class ConceptTask extends RecursiveTask<List<Finding>> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Resource> concepts;
+    private final Dataset dataset;
+    private final int from;
+    private final ConceptRule rule;
+    private final int threshold;
+    private final int to;
+
+    ConceptTask(ConceptRule rule, Dataset dataset, List<Resource> concepts, int from, int to,
+        int threshold) {
+      this.rule = rule;
+      this.dataset = dataset;
+      this.concepts = concepts;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected List<Finding> compute() {
+      if (to - from > threshold) {
+        final int middle = (from + to) >>> 1;
+        final ConceptTask left = new ConceptTask(rule, dataset, concepts, from, middle, threshold);
+        left.fork();
+        final List<Finding> findings =
+            new ConceptTask(rule, dataset, concepts, middle, to, threshold).compute();
+        findings.addAll(0, left.join());
+        return findings;
+      }
+      final Instrumentation instrumentation = Instrumentation.getDefault();
+      final long start = instrumentation.start(Stage.VALIDATE);
+      final List<Finding> findings = new ArrayList<>();
+      final boolean transaction = beginRead(dataset);
+      try {
+        for (Resource concept : concepts.subList(from, to)) {
+          if (!rule.conforms(concept)) {
+            findings.add(new Finding(rule.getName(), rule.getSeverity(), focus(concept),
+                rule.getDescription()));
+          }
+        }
+      } finally {
+        if (transaction) {
+          dataset.end();
+        }
+        instrumentation.stop(Stage.VALIDATE, start);
+      }
+      return findings;
+    }
+  }
+
+  private static final class QueryTask extends RecursiveTask<List<Finding>> {
+    private static final long serialVersionUID = 1L;
+
+    private final Dataset dataset;
+    private final QueryRule rule;
+
+    QueryTask(QueryRule rule, Dataset dataset) {
+      this.rule = rule;
+      this.dataset = dataset;
+    }
+
+    @Override
+    protected List<Finding> compute() {
+      final Instrumentation instrumentation = Instrumentation.getDefault();
+      final long start = instrumentation.start(Stage.VALIDATE);
+      try {
+        return rule.evaluate(dataset);
+      } finally {
+        instrumentation.stop(Stage.VALIDATE, start);
+      }
+    }
+  }
+
+  /**
+   * Validates a vocabulary with the default rules and reports findings. The exit status is 1 if
+   * there are any errors, so it may be run as a pre-commit hook.
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of the controlled vocabulary</li>
+   *        <li>Optional code for output format: {@code html}, {@code md} or {@code json}. Defaults
+   *        to markdown.</li>
+   *        <li>Optional name of file to write. Defaults to standard output.</li>
+   *        </ol>
+   * @throws IOException If an I/O error occurs
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      useage();
+    } else {
+      final String format = args.length > 1 ? args[1] : TextFormatterFactory.MARKDOWN;
+      final List<Finding> findings =
+          new Validator(Runtime.getRuntime().availableProcessors())
+              .validate(new Query2Doc().getDataset(args[0]));
+      try (Writer writer = args.length > 2
+          ? new EncodingWriter(new FileChannelSink(Paths.get(args[2])))
+          : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+        if (JSON.equals(format)) {
+          writeJson(writer, findings);
+        } else {
+          writeReport(writer, TextFormatterFactory.getInstance(format), findings);
+        }
+      }
+      if (findings.stream().anyMatch(f -> f.getSeverity() == Severity.ERROR)) {
+        System.exit(1);
+      }
+    }
+  }
+
+  public static void useage() {
+    System.err.println(
+        "Useage: java io.fixprotocol.validation.Validator <in-URI> [html|md|json] [out-file]");
+  }
+
+  /**
+   * Returns the rules of a SKOS vocabulary as used by this project
+   * 
+   * @return a new list of rules
+   * @throws IOException If a query resource cannot be read
+   */
+  public static List<Rule> defaultRules() throws IOException {
+    final List<Rule> rules = new ArrayList<>();
+    rules.add(QueryRule.fromRegistry("no-concepts", Severity.ERROR,
+        "Vocabulary has no concepts", "validation/noconcepts"));
+    rules.add(new ConceptRule("missing-prefLabel", Severity.ERROR,
+        "Concept has no preferred label", c -> c.hasProperty(SKOS.prefLabel)));
+    rules.add(new ConceptRule("missing-definition", Severity.ERROR,
+        "Concept has no definition", c -> c.hasProperty(SKOS.definition)));
+    rules.add(new ConceptRule("multiple-prefLabels", Severity.ERROR,
+        "Concept has more than one preferred label in a language",
+        Validator::hasOnePrefLabelPerLanguage));
+    rules.add(QueryRule.fromRegistry("duplicate-prefLabel", Severity.ERROR,
+        "Preferred label is shared by another concept", "validation/duplicateprefLabels"));
+    rules.add(QueryRule.fromRegistry("altLabel-collision", Severity.WARNING,
+        "Alternative label is the preferred label of another concept",
+        "validation/altlabelcollisions"));
+    rules.add(QueryRule.fromRegistry("dangling-isPartOf", Severity.ERROR,
+        "Part of an undefined resource", "validation/danglingparts"));
+    rules.add(QueryRule.fromRegistry("non-concept-label", Severity.WARNING,
+        "Preferred label or definition of a resource that is not a concept",
+        "validation/nonconceptlabels"));
+    rules.add(new ConceptRule("blank-text", Severity.WARNING,
+        "Preferred label or definition is blank", Validator::hasNoBlankText));
+    return rules;
+  }
+
+  /**
+   * Writes findings as a JSON array of objects with members {@code severity}, {@code rule},
+   * {@code focus} and {@code message}
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @param findings findings to write
+   * @throws IOException If an I/O error occurs
+   */
+  public static void writeJson(Appendable appendable, List<Finding> findings)
+      throws IOException {
+    appendable.append('[');
+    for (int i = 0; i < findings.size(); i++) {
+      final Finding finding = findings.get(i);
+      appendable.append(i > 0 ? ",\n" : "\n").append("  {\"severity\": ");
+      writeJsonString(appendable, finding.getSeverity().name());
+      appendable.append(", \"rule\": ");
+      writeJsonString(appendable, finding.getRule());
+      appendable.append(", \"focus\": ");
+      writeJsonString(appendable, finding.getFocus());
+      appendable.append(", \"message\": ");
+      writeJsonString(appendable, finding.getMessage());
+      appendable.append('}');
+    }
+    appendable.append("\n]\n");
+  }
+
+  /**
+   * Writes a table of findings
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @param formatter text formatter
+   * @param findings findings to write
+   * @throws IOException If an I/O error occurs
+   */
+  public static void writeReport(Appendable appendable, TextFormatter formatter,
+      List<Finding> findings) throws IOException {
+    formatter.startTable(appendable);
+    formatter.columnHeadings(appendable, COLUMN_TITLES);
+    for (Finding finding : findings) {
+      formatter.startRow(appendable);
+      for (String text : List.of(finding.getSeverity().name(), finding.getRule(),
+          finding.getFocus(), finding.getMessage())) {
+        formatter.startCell(appendable);
+        formatter.render(appendable, text);
+        formatter.endCell(appendable);
+      }
+      formatter.endRow(appendable);
+    }
+    formatter.endTable(appendable);
+  }
+
+  /**
+   * Begins a read transaction if the dataset must be read in a transaction and the current thread
+   * is not already in one
+   * 
+   * @return {@code true} if a transaction was begun and must be ended
+   */
+  private static boolean beginRead(Dataset dataset) {
+    final boolean transaction = TdbStore.isTransactional(dataset) && !dataset.isInTransaction();
+    if (transaction) {
+      dataset.begin(ReadWrite.READ);
+    }
+    return transaction;
+  }
+
+  private static String focus(Resource resource) {
+    return resource.isURIResource() ? resource.getURI() : resource.getId().getLabelString();
+  }
+
+  private static boolean hasNoBlankText(Resource concept) {
+    for (Property property : List.of(SKOS.prefLabel, SKOS.definition)) {
+      final StmtIterator statements = concept.listProperties(property);
+      try {
+        while (statements.hasNext()) {
+          final RDFNode value = statements.next().getObject();
+          if (value.isLiteral() && value.asLiteral().getLexicalForm().isBlank()) {
+            return false;
+          }
+        }
+      } finally {
+        statements.close();
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasOnePrefLabelPerLanguage(Resource concept) {
+    final Set<String> languages = new HashSet<>();
+    final StmtIterator statements = concept.listProperties(SKOS.prefLabel);
+    try {
+      while (statements.hasNext()) {
+        final Statement statement = statements.next();
+        final String language = statement.getObject().isLiteral()
+            ? statement.getLanguage().toLowerCase(Locale.ROOT)
+            : "";
+        if (!languages.add(language)) {
+          return false;
+        }
+      }
+    } finally {
+      statements.close();
+    }
+    return true;
+  }
+
+  private static void writeJsonString(Appendable appendable, String value) throws IOException {
+    appendable.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          appendable.append("\\\"");
+          break;
+        case '\\':
+          appendable.append("\\\\");
+          break;
+        case '\n':
+          appendable.append("\\n");
+          break;
+        case '\r':
+          appendable.append("\\r");
+          break;
+        case '\t':
+          appendable.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            appendable.append(String.format("\\u%04x", (int) c));
+          } else {
+            appendable.append(c);
+          }
+      }
+    }
+    appendable.append('"');
+  }
+
+  private final int parallelism;
+  private final List<Rule> rules;
+  private final int threshold;
+
+  /**
+   * Constructs a validator with the default rules
+   * 
+   * @param parallelism number of worker threads
+   * @throws IOException If a query resource of a default rule cannot be read
+   */
+  public Validator(int parallelism) throws IOException {
+    this(defaultRules(), parallelism, DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Constructs a validator
+   * 
+   * @param rules rules to evaluate. Each must be a {@link QueryRule} or a {@link ConceptRule}.
+   * @param parallelism number of worker threads
+   * @param threshold maximum number of concepts tested by a single task of a concept rule
+   * @throws IllegalArgumentException if parallelism or threshold is not positive, or a rule is of
+   *         an unknown type
+   */
+  public Validator(List<Rule> rules, int parallelism, int threshold) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    if (threshold < 1) {
+      throw new IllegalArgumentException("Threshold must be positive");
+    }
+    for (Rule rule : rules) {
+      if (!(rule instanceof QueryRule) && !(rule instanceof ConceptRule)) {
+        throw new IllegalArgumentException("Unknown type of rule " + rule.getName());
+      }
+    }
+    this.rules = List.copyOf(rules);
+    this.parallelism = parallelism;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Evaluates all rules over a vocabulary
+   * 
+   * @param dataset vocabulary to validate. It is not modified.
+   * @return findings in order of severity, rule and focus
+   */
+  public List<Finding> validate(Dataset dataset) {
+    final List<Resource> concepts = new ArrayList<>();
+    final boolean transaction = beginRead(dataset);
+    try {
+      dataset.getDefaultModel().listResourcesWithProperty(RDF.type, SKOS.Concept)
+          .forEachRemaining(concepts::add);
+    } finally {
+      if (transaction) {
+        dataset.end();
+      }
+    }
+
+    final List<RecursiveTask<List<Finding>>> tasks = new ArrayList<>(rules.size());
+    for (Rule rule : rules) {
+      if (rule instanceof QueryRule) {
+        tasks.add(new QueryTask((QueryRule) rule, dataset));
+      } else {
+        tasks.add(
+            new ConceptTask((ConceptRule) rule, dataset, concepts, 0, concepts.size(), threshold));
+      }
+    }
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      final List<Finding> findings = pool.invoke(new RecursiveTask<List<Finding>>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected List<Finding> compute() {
+          final List<Finding> all = new ArrayList<>();
+          for (RecursiveTask<List<Finding>> task : invokeAll(tasks)) {
+            all.addAll(task.join());
+          }
+          return all;
+        }
+      });
+      findings.sort(FINDING_ORDER);
+      return findings;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
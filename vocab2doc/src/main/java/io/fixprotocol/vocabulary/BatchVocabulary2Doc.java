@@ -0,0 +1,297 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Generates documents for multiple vocabularies and formats in one process
+ * 
+ * Jobs are listed in a manifest. Each source is loaded, queried and merged with synonyms once,
+ * then every document requested from it is written in parallel on a bounded pool of threads.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class BatchVocabulary2Doc {
+
+  /**
+   * A document to generate
+   */
+  public static final class Job {
+    private final String format;
+    private final String sourceUri;
+    private final String targetFilename;
+
+    /**
+     * Constructs a Job
+     * 
+     * @param sourceUri vocabulary URI
+     * @param targetFilename name of document file to write
+     * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for
+     *        valid codes.
+     */
+    public Job(String sourceUri, String targetFilename, String format) {
+      this.sourceUri = sourceUri;
+      this.targetFilename = targetFilename;
+      this.format = format;
+    }
+
+    public String getFormat() {
+      return format;
+    }
+
+    public String getSourceUri() {
+      return sourceUri;
+    }
+
+    public String getTargetFilename() {
+      return targetFilename;
+    }
+
+    @Override
+    public String toString() {
+      return sourceUri + " -> " + targetFilename + " (" + format + ")";
+    }
+  }
+
+  /**
+   * Outcome of a Job
+   */
+  public static final class JobResult {
+    private final Throwable error;
+    private final Job job;
+    private final long loadNanos;
+    private final long renderNanos;
+
+    JobResult(Job job, long loadNanos, long renderNanos, Throwable error) {
+      this.job = job;
+      this.loadNanos = loadNanos;
+      this.renderNanos = renderNanos;
+      this.error = error;
+    }
+
+    /**
+     * @return cause of failure, or {@code null} if the job succeeded
+     */
+    public Throwable getError() {
+      return error;
+    }
+
+    public Job getJob() {
+      return job;
+    }
+
+    /**
+     * @return time to load and query the source, shared by all jobs of that source
+     */
+    public long getLoadNanos() {
+      return loadNanos;
+    }
+
+    /**
+     * @return time to write the document
+     */
+    public long getRenderNanos() {
+      return renderNanos;
+    }
+
+    public boolean isSuccessful() {
+      return error == null;
+    }
+  }
+
+  private static final class LoadedSource {
+    final long loadNanos;
+    final List<GlossaryRow> rows;
+
+    LoadedSource(List<GlossaryRow> rows, long loadNanos) {
+      this.rows = rows;
+      this.loadNanos = loadNanos;
+    }
+  }
+
+  /**
+   * Generates documents listed in a manifest
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>Name of a manifest file. Each line lists a vocabulary URI, a file to write and
+   *        optionally a format code, separated by whitespace. Blank lines and lines starting with
+   *        {@code #} are ignored.</li>
+   *        <li>Optional maximum number of threads. Defaults to the number of processors.</li>
+   *        </ol>
+   *        Exits with status 1 if any job fails.
+   * @throws IOException If the manifest cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      useage();
+    } else {
+      final int threads = args.length > 1 ? Integer.parseInt(args[1])
+          : Runtime.getRuntime().availableProcessors();
+      final List<Job> jobs = readManifest(args[0]);
+      final BatchVocabulary2Doc batch = new BatchVocabulary2Doc(threads);
+      final List<JobResult> results = batch.run(jobs);
+      if (!report(results, System.out, System.err)) {
+        System.exit(1);
+      }
+    }
+  }
+
+  /**
+   * Reads a manifest of jobs
+   * 
+   * @param manifestFilename name of manifest file
+   * @return list of jobs in manifest order
+   * @throws IOException If the file cannot be read or a line is malformed
+   */
+  public static List<Job> readManifest(String manifestFilename) throws IOException {
+    final List<Job> jobs = new ArrayList<>();
+    try (BufferedReader reader =
+        Files.newBufferedReader(Paths.get(manifestFilename), StandardCharsets.UTF_8)) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        line = line.strip();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        final String[] fields = line.split("\\s+");
+        if (fields.length < 2 || fields.length > 3) {
+          throw new IOException(
+              String.format("Malformed manifest line %d: %s", lineNumber, line));
+        }
+        jobs.add(new Job(fields[0], fields[1],
+            fields.length > 2 ? fields[2] : TextFormatterFactory.HTML));
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Writes a timing summary of jobs
+   * 
+   * @param results outcomes of jobs
+   * @param out stream for successful jobs
+   * @param err stream for failed jobs
+   * @return {@code true} if all jobs succeeded
+   */
+  public static boolean report(List<JobResult> results, PrintStream out, PrintStream err) {
+    boolean allSucceeded = true;
+    for (JobResult result : results) {
+      if (result.isSuccessful()) {
+        out.format("OK     load %6d ms  render %6d ms  %s%n",
+            TimeUnit.NANOSECONDS.toMillis(result.getLoadNanos()),
+            TimeUnit.NANOSECONDS.toMillis(result.getRenderNanos()), result.getJob());
+      } else {
+        allSucceeded = false;
+        err.format("FAILED %s: %s%n", result.getJob(), result.getError());
+      }
+    }
+    return allSucceeded;
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.vocabulary.BatchVocabulary2Doc <manifest>"
+        + " [threads]");
+  }
+
+  private final int threads;
+
+  /**
+   * Constructs a batch generator
+   * 
+   * @param threads maximum number of jobs to run concurrently
+   */
+  public BatchVocabulary2Doc(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Runs jobs
+   * 
+   * @param jobs documents to generate
+   * @return outcome of each job, in the order of {@code jobs}
+   */
+  public List<JobResult> run(List<Job> jobs) {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final Map<String, CompletableFuture<LoadedSource>> sources = new LinkedHashMap<>();
+      final List<CompletableFuture<JobResult>> futures = new ArrayList<>(jobs.size());
+      for (Job job : jobs) {
+        final CompletableFuture<LoadedSource> source = sources.computeIfAbsent(
+            job.getSourceUri(), sourceUri -> CompletableFuture.supplyAsync(() -> {
+              final long start = System.nanoTime();
+              try {
+                final Dataset dataset = new Query2Doc().getDataset(sourceUri);
+                final List<GlossaryRow> rows = new Vocabulary2Doc().queryRows(dataset);
+                return new LoadedSource(rows, System.nanoTime() - start);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            }, executor));
+        futures.add(source.thenApplyAsync(loaded -> render(job, loaded), executor)
+            .exceptionally(e -> new JobResult(job, 0L, 0L,
+                e instanceof CompletionException && e.getCause() != null ? e.getCause() : e)));
+      }
+      final List<JobResult> results = new ArrayList<>(jobs.size());
+      for (CompletableFuture<JobResult> future : futures) {
+        results.add(future.join());
+      }
+      return results;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static JobResult render(Job job, LoadedSource source) {
+    final long start = System.nanoTime();
+    try {
+      final TextFormatter formatter = TextFormatterFactory.getInstance(job.getFormat());
+      try (Writer writer = Vocabulary2Doc.openWriter(job.getTargetFilename())) {
+        Vocabulary2Doc.writeTable(writer, formatter, source.rows.iterator());
+      }
+      return new JobResult(job, source.loadNanos, System.nanoTime() - start, null);
+    } catch (IOException | RuntimeException e) {
+      return new JobResult(job, source.loadNanos, System.nanoTime() - start, e);
+    }
+  }
+}
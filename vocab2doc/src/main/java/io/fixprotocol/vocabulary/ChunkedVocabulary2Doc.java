@@ -0,0 +1,390 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Generates a glossary split into multiple documents, with an index document that links to them
+ * 
+ * Rows are streamed from the all terms query in order and cut into chunks, either by initial
+ * letter of the term or by a fixed number of rows. Each chunk is written to its own file by a pool
+ * of threads while later chunks are still being read. The number of chunks held in memory is
+ * bounded.
+ * <p>
+ * Since a synonym may sort before its term, synonyms must be known before any row is streamed.
+ * The all terms query is therefore executed twice: once to collect all synonyms into a map held in
+ * memory, then again to stream rows. Memory use grows with the number of synonyms, but not
+ * otherwise with the size of the vocabulary beyond the dataset itself.
+ * <p>
+ * For a base name {@code glossary} and format {@code html}, the index is written to
+ * {@code glossary.html} and chunks to files such as {@code glossary-A.html} or
+ * {@code glossary-001.html}.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class ChunkedVocabulary2Doc {
+
+  /**
+   * A document holding a contiguous range of glossary rows
+   */
+  public static final class Chunk {
+    private final String fileName;
+    private final String firstTerm;
+    private final String label;
+    private final String lastTerm;
+    private final int rowCount;
+
+    Chunk(String label, String fileName, String firstTerm, String lastTerm, int rowCount) {
+      this.label = label;
+      this.fileName = fileName;
+      this.firstTerm = firstTerm;
+      this.lastTerm = lastTerm;
+      this.rowCount = rowCount;
+    }
+
+    /**
+     * @return name of the chunk file, relative to the index
+     */
+    public String getFileName() {
+      return fileName;
+    }
+
+    public String getFirstTerm() {
+      return firstTerm;
+    }
+
+    /**
+     * @return text of the link to this chunk in the index
+     */
+    public String getLabel() {
+      return label;
+    }
+
+    public String getLastTerm() {
+      return lastTerm;
+    }
+
+    public int getRowCount() {
+      return rowCount;
+    }
+
+    @Override
+    public String toString() {
+      return fileName + " [" + firstTerm + " .. " + lastTerm + ", " + rowCount + " rows]";
+    }
+  }
+
+  /**
+   * How rows are divided into chunks
+   */
+  public static final class Chunking {
+
+    /**
+     * Default largest number of rows in an alphabetical chunk
+     */
+    public static final int DEFAULT_MAX_ROWS = 10000;
+
+    /**
+     * A chunk for each initial letter. Terms that do not start with a letter share a chunk
+     * labeled {@code #}. A letter with more than {@link #DEFAULT_MAX_ROWS} rows is continued in
+     * further chunks.
+     * <p>
+     * Rows arrive in code point order of the query, and chunks are cut as they stream, so a group
+     * is only contiguous within one case. Terms that start with a lower case letter, or with
+     * punctuation that sorts after upper case letters, follow {@code Z} and start further chunks of
+     * their group, such as {@code A 2} or {@code # 2}, listed after {@code Z} in the index.
+     * 
+     * @return a chunking policy
+     */
+    public static Chunking alphabetical() {
+      return new Chunking(true, DEFAULT_MAX_ROWS);
+    }
+
+    /**
+     * Chunks of a fixed number of rows, except possibly the last
+     * 
+     * @param rowsPerChunk number of rows in each chunk
+     * @return a chunking policy
+     */
+    public static Chunking fixedSize(int rowsPerChunk) {
+      if (rowsPerChunk < 1) {
+        throw new IllegalArgumentException("Rows per chunk must be positive");
+      }
+      return new Chunking(false, rowsPerChunk);
+    }
+
+    private final boolean alphabetical;
+    private final int maxRows;
+
+    private Chunking(boolean alphabetical, int maxRows) {
+      this.alphabetical = alphabetical;
+      this.maxRows = maxRows;
+    }
+
+    /**
+     * Returns the group of a term; a change of group starts a new chunk
+     */
+    String group(String term) {
+      if (!alphabetical) {
+        return "";
+      }
+      final int initial = term.isEmpty() ? ' ' : term.codePointAt(0);
+      return Character.isLetter(initial)
+          ? new String(Character.toChars(Character.toUpperCase(initial)))
+          : "#";
+    }
+
+    int getMaxRows() {
+      return maxRows;
+    }
+
+    boolean isAlphabetical() {
+      return alphabetical;
+    }
+  }
+
+  /**
+   * Cuts rows into chunks and writes each chunk asynchronously
+   */
+  private static final class ChunkWriter {
+    private final String baseName;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Chunking chunking;
+    private final Path directory;
+    private final ExecutorService executor;
+    private final String extension;
+    private final TextFormatter formatter;
+    private String group;
+    private final Semaphore inFlight;
+    private final Map<String, Integer> labelCounts = new HashMap<>();
+    private List<GlossaryRow> rows = new ArrayList<>();
+    private final List<Future<?>> writes = new ArrayList<>();
+
+    ChunkWriter(ExecutorService executor, int maxInFlight, Chunking chunking, Path directory,
+        String baseName, String extension, TextFormatter formatter) {
+      this.executor = executor;
+      this.chunking = chunking;
+      this.directory = directory;
+      this.baseName = baseName;
+      this.extension = extension;
+      this.formatter = formatter;
+      this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    void add(GlossaryRow row) throws InterruptedException {
+      final String rowGroup = chunking.group(row.term);
+      if (!rows.isEmpty() && (!rowGroup.equals(group) || rows.size() == chunking.getMaxRows())) {
+        submit();
+      }
+      group = rowGroup;
+      rows.add(row);
+    }
+
+    /**
+     * Writes the last chunk and waits for all writes to complete
+     * 
+     * @return chunks in order
+     */
+    List<Chunk> finish() throws InterruptedException, ExecutionException {
+      if (!rows.isEmpty()) {
+        submit();
+      }
+      for (Future<?> write : writes) {
+        write.get();
+      }
+      return chunks;
+    }
+
+    private void submit() throws InterruptedException {
+      final String label;
+      final String suffix;
+      if (chunking.isAlphabetical()) {
+        final int occurrence = labelCounts.merge(group, 1, Integer::sum);
+        label = occurrence == 1 ? group : group + " " + occurrence;
+        final String name = "#".equals(group) ? "other" : group;
+        suffix = occurrence == 1 ? name : name + "-" + occurrence;
+      } else {
+        label = Integer.toString(chunks.size() + 1);
+        suffix = String.format("%03d", chunks.size() + 1);
+      }
+      final String fileName = baseName + "-" + suffix + extension;
+      final List<GlossaryRow> chunkRows = rows;
+      chunks.add(new Chunk(label, fileName, chunkRows.get(0).term,
+          chunkRows.get(chunkRows.size() - 1).term, chunkRows.size()));
+      rows = new ArrayList<>();
+
+      final Path path = directory.resolve(fileName);
+      inFlight.acquire();
+      writes.add(executor.submit(() -> {
+        try (Writer writer = Vocabulary2Doc.openWriter(path.toString())) {
+          Vocabulary2Doc.writeTable(writer, formatter, chunkRows.iterator());
+        } finally {
+          inFlight.release();
+        }
+        return null;
+      }));
+    }
+  }
+
+  static final List<String> INDEX_COLUMN_TITLES = List.of("Section", "Terms");
+
+  /**
+   * Generates a chunked glossary
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of the controlled vocabulary</li>
+   *        <li>Name of index file to write. Chunk files are written to the same directory.</li>
+   *        <li>Optional code for output format. Defaults to HTML.</li>
+   *        <li>Optional {@code alpha} for alphabetical chunks, which is the default, or a number
+   *        of rows per chunk</li>
+   *        <li>Optional maximum number of threads. Defaults to the number of processors.</li>
+   *        </ol>
+   * @throws IOException If an I/O error occurs
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      useage();
+    } else {
+      final String format = args.length > 2 ? args[2] : TextFormatterFactory.HTML;
+      final Chunking chunking = args.length > 3 && !"alpha".equals(args[3])
+          ? Chunking.fixedSize(Integer.parseInt(args[3]))
+          : Chunking.alphabetical();
+      final int threads =
+          args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+      final List<Chunk> chunks = new ChunkedVocabulary2Doc(threads)
+          .generate(new Query2Doc().getDataset(args[0]), Paths.get(args[1]), format, chunking);
+      System.out.format("Wrote %d chunks%n", chunks.size());
+    }
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.vocabulary.ChunkedVocabulary2Doc <in-URI>"
+        + " <index-file> [html|md] [alpha|rows-per-chunk] [threads]");
+  }
+
+  private final int threads;
+
+  /**
+   * Constructs a chunked generator
+   * 
+   * @param threads maximum number of chunks to write concurrently
+   */
+  public ChunkedVocabulary2Doc(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Generates a chunked glossary from a loaded vocabulary
+   * 
+   * @param dataset vocabulary
+   * @param indexPath file to write the index to. Its name without extension is the base name of
+   *        chunk files, and chunk files are written to its directory.
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param chunking how rows are divided into chunks
+   * @return chunks in order
+   * @throws IOException If the query fails or any file cannot be written
+   */
+  public List<Chunk> generate(Dataset dataset, Path indexPath, String format, Chunking chunking)
+      throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    final Path directory = indexPath.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    final String indexName = indexPath.getFileName().toString();
+    final int dot = indexName.lastIndexOf('.');
+    final String baseName = dot > 0 ? indexName.substring(0, dot) : indexName;
+    final String extension = dot > 0 ? indexName.substring(dot) : "";
+
+    final Query query = QueryRegistry.getDefault().getQuery(Vocabulary2Doc.ALLTERMS_QUERY);
+    final Query2Doc query2Doc = new Query2Doc();
+    // Synonyms must be known before rows can be streamed, since one may sort before its term
+    final SortedMap<String, String> synonyms =
+        GlossaryRow.collectSynonyms(query2Doc.executeSelectCursor(dataset, query, null));
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    // At most two chunks per thread are held in memory
+    final ChunkWriter chunkWriter = new ChunkWriter(executor, threads * 2, chunking, directory,
+        baseName, extension, formatter);
+    final QueryResultSet resultSet = query2Doc.executeSelectCursor(dataset, query, null);
+    final List<Chunk> chunks;
+    try {
+      final Iterator<GlossaryRow> rows =
+          new GlossaryRow.Merger(GlossaryRow.termRows(resultSet), synonyms.entrySet().iterator());
+      while (rows.hasNext()) {
+        chunkWriter.add(rows.next());
+      }
+      chunks = chunkWriter.finish();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted writing chunks", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    } finally {
+      resultSet.close();
+      executor.shutdownNow();
+    }
+
+    try (Writer writer = Vocabulary2Doc.openWriter(indexPath.toString())) {
+      writeIndex(writer, formatter, chunks);
+    }
+    return chunks;
+  }
+
+  private void writeIndex(Appendable writer, TextFormatter formatter, List<Chunk> chunks)
+      throws IOException {
+    formatter.startTable(writer);
+    Vocabulary2Doc.writeColumnTitles(INDEX_COLUMN_TITLES, writer, formatter);
+    for (Chunk chunk : chunks) {
+      formatter.startRow(writer);
+      formatter.startCell(writer);
+      formatter.link(writer, chunk.getFileName(), chunk.getLabel());
+      formatter.endCell(writer);
+      Vocabulary2Doc.writeCell(writer, formatter,
+          chunk.getFirstTerm() + " \u2013 " + chunk.getLastTerm());
+      formatter.endRow(writer);
+    }
+    formatter.endTable(writer);
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Collects the values of SKOS concepts from a stream of triples without materializing a graph
+ * 
+ * Only triples that are used by the all terms query are kept. They are grouped by subject through
+ * an {@link ExternalSorter}, so memory is bounded regardless of vocabulary size. Each complete
+ * concept then yields the same rows as the query: one per combination of label, definition,
+ * synonym, source and specification.
+ * <p>
+ * Values are compared by lexical form, so literals that differ only by language tag or datatype
+ * are treated as one value.
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class ConceptCollector extends StreamRDFBase implements Closeable {
+
+  private static final String DCT = "http://purl.org/dc/terms/";
+  private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+  private static final String SKOS = "http://www.w3.org/2004/02/skos/core#";
+  private static final String SKOS_CONCEPT = SKOS + "Concept";
+
+  // Codes of collected predicates; also the index of values in a Concept
+  private static final int TYPE = 0;
+  private static final int PREF_LABEL = 1;
+  private static final int DEFINITION = 2;
+  private static final int ALT_LABEL = 3;
+  private static final int SOURCE = 4;
+  private static final int PART_OF = 5;
+  private static final String[] CODES = {"0", "1", "2", "3", "4", "5"};
+
+  private static final Comparator<String[]> SUBJECT_ORDER = Comparator.comparing(r -> r[0]);
+
+  private final ExternalSorter triples;
+
+  /**
+   * Constructs a collector
+   * 
+   * @param maxBufferedChars approximate number of characters to hold in memory before spilling to
+   *        disk
+   */
+  ConceptCollector(long maxBufferedChars) {
+    this.triples = new ExternalSorter(SUBJECT_ORDER, maxBufferedChars);
+  }
+
+  @Override
+  public void close() throws IOException {
+    triples.close();
+  }
+
+  @Override
+  public void quad(Quad quad) {
+    if (quad.isDefaultGraph()) {
+      triple(quad.asTriple());
+    }
+  }
+
+  @Override
+  public void triple(Triple triple) {
+    final int code = code(triple.getPredicate(), triple.getObject());
+    if (code < 0) {
+      return;
+    }
+    try {
+      triples.add(key(triple.getSubject()), CODES[code], value(triple.getObject()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Emits rows of complete concepts. Call after the source has been parsed.
+   * 
+   * @param terms receives records of term, definition, source and specification
+   * @param synonyms receives records of synonym and term
+   * @throws IOException If an I/O error occurs
+   */
+  void emitRows(ExternalSorter terms, ExternalSorter synonyms) throws IOException {
+    final Iterator<String[]> iter = triples.sorted();
+    String subject = null;
+    final List<Set<String>> values = new ArrayList<>(CODES.length);
+    for (int i = 0; i < CODES.length; i++) {
+      values.add(new LinkedHashSet<>());
+    }
+    try {
+      while (iter.hasNext()) {
+        final String[] record = iter.next();
+        if (!record[0].equals(subject)) {
+          emitConcept(values, terms, synonyms);
+          subject = record[0];
+        }
+        values.get(Integer.parseInt(record[1])).add(record[2]);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    emitConcept(values, terms, synonyms);
+  }
+
+  private static void emitConcept(List<Set<String>> values, ExternalSorter terms,
+      ExternalSorter synonyms) throws IOException {
+    final boolean complete = !values.get(TYPE).isEmpty() && !values.get(PREF_LABEL).isEmpty()
+        && !values.get(DEFINITION).isEmpty();
+    if (complete) {
+      final Set<String> altLabels = optional(values.get(ALT_LABEL));
+      final Set<String> sources = optional(values.get(SOURCE));
+      final Set<String> specs = optional(values.get(PART_OF));
+      for (String term : values.get(PREF_LABEL)) {
+        for (String definition : values.get(DEFINITION)) {
+          for (String synonym : altLabels) {
+            if (!synonym.isEmpty()) {
+              synonyms.add(synonym, term);
+            }
+            for (String source : sources) {
+              for (String spec : specs) {
+                terms.add(term, definition, source, spec);
+              }
+            }
+          }
+        }
+      }
+    }
+    for (Set<String> set : values) {
+      set.clear();
+    }
+  }
+
+  private static int code(Node predicate, Node object) {
+    if (!predicate.isURI()) {
+      return -1;
+    }
+    switch (predicate.getURI()) {
+      case RDF_TYPE:
+        return object.isURI() && SKOS_CONCEPT.equals(object.getURI()) ? TYPE : -1;
+      case SKOS + "prefLabel":
+        return PREF_LABEL;
+      case SKOS + "definition":
+        return DEFINITION;
+      case SKOS + "altLabel":
+        return ALT_LABEL;
+      case DCT + "source":
+        return SOURCE;
+      case DCT + "isPartOf":
+        return PART_OF;
+      default:
+        return -1;
+    }
+  }
+
+  private static String key(Node subject) {
+    return subject.isBlank() ? "_:" + subject.getBlankNodeLabel() : subject.toString();
+  }
+
+  private static Set<String> optional(Set<String> values) {
+    return values.isEmpty() ? Set.of("") : values;
+  }
+
+  /**
+   * Consistent with the value of a query result: lexical form of a literal, otherwise the node as
+   * a string
+   */
+  private static String value(Node object) {
+    if (object.isLiteral()) {
+      return object.getLiteralLexicalForm();
+    } else if (object.isBlank()) {
+      return object.getBlankNodeLabel();
+    } else {
+      return object.toString();
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts records of Strings with bounded memory
+ * 
+ * Records are buffered until their estimated size exceeds a limit, then the buffer is sorted and
+ * written to a temporary run file. Sorted output is a merge of the runs and the final buffer. The
+ * sort is stable: records that compare equal are returned in the order they were added.
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class ExternalSorter implements Closeable {
+
+  private final class Run {
+    final int index;
+    final DataInputStream in;
+    String[] head;
+
+    Run(int index, DataInputStream in) throws IOException {
+      this.index = index;
+      this.in = in;
+      this.head = read(in);
+    }
+
+    void advance() throws IOException {
+      head = read(in);
+    }
+  }
+
+  private final Comparator<String[]> comparator;
+  private List<String[]> buffer = new ArrayList<>();
+  private long bufferedChars = 0;
+  private final long maxBufferedChars;
+  private final List<Path> runFiles = new ArrayList<>();
+  private final List<DataInputStream> openRuns = new ArrayList<>();
+  private Path tempDir;
+
+  /**
+   * Constructs a sorter
+   * 
+   * @param comparator order of records
+   * @param maxBufferedChars approximate number of characters to hold in memory before spilling to
+   *        disk
+   */
+  ExternalSorter(Comparator<String[]> comparator, long maxBufferedChars) {
+    this.comparator = comparator;
+    this.maxBufferedChars = maxBufferedChars;
+  }
+
+  /**
+   * Adds a record
+   * 
+   * @param record a record. The array is retained and must not be modified.
+   * @throws IOException If a run cannot be written
+   */
+  void add(String... record) throws IOException {
+    buffer.add(record);
+    for (String value : record) {
+      bufferedChars += value.length() + 8;
+    }
+    if (bufferedChars > maxBufferedChars) {
+      spill();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (DataInputStream in : openRuns) {
+      in.close();
+    }
+    openRuns.clear();
+    for (Path runFile : runFiles) {
+      Files.deleteIfExists(runFile);
+    }
+    runFiles.clear();
+    if (tempDir != null) {
+      Files.deleteIfExists(tempDir);
+      tempDir = null;
+    }
+  }
+
+  /**
+   * @return number of runs written to disk
+   */
+  int getRunCount() {
+    return runFiles.size();
+  }
+
+  /**
+   * Returns records in sorted order. No more records may be added.
+   * 
+   * @return an iterator of sorted records. It may throw {@link UncheckedIOException} if a run
+   *         cannot be read.
+   * @throws IOException If a run cannot be opened
+   */
+  Iterator<String[]> sorted() throws IOException {
+    buffer.sort(comparator);
+    if (runFiles.isEmpty()) {
+      final List<String[]> records = buffer;
+      buffer = null;
+      return records.iterator();
+    }
+    spill();
+    buffer = null;
+
+    final PriorityQueue<Run> queue = new PriorityQueue<>((r1, r2) -> {
+      final int c = comparator.compare(r1.head, r2.head);
+      return c != 0 ? c : Integer.compare(r1.index, r2.index);
+    });
+    for (int i = 0; i < runFiles.size(); i++) {
+      final DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Files.newInputStream(runFiles.get(i)), 65536));
+      openRuns.add(in);
+      final Run run = new Run(i, in);
+      if (run.head != null) {
+        queue.add(run);
+      }
+    }
+
+    return new Iterator<>() {
+
+      @Override
+      public boolean hasNext() {
+        return !queue.isEmpty();
+      }
+
+      @Override
+      public String[] next() {
+        final Run run = queue.poll();
+        if (run == null) {
+          throw new NoSuchElementException();
+        }
+        final String[] record = run.head;
+        try {
+          run.advance();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        if (run.head != null) {
+          queue.add(run);
+        }
+        return record;
+      }
+    };
+  }
+
+  private void spill() throws IOException {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    buffer.sort(comparator);
+    if (tempDir == null) {
+      tempDir = Files.createTempDirectory("vocab2doc");
+    }
+    final Path runFile = Files.createTempFile(tempDir, "run", ".bin");
+    runFiles.add(runFile);
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(runFile), 65536))) {
+      for (String[] record : buffer) {
+        out.writeInt(record.length);
+        for (String value : record) {
+          final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+      }
+    }
+    buffer.clear();
+    bufferedChars = 0;
+  }
+
+  private static String[] read(DataInputStream in) throws IOException {
+    final int length;
+    try {
+      length = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    final String[] record = new String[length];
+    for (int i = 0; i < length; i++) {
+      final byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      record[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return record;
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.text.TextFormatter;
+
+/**
+ * A row of a glossary table, either a term with its definition or a synonym that refers to a term
+ * 
+ * Rows are produced once from a query and may be written by any number of formatters.
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class GlossaryRow {
+
+  /**
+   * Links from a row to pages of terms
+   */
+  interface Links {
+
+    /**
+     * Renders text with mentions of terms as links
+     * 
+     * @param writer destination of text
+     * @param formatter text format
+     * @param text plain text
+     * @throws IOException If an I/O error occurs
+     */
+    void render(Appendable writer, TextFormatter formatter, String text) throws IOException;
+
+    /**
+     * @param term a preferred label
+     * @return URL of the page of a term, or {@code null} if it is not linked
+     */
+    String url(String term);
+  }
+
+  /**
+   * Merges synonym rows into a sequence of term rows, both ordered by term
+   * 
+   * A synonym is placed before the first term that it precedes. Synonyms that follow the last term
+   * are not emitted.
+   */
+  static final class Merger implements Iterator<GlossaryRow> {
+    private Entry<String, String> synonymEntry;
+    private final Iterator<Entry<String, String>> synonyms;
+    private GlossaryRow termRow;
+    private final Iterator<GlossaryRow> terms;
+
+    /**
+     * Constructs a Merger
+     * 
+     * @param terms term rows ordered by term
+     * @param synonyms entries of synonym to term, ordered by synonym
+     */
+    Merger(Iterator<GlossaryRow> terms, Iterator<Entry<String, String>> synonyms) {
+      this.terms = terms;
+      this.synonyms = synonyms;
+      this.synonymEntry = synonyms.hasNext() ? synonyms.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return termRow != null || terms.hasNext();
+    }
+
+    @Override
+    public GlossaryRow next() {
+      if (termRow == null) {
+        if (!terms.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        termRow = terms.next();
+      }
+      if (synonymEntry != null && synonymEntry.getKey().compareTo(termRow.term) < 0) {
+        final GlossaryRow row = synonym(synonymEntry.getKey(), synonymEntry.getValue());
+        synonymEntry = synonyms.hasNext() ? synonyms.next() : null;
+        return row;
+      }
+      final GlossaryRow row = termRow;
+      termRow = null;
+      return row;
+    }
+  }
+
+  /**
+   * Collects synonyms from results of the all terms query. Where a synonym belongs to more than one
+   * term, the last term wins.
+   * 
+   * @param resultSet results ordered by term. It is consumed and closed.
+   * @return map of synonym to term
+   */
+  static SortedMap<String, String> collectSynonyms(QueryResultSet resultSet) {
+    final SortedMap<String, String> synonyms = new TreeMap<>();
+    try {
+      final int termIndex = resultSet.getVariableNames().indexOf("term");
+      final int synonymIndex = resultSet.getVariableNames().indexOf("synonym");
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        final String synonym = resultSet.getValue(record, synonymIndex);
+        if (!synonym.isEmpty()) {
+          synonyms.put(synonym, resultSet.getValue(record, termIndex));
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+    return synonyms;
+  }
+
+  /**
+   * Creates a row for a synonym
+   * 
+   * @param synonym alternate label
+   * @param term preferred label that the synonym refers to
+   * @return a new row
+   */
+  static GlossaryRow synonym(String synonym, String term) {
+    return new GlossaryRow(synonym, "", "", "", term);
+  }
+
+  /**
+   * Returns a term row for each record of results of the all terms query, as it is read
+   * 
+   * @param resultSet results ordered by term. The caller is responsible for closing it.
+   * @return an iterator of term rows
+   */
+  static Iterator<GlossaryRow> termRows(QueryResultSet resultSet) {
+    final List<String> variableNames = resultSet.getVariableNames();
+    final int termIndex = variableNames.indexOf("term");
+    final int definitionIndex = variableNames.indexOf("definition");
+    final int sourceIndex = variableNames.indexOf("source");
+    final int specIndex = variableNames.indexOf("spec");
+    return new Iterator<>() {
+
+      @Override
+      public boolean hasNext() {
+        return resultSet.hasNext();
+      }
+
+      @Override
+      public GlossaryRow next() {
+        if (!resultSet.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final QueryResultRecord record = resultSet.next();
+        return new GlossaryRow(resultSet.getValue(record, termIndex),
+            resultSet.getValue(record, definitionIndex), resultSet.getValue(record, sourceIndex),
+            resultSet.getValue(record, specIndex));
+      }
+    };
+  }
+
+  private static void writeTerm(Appendable writer, TextFormatter formatter, Links links,
+      String term) throws IOException {
+    final String url = links != null ? links.url(term) : null;
+    if (url != null) {
+      final StringBuilder text = new StringBuilder(term.length());
+      formatter.render(text, term);
+      formatter.link(writer, url, text.toString());
+    } else {
+      formatter.render(writer, term);
+    }
+  }
+
+  final String definition;
+  /**
+   * Term that a synonym row refers to, or {@code null} for a term row
+   */
+  final String see;
+  final String source;
+  final String spec;
+  final String term;
+
+  /**
+   * Constructs a term row
+   */
+  GlossaryRow(String term, String definition, String source, String spec) {
+    this(term, definition, source, spec, null);
+  }
+
+  private GlossaryRow(String term, String definition, String source, String spec, String see) {
+    this.term = term;
+    this.definition = definition;
+    this.source = source;
+    this.spec = spec;
+    this.see = see;
+  }
+
+  boolean isSynonym() {
+    return see != null;
+  }
+
+  /**
+   * Writes this row as a table row
+   * 
+   * @param writer destination of text
+   * @param formatter text format
+   * @throws IOException If an I/O error occurs
+   */
+  void write(Appendable writer, TextFormatter formatter) throws IOException {
+    write(writer, formatter, null);
+  }
+
+  /**
+   * Writes this row as a table row with links to pages of terms
+   * 
+   * @param writer destination of text
+   * @param formatter text format
+   * @param links links to pages of terms, or {@code null} for plain text
+   * @throws IOException If an I/O error occurs
+   */
+  void write(Appendable writer, TextFormatter formatter, Links links) throws IOException {
+    formatter.startRow(writer);
+    formatter.startCell(writer);
+    writeTerm(writer, formatter, links, term);
+    formatter.endCell(writer);
+    formatter.startCell(writer);
+    if (see != null) {
+      formatter.startBold(writer);
+      formatter.render(writer, "See: ");
+      formatter.endBold(writer);
+      writeTerm(writer, formatter, links, see);
+    } else {
+      if (links != null) {
+        links.render(writer, formatter, definition);
+      } else {
+        formatter.render(writer, definition);
+      }
+      if (!source.isEmpty()) {
+        formatter.lineBreak(writer);
+        formatter.startBold(writer);
+        formatter.render(writer, "Source: ");
+        formatter.endBold(writer);
+        formatter.render(writer, source);
+      }
+      if (!spec.isEmpty()) {
+        formatter.lineBreak(writer);
+        formatter.startBold(writer);
+        formatter.render(writer, "Specification: ");
+        formatter.endBold(writer);
+        formatter.render(writer, spec);
+      }
+    }
+    formatter.endCell(writer);
+    formatter.endRow(writer);
+  }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.output.OutputSink;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.text.PhraseMatcher;
+import io.fixprotocol.text.PhraseMatcher.Match;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Generates a page for each term of a vocabulary, with links between terms
+ * 
+ * Each page holds the row of a term and rows of its synonyms. Wherever a definition mentions the
+ * preferred or alternate label of another term, the mention links to that term's page, and the
+ * target of each synonym links to the page of its term. Mentions are found by a single scan of
+ * each definition for all labels at once; see {@link PhraseMatcher}. Mentions within double quotes
+ * are not linked, since quotes are rendered in pairs.
+ * <p>
+ * An index page holds the whole glossary with every term linked to its page. Pages are rendered
+ * and written concurrently.
+ * <p>
+ * File names of pages are assigned in code point order of terms, so when the names of two terms
+ * collide, the later term gets a numbered name such as {@code order-type-2.html}. A synonym of
+ * more than one term links to the last of them in the same order, as in a glossary written by
+ * {@link Vocabulary2Doc}. Links are therefore stable from run to run.
+ * <p>
+ * For a directory {@code glossary} and format {@code html}, the index is written to
+ * {@code glossary/index.html} and the page of term {@code Order Type} to
+ * {@code glossary/order-type.html}.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class LinkedVocabulary2Doc {
+
+  /**
+   * Base name of the index page
+   */
+  public static final String INDEX_NAME = "index";
+
+  // Pages rendered by a task, amortizing task overhead over small pages
+  private static final int PAGES_PER_TASK = 64;
+
+  /**
+   * Term rows and synonyms of a term, with file name of its page
+   */
+  private static final class Page {
+    final String fileName;
+    final List<GlossaryRow> rows = new ArrayList<>(1);
+    final String term;
+
+    Page(String term, String fileName) {
+      this.term = term;
+      this.fileName = fileName;
+    }
+  }
+
+  /**
+   * Links of a page, or of the index if the page is {@code null}
+   */
+  private static final class PageLinks implements GlossaryRow.Links {
+    private final PhraseMatcher<String> matcher;
+    private final Page page;
+    private final Map<String, Page> pages;
+
+    PageLinks(Map<String, Page> pages, PhraseMatcher<String> matcher, Page page) {
+      this.pages = pages;
+      this.matcher = matcher;
+      this.page = page;
+    }
+
+    @Override
+    public void render(Appendable writer, TextFormatter formatter, String text)
+        throws IOException {
+      int position = 0;
+      for (Match<String> match : matcher.findAll(text)) {
+        final String url = url(match.getValue());
+        if (url == null || isQuoted(text, match.getStart())) {
+          continue;
+        }
+        formatter.render(writer, text.substring(position, match.getStart()));
+        final StringBuilder mention = new StringBuilder();
+        formatter.render(mention, text.substring(match.getStart(), match.getEnd()));
+        formatter.link(writer, url, mention.toString());
+        position = match.getEnd();
+      }
+      formatter.render(writer, position == 0 ? text : text.substring(position));
+    }
+
+    @Override
+    public String url(String term) {
+      if (page != null && page.term.equals(term)) {
+        return null;
+      }
+      final Page target = pages.get(term);
+      return target != null ? URLEncoder.encode(target.fileName, StandardCharsets.UTF_8) : null;
+    }
+  }
+
+  /**
+   * Generates a page per term
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of the controlled vocabulary</li>
+   *        <li>Directory to write pages to</li>
+   *        <li>Optional code for output format. Defaults to HTML.</li>
+   *        <li>Optional maximum number of threads. Defaults to the number of processors.</li>
+   *        </ol>
+   * @throws IOException If an I/O error occurs
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      useage();
+    } else {
+      final String format = args.length > 2 ? args[2] : TextFormatterFactory.HTML;
+      final int threads =
+          args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+      final Map<String, String> pages = new LinkedVocabulary2Doc(threads)
+          .generate(new Query2Doc().getDataset(args[0]), Paths.get(args[1]), format);
+      System.out.format("Wrote %d pages%n", pages.size());
+    }
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.vocabulary.LinkedVocabulary2Doc <in-URI>"
+        + " <out-dir> [html|md] [threads]");
+  }
+
+  /**
+   * Returns true if a position in text follows an odd number of double quotes
+   */
+  static boolean isQuoted(String text, int position) {
+    boolean quoted = false;
+    for (int i = 0; i < position; i++) {
+      if (text.charAt(i) == '"') {
+        quoted = !quoted;
+      }
+    }
+    return quoted;
+  }
+
+  /**
+   * Derives a file name from a term: letters and digits in lower case, with other runs of
+   * characters replaced by a hyphen
+   */
+  static String slug(String term) {
+    final StringBuilder sb = new StringBuilder(term.length());
+    boolean separator = false;
+    for (int i = 0; i < term.length(); i++) {
+      final char c = term.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        if (separator && sb.length() > 0) {
+          sb.append('-');
+        }
+        sb.append(Character.toLowerCase(c));
+        separator = false;
+      } else {
+        separator = true;
+      }
+    }
+    return sb.length() > 0 ? sb.toString() : "term";
+  }
+
+  private final int threads;
+
+  /**
+   * Constructs a generator of pages
+   * 
+   * @param threads maximum number of threads rendering pages
+   */
+  public LinkedVocabulary2Doc(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Generates a page per term and an index from a loaded vocabulary
+   * 
+   * @param dataset vocabulary
+   * @param directory directory to write pages to. It is created if it does not exist.
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @return map of term to file name of its page, in order of the index
+   * @throws IOException If the query fails or any file cannot be written
+   */
+  public Map<String, String> generate(Dataset dataset, Path directory,
+      String format) throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    final String extension = "." + format;
+    Files.createDirectories(directory);
+
+    final Query query = QueryRegistry.getDefault().getQuery(Vocabulary2Doc.UNORDERED_QUERY);
+    final List<GlossaryRow> terms = new ArrayList<>();
+    final Map<String, String> synonyms = new HashMap<>();
+    final QueryResultSet resultSet = new Query2Doc().executeSelectCursor(dataset, query, null);
+    try {
+      new Vocabulary2Doc().collectRows(resultSet, terms, synonyms,
+          (collected, term) -> RowOrder.compareCodePoints(collected, term) >= 0 ? collected : term);
+    } finally {
+      resultSet.close();
+    }
+
+    final List<GlossaryRow> rows = RowOrder.codePoint().sort(distinctRows(terms, synonyms));
+    final Map<String, Page> pages = pages(rows, extension);
+    // Preferred and alternate labels, each mapped to the term whose page it links to
+    final Map<String, String> labels = new HashMap<>();
+    for (GlossaryRow row : rows) {
+      final String term = row.isSynonym() ? row.see : row.term;
+      labels.putIfAbsent(row.term, term);
+      final Page page = pages.get(term);
+      if (page != null) {
+        page.rows.add(row);
+      }
+    }
+    final PhraseMatcher<String> matcher = new PhraseMatcher<>(labels);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Page> pageList = new ArrayList<>(pages.values());
+      final List<Future<?>> writes = new ArrayList<>();
+      for (int from = 0; from < pageList.size(); from += PAGES_PER_TASK) {
+        final List<Page> batch =
+            pageList.subList(from, Math.min(from + PAGES_PER_TASK, pageList.size()));
+        writes.add(executor.submit(() -> {
+          // Pages are small, so each is rendered in memory and written in a single call
+          final StringBuilder sb = new StringBuilder(4096);
+          for (Page page : batch) {
+            sb.setLength(0);
+            writeTable(sb, formatter, page.rows, new PageLinks(pages, matcher, page));
+            try (OutputSink sink = Vocabulary2Doc.openSink(
+                directory.resolve(page.fileName).toString())) {
+              sink.write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+            }
+          }
+          return null;
+        }));
+      }
+      try (Writer writer = Vocabulary2Doc.openWriter(
+          directory.resolve(INDEX_NAME + extension).toString())) {
+        writeTable(writer, formatter, rows, new PageLinks(pages, matcher, null));
+      }
+      for (Future<?> write : writes) {
+        write.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted writing pages", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    final Map<String, String> fileNames = new LinkedHashMap<>();
+    for (GlossaryRow row : rows) {
+      if (!row.isSynonym()) {
+        fileNames.putIfAbsent(row.term, pages.get(row.term).fileName);
+      }
+    }
+    return fileNames;
+  }
+
+  /**
+   * Returns distinct rows of terms and synonyms, unordered
+   */
+  private static List<GlossaryRow> distinctRows(List<GlossaryRow> terms,
+      Map<String, String> synonyms) {
+    final Set<List<String>> distinct = new HashSet<>();
+    final List<GlossaryRow> rows = new ArrayList<>(terms.size() + synonyms.size());
+    for (GlossaryRow row : terms) {
+      // The query yields a solution per combination of optional values, including synonyms
+      if (distinct.add(List.of(row.term, row.definition, row.source, row.spec))) {
+        rows.add(row);
+      }
+    }
+    for (Entry<String, String> synonym : synonyms.entrySet()) {
+      rows.add(GlossaryRow.synonym(synonym.getKey(), synonym.getValue()));
+    }
+    return rows;
+  }
+
+  /**
+   * Assigns a page to each term in order of rows, so that a term whose file name collides with
+   * that of an earlier term gets a numbered name
+   */
+  private static Map<String, Page> pages(List<GlossaryRow> rows, String extension) {
+    final Set<String> fileNames = new HashSet<>();
+    final Map<String, Page> pages = new LinkedHashMap<>();
+    for (GlossaryRow row : rows) {
+      if (!row.isSynonym() && !pages.containsKey(row.term)) {
+        final String slug = slug(row.term);
+        String fileName = slug + extension;
+        for (int n = 2; !fileNames.add(fileName.toLowerCase(Locale.ROOT)); n++) {
+          fileName = slug + "-" + n + extension;
+        }
+        pages.put(row.term, new Page(row.term, fileName));
+      }
+    }
+    return pages;
+  }
+
+  private static void writeTable(Appendable writer, TextFormatter formatter,
+      List<GlossaryRow> rows, GlossaryRow.Links links) throws IOException {
+    Vocabulary2Doc.startTable(writer, formatter);
+    for (GlossaryRow row : rows) {
+      row.write(writer, formatter, links);
+    }
+    formatter.endTable(writer);
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Generates a glossary for each of several locales from a vocabulary with language-tagged labels
+ * 
+ * For each locale, the preferred label and definition of a concept are chosen by the language
+ * tags of their literals, following a fallback chain: the full tag of the locale, its language,
+ * the full tag and language of a default locale, then untagged literals. Synonyms are those in the
+ * language of the chosen preferred label. A concept without a preferred label or definition in
+ * the chain is omitted from that locale's glossary.
+ * <p>
+ * The vocabulary is queried once, unordered. Rows of each locale are ordered by collation keys of
+ * the locale, computed once per row by {@link RowOrder#collator(Locale)}, rather than by SPARQL
+ * {@code ORDER BY}, which compares code points. Documents of all locales are written in parallel.
+ * <p>
+ * For a target {@code glossary.html} and locales {@code de} and {@code ja}, documents are written
+ * to {@code glossary-de.html} and {@code glossary-ja.html}.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class MultilingualVocabulary2Doc {
+
+  /**
+   * Name of the query resource that selects language-tagged properties of all concepts
+   */
+  static final String LABELS_QUERY = "labels";
+
+  static final String DCT = "http://purl.org/dc/terms/";
+  static final String SKOS = "http://www.w3.org/2004/02/skos/core#";
+  static final List<String> PROPERTIES = List.of(SKOS + "prefLabel",
+      SKOS + "altLabel", SKOS + "definition", DCT + "source", DCT + "isPartOf");
+  static final int PREF_LABEL = 0;
+  static final int ALT_LABEL = 1;
+  static final int DEFINITION = 2;
+  static final int SOURCE = 3;
+  static final int SPEC = 4;
+
+  /**
+   * Values of the properties of a concept, each with its language tag
+   */
+  private static final class LabeledConcept {
+    // for each property, pairs of language tag and value
+    final List<List<String[]>> values = new ArrayList<>(PROPERTIES.size());
+
+    LabeledConcept() {
+      for (int i = 0; i < PROPERTIES.size(); i++) {
+        values.add(new ArrayList<>(1));
+      }
+    }
+  }
+
+  /**
+   * Generates a glossary for each locale
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of the controlled vocabulary</li>
+   *        <li>Name of file to write. The language tag of each locale is appended to its base
+   *        name.</li>
+   *        <li>Optional code for output format. Defaults to HTML.</li>
+   *        <li>Optional comma-separated language tags of locales. Defaults to {@code en}.</li>
+   *        </ol>
+   * @throws IOException If an I/O error occurs
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      useage();
+    } else {
+      final String format = args.length > 2 ? args[2] : TextFormatterFactory.HTML;
+      final List<Locale> locales = new ArrayList<>();
+      for (String tag : (args.length > 3 ? args[3] : "en").split(",")) {
+        locales.add(Locale.forLanguageTag(tag.trim()));
+      }
+      final Map<Locale, Path> documents =
+          new MultilingualVocabulary2Doc(Locale.ENGLISH, Runtime.getRuntime().availableProcessors())
+              .generate(new Query2Doc().getDataset(args[0]), Paths.get(args[1]), format, locales);
+      documents.values().forEach(System.out::println);
+    }
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.vocabulary.MultilingualVocabulary2Doc"
+        + " <in-URI> <out-file> [html|md] [locale,...]");
+  }
+
+  /**
+   * Returns language tags to try in order for a locale
+   * 
+   * @param locale requested locale
+   * @param defaultLocale locale to fall back to
+   * @return lower case language tags, ending with the empty tag of untagged literals
+   */
+  static List<String> fallbackChain(Locale locale, Locale defaultLocale) {
+    final Set<String> tags = new LinkedHashSet<>();
+    for (Locale l : new Locale[] {locale, defaultLocale}) {
+      final String tag = l.toLanguageTag().toLowerCase(Locale.ROOT);
+      if (!"und".equals(tag)) {
+        tags.add(tag);
+      }
+      tags.add(l.getLanguage().toLowerCase(Locale.ROOT));
+    }
+    tags.remove("");
+    tags.add("");
+    return new ArrayList<>(tags);
+  }
+
+  /**
+   * @return the first pair of tag and value with the first tag in the chain that has any value, or
+   *         {@code null}
+   */
+  private static String[] select(List<String[]> tagged, List<String> chain) {
+    for (String tag : chain) {
+      for (String[] value : tagged) {
+        if (value[0].equals(tag)) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String selectValue(List<String[]> tagged, List<String> chain) {
+    final String[] value = select(tagged, chain);
+    return value != null ? value[1] : "";
+  }
+
+  private final Locale defaultLocale;
+  private final int threads;
+
+  /**
+   * Constructs a multilingual generator
+   * 
+   * @param defaultLocale locale to fall back to when a label is missing in a requested locale
+   * @param threads maximum number of documents to write concurrently
+   */
+  public MultilingualVocabulary2Doc(Locale defaultLocale, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    this.defaultLocale = defaultLocale;
+    this.threads = threads;
+  }
+
+  /**
+   * Generates a glossary for each locale from a loaded vocabulary
+   * 
+   * @param dataset vocabulary
+   * @param targetPath file name to which the language tag of each locale is appended
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param locales locales of documents
+   * @return map of locale to the document written for it, in order of locales
+   * @throws IOException If the query fails or any file cannot be written
+   */
+  public Map<Locale, Path> generate(Dataset dataset, Path targetPath, String format,
+      List<Locale> locales) throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    final Path directory = targetPath.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    final String targetName = targetPath.getFileName().toString();
+    final int dot = targetName.lastIndexOf('.');
+    final String baseName = dot > 0 ? targetName.substring(0, dot) : targetName;
+    final String extension = dot > 0 ? targetName.substring(dot) : "";
+
+    final Collection<LabeledConcept> concepts = queryConcepts(dataset);
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(threads, Math.max(1, locales.size())));
+    final Map<Locale, Path> documents = new LinkedHashMap<>();
+    try {
+      final List<Future<?>> writes = new ArrayList<>(locales.size());
+      for (Locale locale : locales) {
+        final Path path = directory.resolve(baseName + "-" + locale.toLanguageTag() + extension);
+        documents.put(locale, path);
+        writes.add(executor.submit(() -> {
+          final List<GlossaryRow> rows = rows(concepts, locale);
+          try (Writer writer = Vocabulary2Doc.openWriter(path.toString())) {
+            Vocabulary2Doc.writeTable(writer, formatter, rows.iterator());
+          }
+          return null;
+        }));
+      }
+      for (Future<?> write : writes) {
+        write.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted writing documents", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+    return documents;
+  }
+
+  /**
+   * Returns glossary rows of a locale in collation order
+   * 
+   * @param concepts concepts with all of their language-tagged values
+   * @param locale locale of the glossary
+   * @return ordered rows
+   */
+  private List<GlossaryRow> rows(Collection<LabeledConcept> concepts, Locale locale) {
+    final List<String> chain = fallbackChain(locale, defaultLocale);
+    final List<GlossaryRow> rows = new ArrayList<>(concepts.size());
+    for (LabeledConcept concept : concepts) {
+      final String[] label = select(concept.values.get(PREF_LABEL), chain);
+      final String[] definition = select(concept.values.get(DEFINITION), chain);
+      if (label == null || definition == null) {
+        continue;
+      }
+      final String term = label[1];
+      rows.add(new GlossaryRow(term, definition[1], selectValue(concept.values.get(SOURCE), chain),
+          selectValue(concept.values.get(SPEC), chain)));
+      // Synonyms in the language of the preferred label
+      for (String[] synonym : concept.values.get(ALT_LABEL)) {
+        if (synonym[0].equals(label[0])) {
+          rows.add(GlossaryRow.synonym(synonym[1], term));
+        }
+      }
+    }
+    return RowOrder.collator(locale).sort(rows);
+  }
+
+  private Collection<LabeledConcept> queryConcepts(Dataset dataset) throws IOException {
+    final Query query = QueryRegistry.getDefault().getQuery(LABELS_QUERY);
+    final Map<String, LabeledConcept> concepts = new LinkedHashMap<>();
+    final QueryResultSet resultSet = new Query2Doc().executeSelectCursor(dataset, query, null);
+    try {
+      final List<String> variableNames = resultSet.getVariableNames();
+      final int conceptIndex = variableNames.indexOf("concept");
+      final int propertyIndex = variableNames.indexOf("property");
+      final int valueIndex = variableNames.indexOf("value");
+      final int langIndex = variableNames.indexOf("lang");
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        final int property = PROPERTIES.indexOf(resultSet.getValue(record, propertyIndex));
+        if (property >= 0) {
+          concepts
+              .computeIfAbsent(resultSet.getValue(record, conceptIndex), k -> new LabeledConcept())
+              .values.get(property).add(new String[] {
+                  resultSet.getValue(record, langIndex).toLowerCase(Locale.ROOT),
+                  resultSet.getValue(record, valueIndex)});
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+    return concepts.values();
+  }
+}
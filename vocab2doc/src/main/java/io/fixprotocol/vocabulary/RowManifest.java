@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A record of the rows rendered into a document, kept next to the document so that a later run
+ * can reuse the rendered text of rows that have not changed
+ * 
+ * For each row in document order, the manifest holds a hash of its content and the length of its
+ * rendered text in bytes. The manifest also holds the length and digest of the whole document, so
+ * that a document edited or replaced since it was generated is never spliced from.
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class RowManifest {
+
+  /**
+   * Extension appended to the name of a document to name its manifest
+   */
+  static final String FILE_EXTENSION = ".rows";
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  // Number of digest bytes kept in a row hash
+  private static final int ROW_HASH_BYTES = 16;
+  private static final String SIGNATURE = "vocab2doc-rows";
+  private static final int VERSION = 1;
+
+  static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // required of every Java platform
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns a hash of the content of a row
+   */
+  static String hash(GlossaryRow row, MessageDigest digest) {
+    digest.reset();
+    for (String field : new String[] {row.term, row.definition, row.source, row.spec}) {
+      digest.update(field.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    if (row.isSynonym()) {
+      digest.update(row.see.getBytes(StandardCharsets.UTF_8));
+    }
+    return toHex(digest.digest(), ROW_HASH_BYTES);
+  }
+
+  /**
+   * Reads a manifest
+   * 
+   * @param path manifest file
+   * @return the manifest, or {@code null} if the file does not exist or was not written by this
+   *         version
+   * @throws IOException if the file cannot be read
+   */
+  static RowManifest read(Path path) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      final String[] header = reader.readLine().split(" ");
+      if (header.length != 6 || !SIGNATURE.equals(header[0])
+          || Integer.parseInt(header[1]) != VERSION) {
+        return null;
+      }
+      final RowManifest manifest = new RowManifest(header[2]);
+      manifest.documentLength = Long.parseLong(header[3]);
+      manifest.documentDigest = header[4];
+      manifest.prefixLength = Integer.parseInt(header[5]);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final int space = line.indexOf(' ');
+        manifest.add(line.substring(0, space), Integer.parseInt(line.substring(space + 1)));
+      }
+      return manifest;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (RuntimeException e) {
+      // malformed
+      return null;
+    }
+  }
+
+  static String toHex(byte[] bytes, int length) {
+    final char[] chars = new char[length * 2];
+    for (int i = 0; i < length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+
+  private String documentDigest = "";
+  private long documentLength;
+  private final String format;
+  private final List<String> hashes = new ArrayList<>();
+  private final List<Integer> lengths = new ArrayList<>();
+  private int prefixLength;
+
+  RowManifest(String format) {
+    this.format = format;
+  }
+
+  /**
+   * Appends a row in document order
+   * 
+   * @param hash content hash of the row
+   * @param length length of its rendered text in bytes
+   */
+  void add(String hash, int length) {
+    hashes.add(hash);
+    lengths.add(length);
+  }
+
+  /**
+   * Returns the position of the rendered text of each row in the document, by row hash
+   * 
+   * @return map of row hash to an array of byte offset and length
+   */
+  Map<String, int[]> fragments() {
+    final Map<String, int[]> fragments = new HashMap<>(hashes.size() * 2);
+    int offset = prefixLength;
+    for (int i = 0; i < hashes.size(); i++) {
+      fragments.put(hashes.get(i), new int[] {offset, lengths.get(i)});
+      offset += lengths.get(i);
+    }
+    return fragments;
+  }
+
+  String getFormat() {
+    return format;
+  }
+
+  /**
+   * Tells whether a document is the one this manifest describes
+   */
+  boolean matches(byte[] document) {
+    return document.length == documentLength
+        && documentDigest.equals(toHex(digest().digest(document), ROW_HASH_BYTES * 2));
+  }
+
+  void setDocument(long length, byte[] digest, int prefixLength) {
+    this.documentLength = length;
+    this.documentDigest = toHex(digest, ROW_HASH_BYTES * 2);
+    this.prefixLength = prefixLength;
+  }
+
+  void write(Path path) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      writer.write(String.join(" ", SIGNATURE, Integer.toString(VERSION), format,
+          Long.toString(documentLength), documentDigest, Integer.toString(prefixLength)));
+      writer.newLine();
+      for (int i = 0; i < hashes.size(); i++) {
+        writer.write(hashes.get(i));
+        writer.write(' ');
+        writer.write(Integer.toString(lengths.get(i)));
+        writer.newLine();
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * An order of glossary rows by term, with a sort key computed once per row
+ * 
+ * Rows are sorted by key, then term rows before synonym rows with an equal key, then in their
+ * original order. Keys are computed and rows sorted on multiple threads.
+ * 
+ * @author Don Mendelson
+ *
+ * @param <K> type of sort key
+ */
+public final class RowOrder<K> {
+
+  private static final class SortEntry<K> {
+    final K key;
+    final GlossaryRow row;
+
+    SortEntry(K key, GlossaryRow row) {
+      this.key = key;
+      this.row = row;
+    }
+  }
+
+  /**
+   * Orders text case-insensitively, and text that differs only by case by code point
+   * 
+   * @return an order
+   */
+  public static RowOrder<String[]> caseInsensitive() {
+    return new RowOrder<>(
+        text -> new String[] {text.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT), text},
+        Comparator.<String[], String>comparing(k -> k[0], RowOrder::compareCodePoints)
+            .thenComparing(k -> k[1], RowOrder::compareCodePoints));
+  }
+
+  /**
+   * Orders text by Unicode code point
+   * 
+   * This differs from {@link String#compareTo(String)}, which compares UTF-16 code units, only
+   * for supplementary characters.
+   * 
+   * @return an order
+   */
+  public static RowOrder<String> codePoint() {
+    return new RowOrder<>(Function.identity(), RowOrder::compareCodePoints);
+  }
+
+  /**
+   * Orders text by the collation rules of a locale
+   * 
+   * @param locale locale of collation
+   * @return an order
+   */
+  public static RowOrder<CollationKey> collator(Locale locale) {
+    return collator(Collator.getInstance(locale));
+  }
+
+  /**
+   * Orders text by a collator
+   * 
+   * @param collator a collator. It is not modified; each thread computes keys with a clone, since
+   *        a collator is not thread-safe.
+   * @return an order
+   */
+  public static RowOrder<CollationKey> collator(Collator collator) {
+    final ThreadLocal<Collator> collators =
+        ThreadLocal.withInitial(() -> (Collator) collator.clone());
+    return new RowOrder<>(text -> collators.get().getCollationKey(text), CollationKey::compareTo);
+  }
+
+  /**
+   * Orders text by a custom sort key
+   * 
+   * @param <K> type of sort key
+   * @param keyFunction computes the sort key of a term. It must be thread-safe.
+   * @param comparator order of keys
+   * @return an order
+   */
+  public static <K> RowOrder<K> of(Function<String, K> keyFunction,
+      Comparator<? super K> comparator) {
+    return new RowOrder<>(keyFunction, comparator);
+  }
+
+  static int compareCodePoints(String a, String b) {
+    final int length = Math.min(a.length(), b.length());
+    for (int i = 0; i < length; i++) {
+      int c1 = a.charAt(i);
+      int c2 = b.charAt(i);
+      if (c1 != c2) {
+        // Move surrogates above the rest of the BMP so that code units compare as code points
+        if (c1 >= Character.MIN_SURROGATE && c2 >= Character.MIN_SURROGATE) {
+          c1 += c1 > Character.MAX_SURROGATE ? -0x800 : 0x2000;
+          c2 += c2 > Character.MAX_SURROGATE ? -0x800 : 0x2000;
+        }
+        return c1 - c2;
+      }
+    }
+    return a.length() - b.length();
+  }
+
+  private final Comparator<? super K> comparator;
+  private final Comparator<SortEntry<K>> entryComparator;
+  private final Function<String, K> keyFunction;
+
+  private RowOrder(Function<String, K> keyFunction, Comparator<? super K> comparator) {
+    this.keyFunction = keyFunction;
+    this.comparator = comparator;
+    this.entryComparator = Comparator.<SortEntry<K>, K>comparing(e -> e.key, comparator)
+        .thenComparing(e -> e.row.isSynonym());
+  }
+
+  /**
+   * Returns the later of two terms in this order. Of terms with equal keys, the later by code point
+   * is returned, so the result does not depend on the order of arguments.
+   * 
+   * @param a a term
+   * @param b another term
+   * @return the later term
+   */
+  String later(String a, String b) {
+    int result = comparator.compare(keyFunction.apply(a), keyFunction.apply(b));
+    if (result == 0) {
+      result = compareCodePoints(a, b);
+    }
+    return result >= 0 ? a : b;
+  }
+
+  /**
+   * Sorts rows
+   * 
+   * @param rows rows in any order
+   * @return a new list of rows in order
+   */
+  List<GlossaryRow> sort(List<GlossaryRow> rows) {
+    @SuppressWarnings("unchecked")
+    final SortEntry<K>[] entries = (SortEntry<K>[]) new SortEntry<?>[rows.size()];
+    Arrays.parallelSetAll(entries,
+        i -> new SortEntry<>(keyFunction.apply(rows.get(i).term), rows.get(i)));
+    // Stable, so rows with equal keys keep their original order
+    Arrays.parallelSort(entries, entryComparator);
+    final GlossaryRow[] sorted = new GlossaryRow[entries.length];
+    Arrays.parallelSetAll(sorted, i -> entries[i].row);
+    return Arrays.asList(sorted);
+  }
+}
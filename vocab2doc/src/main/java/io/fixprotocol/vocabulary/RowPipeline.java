@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.jena.query.Dataset;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Counter;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.output.OutputSink;
+import io.fixprotocol.text.TextFormatter;
+
+/**
+ * Generates a glossary table in three concurrent stages
+ * 
+ * <ol>
+ * <li>A producer thread executes the query once, merges synonyms in the same pass and cuts rows
+ * into batches in order.</li>
+ * <li>A pool of workers renders and encodes batches in parallel.</li>
+ * <li>The calling thread writes rendered batches to the sink in order.</li>
+ * </ol>
+ * The producer queues the pending result of each batch in sequence, so the writer takes them in
+ * the order of the query without reordering. The queue is bounded, so the producer stalls when
+ * rendering or writing falls behind and rendered output held in memory stays bounded. Rows
+ * themselves are all held in memory, since synonyms can only be merged once the query has been
+ * read to its end.
+ * <p>
+ * The producer always queues a final element, either the end of batches or its failure, and the
+ * writer also watches the producer, so a failure of any kind ends the pipeline rather than leaving
+ * the writer waiting.
+ * 
+ * @author Don Mendelson
+ *
+ */
+final class RowPipeline {
+
+  static final int DEFAULT_BATCH_SIZE = 256;
+
+  // Marks the end of batches
+  private static final Future<byte[]> END = CompletableFuture.completedFuture(null);
+
+  // How long the writer waits for a batch before checking whether the producer has ended
+  private static final long PRODUCER_CHECK_MILLIS = 100;
+
+  /**
+   * Takes the next rendered batch, or fails if the producer has ended without queuing one
+   */
+  private static Future<byte[]> next(BlockingQueue<Future<byte[]>> rendered,
+      Future<?> production) throws InterruptedException, ExecutionException, IOException {
+    for (;;) {
+      final Future<byte[]> batch = rendered.poll(PRODUCER_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+      if (batch != null) {
+        return batch;
+      } else if (production.isDone()) {
+        // The producer may have queued its last element after the poll timed out
+        final Future<byte[]> last = rendered.poll();
+        if (last != null) {
+          return last;
+        }
+        production.get();
+        throw new IOException("Glossary rows ended without end of batches");
+      }
+    }
+  }
+
+  private static byte[] render(List<GlossaryRow> batch, TextFormatter formatter)
+      throws IOException {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.RENDER);
+    final StringBuilder sb = new StringBuilder(batch.size() * 256);
+    for (GlossaryRow row : batch) {
+      row.write(sb, formatter);
+    }
+    final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+    instrumentation.stop(Stage.RENDER, start);
+    instrumentation.count(Counter.ROWS, batch.size());
+    return bytes;
+  }
+
+  private final int batchSize;
+  private final int queueCapacity;
+  private final int workerCount;
+
+  /**
+   * Constructs a pipeline
+   * 
+   * @param workerCount number of threads that render rows
+   * @param batchSize number of rows rendered as a unit
+   */
+  RowPipeline(int workerCount, int batchSize) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("Number of workers must be positive");
+    }
+    this.workerCount = workerCount;
+    this.batchSize = batchSize;
+    this.queueCapacity = workerCount * 4;
+  }
+
+  /**
+   * Generates the glossary of a vocabulary
+   * 
+   * @param dataset vocabulary
+   * @param sink destination of the UTF-8 encoded table. It is not closed.
+   * @param formatter text format
+   * @throws IOException if the query fails or the sink cannot be written
+   */
+  void run(Dataset dataset, OutputSink sink, TextFormatter formatter) throws IOException {
+    final BlockingQueue<Future<byte[]>> rendered = new ArrayBlockingQueue<>(queueCapacity);
+    final ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+    final ExecutorService producer = Executors.newSingleThreadExecutor();
+    try {
+      final Future<?> production = producer.submit(() -> {
+        produce(dataset, formatter, workers, rendered);
+        return null;
+      });
+      final StringBuilder sb = new StringBuilder();
+      Vocabulary2Doc.startTable(sb, formatter);
+      sink.write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+      for (;;) {
+        final byte[] batch = next(rendered, production).get();
+        if (batch == null) {
+          break;
+        }
+        sink.write(ByteBuffer.wrap(batch));
+      }
+      sb.setLength(0);
+      formatter.endTable(sb);
+      sink.write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted generating glossary", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new IOException(cause);
+      }
+    } finally {
+      producer.shutdownNow();
+      workers.shutdownNow();
+    }
+  }
+
+  private void produce(Dataset dataset, TextFormatter formatter, ExecutorService workers,
+      BlockingQueue<Future<byte[]>> rendered) throws InterruptedException {
+    Future<byte[]> last = END;
+    try {
+      final List<GlossaryRow> rows = new Vocabulary2Doc().queryRows(dataset);
+      for (int from = 0; from < rows.size(); from += batchSize) {
+        final List<GlossaryRow> work = rows.subList(from, Math.min(from + batchSize, rows.size()));
+        rendered.put(workers.submit(() -> render(work, formatter)));
+      }
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Throwable e) {
+      last = CompletableFuture.failedFuture(e);
+    }
+    rendered.put(last);
+  }
+}
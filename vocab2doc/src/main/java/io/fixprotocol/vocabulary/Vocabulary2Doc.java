@@ -15,20 +15,46 @@
 
 package io.fixprotocol.vocabulary;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.apache.jena.riot.RDFDataMgr;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Counter;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.metrics.TimingSummary;
+import io.fixprotocol.output.EncodingWriter;
+import io.fixprotocol.output.FileChannelSink;
+import io.fixprotocol.output.GzipSink;
+import io.fixprotocol.output.MemorySink;
+import io.fixprotocol.output.OutputSink;
+import io.fixprotocol.snapshot.Snapshot;
 import io.fixprotocol.sparql.Query2Doc;
 import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryRegistry;
 import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.sparql.TdbStore;
 import io.fixprotocol.text.TextFormatter;
 import io.fixprotocol.text.TextFormatterFactory;
 
@@ -40,38 +66,146 @@ import io.fixprotocol.text.TextFormatterFactory;
  */
 public class Vocabulary2Doc {
 
+  /**
+   * Name of the query resource that selects all terms
+   */
+  static final String ALLTERMS_QUERY = "allterms";
+
+  /**
+   * Name of the query resource that selects all terms without ordering
+   */
+  static final String UNORDERED_QUERY = "unorderedterms";
+
+  /**
+   * File extension that selects gzip compression of output
+   */
+  static final String GZIP_EXTENSION = ".gz";
+
+  static final List<String> COLUMN_TITLES = List.of("Term", "Definition");
+
+  /**
+   * Command line option that selects {@link #generateIncremental(String, String, String)}
+   */
+  public static final String INCREMENTAL_OPTION = "--incremental";
+
+  /**
+   * Command line option that prints a summary of time spent in each stage to standard error
+   */
+  public static final String TIMING_OPTION = "--timing";
+
+  /**
+   * Default approximate number of characters buffered in memory by each stage of
+   * {@link #generateStreaming(String, String, String, long)}
+   */
+  public static final long DEFAULT_STREAMING_BUFFER = 16 * 1024 * 1024;
+
+  private static final Comparator<String[]> SYNONYM_ORDER =
+      Comparator.<String[], String>comparing(r -> r[0]).thenComparing(r -> r[1]);
+  private static final Comparator<String[]> TERM_ORDER = Comparator.comparing(r -> r[0]);
+
+  /**
+   * A destination of a document in a text format
+   */
+  public static final class Output {
+    private final Appendable appendable;
+    private final TextFormatter formatter;
+
+    /**
+     * Constructs an Output
+     * 
+     * @param appendable destination of text, for example a {@link Writer}. It is not closed.
+     * @param formatter text format
+     */
+    public Output(Appendable appendable, TextFormatter formatter) {
+      this.appendable = appendable;
+      this.formatter = formatter;
+    }
+
+    public Appendable getAppendable() {
+      return appendable;
+    }
+
+    public TextFormatter getFormatter() {
+      return formatter;
+    }
+  }
 
   /**
    * Generates a document from a controlled vocabulary
    * 
-   * @param args command line arguments
+   * @param args command line arguments, optionally preceded by {@code --incremental} to render
+   *        only rows changed since the last run, and {@code --timing} to print a summary of time
+   *        spent in each stage
    *        <ol>
-   *        <li>URI of the controlled vocabulary</li>
+   *        <li>URI of the controlled vocabulary, or name of a snapshot file with extension
+   *        {@code .fxvs}. A snapshot cannot be rendered incrementally.</li>
    *        <li>Name of file to write</li>
    *        <li>Code for output format. Defaults to HTML. See
    *        {@link io.fixprotocol.TextFormatterFactory} for valid codes.</li>
+   *        <li>Optional directory of a persistent store. The vocabulary is loaded into the store
+   *        only if it changed since the last run, then queried from the store. Other vocabularies
+   *        in the store are not rendered. May be combined with {@code --incremental}, but not
+   *        with a snapshot file.</li>
    *        </ol>
    * @throws IOException If an I/O error occurs
    * 
    */
   public static void main(String[] args) throws IOException {
-    if (args.length < 2) {
+    boolean incremental = false;
+    boolean timing = false;
+    int first = 0;
+    for (; first < args.length && args[first].startsWith("--"); first++) {
+      if (INCREMENTAL_OPTION.equals(args[first])) {
+        incremental = true;
+      } else if (TIMING_OPTION.equals(args[first])) {
+        timing = true;
+      } else {
+        break;
+      }
+    }
+    if (args.length - first < 2) {
+      useage();
+    } else if (args[first].endsWith(Snapshot.FILE_EXTENSION)
+        && (incremental || args.length - first > 3)) {
+      System.err.println("A snapshot cannot be rendered incrementally or loaded into a store");
       useage();
     } else {
-      String uri = args[0];
-      String fileName = args[1];
+      String uri = args[first];
+      String fileName = args[first + 1];
       String format = TextFormatterFactory.HTML;
-      if (args.length > 2) {
-        format = args[2];
+      if (args.length - first > 2) {
+        format = args[first + 2];
+      }
+      TimingSummary summary = null;
+      if (timing) {
+        summary = new TimingSummary();
+        Instrumentation.setDefault(summary);
       }
       Vocabulary2Doc vocabulary2Doc = new Vocabulary2Doc();
-      vocabulary2Doc.generate(uri, fileName, format);
+      if (args.length - first > 3) {
+        TdbStore store = new TdbStore(args[first + 3]);
+        store.update(uri);
+        if (incremental) {
+          vocabulary2Doc.generateIncremental(store.getDataset(uri), fileName, format);
+        } else {
+          vocabulary2Doc.generate(store.getDataset(uri), fileName, format);
+        }
+      } else if (incremental) {
+        vocabulary2Doc.generateIncremental(uri, fileName, format);
+      } else if (uri.endsWith(Snapshot.FILE_EXTENSION)) {
+        vocabulary2Doc.generateFromSnapshot(uri, fileName, format);
+      } else {
+        vocabulary2Doc.generate(uri, fileName, format);
+      }
+      if (summary != null) {
+        summary.print(System.err);
+      }
     }
   }
 
   public static void useage() {
-    System.err.println(
-        "Useage: java io.fixprotocol.vocabulary.Vocabulary2Doc <in-URI> <out-file> [html|md]");
+    System.err.println("Useage: java io.fixprotocol.vocabulary.Vocabulary2Doc [--incremental] [--timing]"
+        + " <in-URI> <out-file> [html|md] [store-dir]");
   }
 
   static void writeCell(Appendable appendable, TextFormatter formatter, String value) throws IOException {
@@ -82,118 +216,618 @@ public class Vocabulary2Doc {
 
   static void writeColumnTitles(List<String> colTitles, Appendable appendable, TextFormatter formatter)
       throws IOException {
-    formatter.startRow(appendable);
+    formatter.columnHeadings(appendable, colTitles);
+  }
+
+  /**
+   * Generates a document from a controlled vocabulary
+   * 
+   * The vocabulary is loaded and queried once. Synonyms and terms are both collected from that
+   * single result set, then merged in term order.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @throws IOException If an I/O error occurs
+   */
+  public void generate(String sourceUri, String targetFilename, String format) throws IOException {
+    generate(new Query2Doc().getDataset(sourceUri), targetFilename, format);
+  }
+
+  /**
+   * Generates a document from a loaded controlled vocabulary
+   * 
+   * @param dataset vocabulary, for example from a {@link TdbStore}
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @throws IOException If an I/O error occurs
+   */
+  public void generate(Dataset dataset, String targetFilename, String format) throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    try (Writer writer = openWriter(targetFilename)) {
+      writeTable(writer, formatter, queryRows(dataset).iterator());
+    }
+  }
+
+  /**
+   * Generates a document with rows sorted in memory rather than by the query engine
+   * 
+   * Terms and synonyms are sorted together in a single parallel sort with sort keys computed once
+   * per row. A synonym of more than one term refers to the last of them in the order. With
+   * {@link RowOrder#codePoint()}, the document matches one written by
+   * {@link #generate(String, String, String)}, except that synonyms that sort after the last term
+   * are included.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param order order of rows, for example {@link RowOrder#caseInsensitive()}
+   * @throws IOException If an I/O error occurs
+   */
+  public void generateSorted(String sourceUri, String targetFilename, String format,
+      RowOrder<?> order) throws IOException {
+    generateSorted(new Query2Doc().getDataset(sourceUri), targetFilename, format, order);
+  }
 
-    for (String colTitle : colTitles) {
-      formatter.startColumnHeading(appendable);
-      formatter.render(appendable, colTitle);
-      formatter.endColumnHeading(appendable);
+  /**
+   * Generates a document from a loaded vocabulary with rows sorted in memory
+   * 
+   * @param dataset vocabulary
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param order order of rows
+   * @throws IOException If an I/O error occurs
+   */
+  public void generateSorted(Dataset dataset, String targetFilename, String format,
+      RowOrder<?> order) throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    try (Writer writer = openWriter(targetFilename)) {
+      writeTable(writer, formatter, sortedRows(dataset, order).iterator());
     }
+  }
+
+  /**
+   * Generates a document with querying, rendering and writing overlapped on multiple threads
+   * 
+   * The document is identical to one written by {@link #generate(String, String, String)}.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param workers number of threads that render rows
+   * @throws IOException If an I/O error occurs
+   */
+  public void generatePipelined(String sourceUri, String targetFilename, String format,
+      int workers) throws IOException {
+    generatePipelined(new Query2Doc().getDataset(sourceUri), targetFilename, format, workers);
+  }
 
-    formatter.endRow(appendable);
+  /**
+   * Generates a document from a loaded vocabulary with querying, rendering and writing overlapped
+   * on multiple threads
+   * 
+   * @param dataset vocabulary
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param workers number of threads that render rows
+   * @throws IOException If an I/O error occurs
+   */
+  public void generatePipelined(Dataset dataset, String targetFilename, String format,
+      int workers) throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    try (OutputSink sink = openSink(targetFilename)) {
+      new RowPipeline(workers, RowPipeline.DEFAULT_BATCH_SIZE).run(dataset, sink, formatter);
+    }
   }
 
   /**
-   * Generates a document from a controlled vocabulary
+   * Regenerates a document, rendering only rows that changed since it was last generated
+   * 
+   * A manifest of row content hashes is kept next to the document, in a file with the name of the
+   * document plus {@code .rows}. The rendered text of a row whose hash is in the manifest is copied
+   * from the previous document; other rows are rendered by the formatter. If there is no usable
+   * manifest, or the document no longer matches it, every row is rendered. Compressed documents
+   * are always generated in full.
    * 
    * @param sourceUri vocabulary URI
    * @param targetFilename name of document file to write
    * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
    *        codes.
+   * @return number of rows rendered
    * @throws IOException If an I/O error occurs
    */
-  public void generate(String sourceUri, String targetFilename, String format) throws IOException {
-    try (Writer writer = new FileWriter(targetFilename, StandardCharsets.UTF_8)) {
+  public int generateIncremental(String sourceUri, String targetFilename, String format)
+      throws IOException {
+    return generateIncremental(new Query2Doc().getDataset(sourceUri), targetFilename, format);
+  }
 
-      InputStream querySource = this.getClass().getClassLoader().getResourceAsStream("allterms.rq");
-      if (querySource == null) {
-        throw new IOException("Query resource not found");
+  /**
+   * Regenerates a document from a loaded vocabulary, rendering only rows that changed since it was
+   * last generated
+   * 
+   * @param dataset vocabulary
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @return number of rows rendered
+   * @throws IOException If an I/O error occurs
+   * @see #generateIncremental(String, String, String)
+   */
+  public int generateIncremental(Dataset dataset, String targetFilename, String format)
+      throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    final List<GlossaryRow> rows = queryRows(dataset);
+    if (targetFilename.endsWith(GZIP_EXTENSION)) {
+      try (Writer writer = openWriter(targetFilename)) {
+        writeTable(writer, formatter, rows.iterator());
       }
-      try (ByteArrayOutputStream queryTarget = new ByteArrayOutputStream(2048)) {
-        querySource.transferTo(queryTarget);
-        final String queryString = queryTarget.toString(StandardCharsets.UTF_8);
-        final TextFormatter formatter = TextFormatterFactory.create(format);
-        final SortedMap<String, String> synonyms = getSynonyms(sourceUri, queryString);
-        final Iterator<Entry<String, String>> synonymIter = synonyms.entrySet().iterator();
-        Entry<String, String> synonymEntry = null;
-        if (synonymIter.hasNext()) {
-          synonymEntry = synonymIter.next();
-        }
-        
-        final Query2Doc query2Doc = new Query2Doc();
-        final QueryResultSet resultSet = query2Doc.executeSelect(sourceUri, queryString);
-        formatter.startTable(writer);
-        final List<String> colTitles = List.of("Term", "Definition");
-        writeColumnTitles(colTitles, writer, formatter);
-
-        while (resultSet.hasNext()) {
-          final QueryResultRecord record = resultSet.next();
-          final String term = record.getValue("term");
-
-          while (synonymEntry != null && synonymEntry.getKey().compareTo(term) < 0) {
-            formatter.startRow(writer);
-            writeCell(writer, formatter, synonymEntry.getKey());
-            formatter.startCell(writer);
-            formatter.startBold(writer);
-            formatter.render(writer, "See: ");
-            formatter.endBold(writer);
-            formatter.render(writer, synonymEntry.getValue());
-            formatter.endCell(writer);
-            formatter.endRow(writer);
-            if (synonymIter.hasNext()) {
-              synonymEntry = synonymIter.next();
-            } else {
-              synonymEntry = null;
-            }
-          }
-          
-          formatter.startRow(writer);
-          writeCell(writer, formatter, term);
-          String definition = record.getValue("definition");  
-          String source = record.getValue("source");
-          String spec = record.getValue("spec");              
-          formatter.startCell(writer);
-          formatter.render(writer, definition);
-          if (!source.isEmpty()) {
-            formatter.lineBreak(writer);
-            formatter.startBold(writer);
-            formatter.render(writer, "Source: ");
-            formatter.endBold(writer);
-            formatter.render(writer, source);
-          }
-          if (!spec.isEmpty()) {
-            formatter.lineBreak(writer);
-            formatter.startBold(writer);
-            formatter.render(writer, "Specification: ");
-            formatter.endBold(writer);
-            formatter.render(writer, spec);
+      return rows.size();
+    }
+
+    final Path target = Paths.get(targetFilename).toAbsolutePath();
+    final Path manifestPath = Paths.get(target + RowManifest.FILE_EXTENSION);
+    byte[] previous = null;
+    Map<String, int[]> fragments = Map.of();
+    final RowManifest previousManifest = RowManifest.read(manifestPath);
+    if (previousManifest != null && previousManifest.getFormat().equals(format)
+        && Files.exists(target)) {
+      previous = Files.readAllBytes(target);
+      if (previousManifest.matches(previous)) {
+        fragments = previousManifest.fragments();
+      }
+    }
+
+    final RowManifest manifest = new RowManifest(format);
+    final MessageDigest rowDigest = RowManifest.digest();
+    final MessageDigest documentDigest = RowManifest.digest();
+    final StringBuilder text = new StringBuilder();
+    int rendered = 0;
+    final Path temp =
+        Files.createTempFile(target.getParent(), target.getFileName().toString(), null);
+    try {
+      long length;
+      final int prefixLength;
+      try (OutputSink sink = new FileChannelSink(temp)) {
+        final ByteBuffer buffer = ByteBuffer.allocate(EncodingWriter.DEFAULT_BUFFER_SIZE);
+        startTable(text, formatter);
+        prefixLength = put(sink, buffer, documentDigest, text.toString()
+            .getBytes(StandardCharsets.UTF_8), 0, -1);
+        for (GlossaryRow row : rows) {
+          final String hash = RowManifest.hash(row, rowDigest);
+          final int[] fragment = fragments.get(hash);
+          final int rowLength;
+          if (fragment != null) {
+            rowLength = put(sink, buffer, documentDigest, previous, fragment[0], fragment[1]);
+          } else {
+            text.setLength(0);
+            row.write(text, formatter);
+            rowLength = put(sink, buffer, documentDigest,
+                text.toString().getBytes(StandardCharsets.UTF_8), 0, -1);
+            rendered++;
           }
-          formatter.endCell(writer);
-          formatter.endRow(writer);
+          manifest.add(hash, rowLength);
         }
-        formatter.endTable(writer);
-        resultSet.close();
+        text.setLength(0);
+        formatter.endTable(text);
+        put(sink, buffer, documentDigest, text.toString().getBytes(StandardCharsets.UTF_8), 0, -1);
+        if (buffer.position() > 0) {
+          buffer.flip();
+          sink.write(buffer);
+        }
+        length = sink.getBytesWritten();
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      manifest.setDocument(length, documentDigest.digest(), prefixLength);
+      manifest.write(manifestPath);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return rendered;
+  }
+
+  /**
+   * Appends bytes to a staging buffer, writing it to a sink whenever it fills
+   * 
+   * @param length number of bytes to append, or -1 for all bytes from offset
+   * @return number of bytes appended
+   */
+  private static int put(OutputSink sink, ByteBuffer buffer, MessageDigest digest, byte[] bytes,
+      int offset, int length) throws IOException {
+    final int total = length < 0 ? bytes.length - offset : length;
+    digest.update(bytes, offset, total);
+    int position = offset;
+    int remaining = total;
+    while (remaining > 0) {
+      final int n = Math.min(remaining, buffer.remaining());
+      buffer.put(bytes, position, n);
+      position += n;
+      remaining -= n;
+      if (!buffer.hasRemaining()) {
+        buffer.flip();
+        sink.write(buffer);
+        buffer.clear();
       }
     }
+    return total;
+  }
+
+  /**
+   * Generates a document from a snapshot of the all terms query
+   * 
+   * No RDF is parsed, so this is much faster to start than generating from a vocabulary source.
+   * 
+   * @param snapshotFilename name of a file written by {@link Snapshot#export}
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @throws IOException If an I/O error occurs
+   */
+  public void generateFromSnapshot(String snapshotFilename, String targetFilename, String format)
+      throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    final Snapshot snapshot = Snapshot.open(Paths.get(snapshotFilename));
+    try (Writer writer = openWriter(targetFilename)) {
+      writeTable(writer, formatter, mergeRows(snapshot.cursor()).iterator());
+    }
+  }
+
+  /**
+   * Generates a document from a loaded controlled vocabulary to a sink
+   * 
+   * @param dataset vocabulary
+   * @param sink destination of UTF-8 encoded document, for example a {@link MemorySink}. It is
+   *        closed on return.
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param bufferSize number of characters to buffer before encoding and writing to the sink
+   * @throws IOException If an I/O error occurs
+   */
+  public void generate(Dataset dataset, OutputSink sink, String format, int bufferSize)
+      throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    try (Writer writer = new EncodingWriter(sink, bufferSize)) {
+      writeTable(writer, formatter, queryRows(dataset).iterator());
+    }
   }
 
-  SortedMap<String, String> getSynonyms(String sourceUri, String queryString) throws IOException {
-    final Query2Doc query2Doc = new Query2Doc();
-    final QueryResultSet resultSetForSynonyms = query2Doc.executeSelect(sourceUri, queryString);
+  /**
+   * Generates a document in multiple formats from a controlled vocabulary
+   * 
+   * The vocabulary is loaded, queried and merged with synonyms once, regardless of the number of
+   * formats.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param targetFilenames map of format code to name of document file to write. See
+   *        {@link io.fixprotocol.TextFormatterFactory} for valid codes.
+   * @throws IOException If an I/O error occurs
+   */
+  public void generate(String sourceUri, Map<String, String> targetFilenames) throws IOException {
+    final Dataset dataset = new Query2Doc().getDataset(sourceUri);
+    final List<Writer> writers = new ArrayList<>(targetFilenames.size());
+    Throwable primary = null;
     try {
-      SortedMap<String, String> synonyms = new TreeMap<>();
-      while (resultSetForSynonyms.hasNext()) {
-        final QueryResultRecord record = resultSetForSynonyms.next();
-        String term = record.getValue("term");
-        String synonym = record.getValue("synonym");
-        if (!synonym.isEmpty()) {
-          synonyms.put(synonym, term);
+      final List<Output> outputs = new ArrayList<>(targetFilenames.size());
+      for (Entry<String, String> entry : targetFilenames.entrySet()) {
+        final TextFormatter formatter = TextFormatterFactory.getInstance(entry.getKey());
+        final Writer writer = openWriter(entry.getValue());
+        writers.add(writer);
+        outputs.add(new Output(writer, formatter));
+      }
+      generate(dataset, outputs);
+    } catch (Throwable e) {
+      primary = e;
+      throw e;
+    } finally {
+      closeAll(writers, primary);
+    }
+  }
+
+  /**
+   * Closes all of a list of resources, even if some fail
+   * 
+   * @param resources resources to close
+   * @param primary exception that ended use of the resources, or {@code null} if none. Failures
+   *        to close are added to it as suppressed exceptions, so that they do not replace it.
+   * @throws IOException the first failure to close if there is no primary exception, with any
+   *         further failures suppressed
+   */
+  static void closeAll(List<? extends Closeable> resources, Throwable primary)
+      throws IOException {
+    IOException failure = null;
+    for (Closeable resource : resources) {
+      try {
+        resource.close();
+      } catch (IOException e) {
+        if (primary != null) {
+          primary.addSuppressed(e);
+        } else if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
         }
       }
-      return synonyms;
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Generates a document to multiple outputs from a loaded controlled vocabulary
+   * 
+   * Each row is produced once from a single pass over the query results, then written to every
+   * output.
+   * 
+   * @param dataset vocabulary
+   * @param outputs destinations and their formats
+   * @throws IOException If an I/O error occurs
+   */
+  public void generate(Dataset dataset, List<Output> outputs) throws IOException {
+    final List<GlossaryRow> rows = queryRows(dataset);
+    for (Output output : outputs) {
+      startTable(output.appendable, output.formatter);
+    }
+    for (GlossaryRow row : rows) {
+      for (Output output : outputs) {
+        row.write(output.appendable, output.formatter);
+      }
+    }
+    for (Output output : outputs) {
+      output.formatter.endTable(output.appendable);
+    }
+  }
+
+  /**
+   * Generates a document from a controlled vocabulary without loading it into memory, using a
+   * default buffer size
+   * 
+   * @param sourceUri vocabulary URI
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @throws IOException If an I/O error occurs
+   * @see #generateStreaming(String, String, String, long)
+   */
+  public void generateStreaming(String sourceUri, String targetFilename, String format)
+      throws IOException {
+    generateStreaming(sourceUri, targetFilename, format, DEFAULT_STREAMING_BUFFER);
+  }
+
+  /**
+   * Generates a document from a controlled vocabulary without loading it into memory
+   * 
+   * Triples are streamed from the source, grouped by concept and sorted by term with bounded
+   * buffering, spilling to temporary files as needed. The document is the same as produced by
+   * {@link #generate(String, String, String)}.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param targetFilename name of document file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @param maxBufferedChars approximate number of characters to hold in memory for each sorting
+   *        stage before spilling to disk
+   * @throws IOException If an I/O error occurs
+   */
+  public void generateStreaming(String sourceUri, String targetFilename, String format,
+      long maxBufferedChars) throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    try (Writer writer = openWriter(targetFilename);
+        ConceptCollector collector = new ConceptCollector(maxBufferedChars);
+        ExternalSorter terms = new ExternalSorter(TERM_ORDER, maxBufferedChars);
+        ExternalSorter synonyms = new ExternalSorter(SYNONYM_ORDER, maxBufferedChars)) {
+      try {
+        RDFDataMgr.parse(collector, sourceUri);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      collector.emitRows(terms, synonyms);
+
+      final Iterator<String[]> termRecords = terms.sorted();
+      final Iterator<GlossaryRow> termRows = new Iterator<>() {
+
+        @Override
+        public boolean hasNext() {
+          return termRecords.hasNext();
+        }
+
+        @Override
+        public GlossaryRow next() {
+          final String[] record = termRecords.next();
+          return new GlossaryRow(record[0], record[1], record[2], record[3]);
+        }
+      };
+
+      // Where a synonym belongs to more than one term, the last term wins, as in generate()
+      final Iterator<String[]> synonymRecords = synonyms.sorted();
+      final Iterator<Entry<String, String>> synonymEntries = new Iterator<>() {
+        private String[] pending = synonymRecords.hasNext() ? synonymRecords.next() : null;
+
+        @Override
+        public boolean hasNext() {
+          return pending != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+          String[] record = pending;
+          pending = null;
+          while (synonymRecords.hasNext()) {
+            final String[] nextRecord = synonymRecords.next();
+            if (nextRecord[0].equals(record[0])) {
+              record = nextRecord;
+            } else {
+              pending = nextRecord;
+              break;
+            }
+          }
+          return new SimpleImmutableEntry<>(record[0], record[1]);
+        }
+      };
+
+      writeTable(writer, formatter, new GlossaryRow.Merger(termRows, synonymEntries));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Queries a vocabulary and merges synonyms into its terms in a single pass over results
+   * 
+   * @param dataset vocabulary
+   * @return rows of a glossary table in order
+   * @throws IOException If the query cannot be loaded
+   */
+  List<GlossaryRow> queryRows(Dataset dataset) throws IOException {
+    final Query query = QueryRegistry.getDefault().getQuery(ALLTERMS_QUERY);
+    return mergeRows(new Query2Doc().executeSelectCursor(dataset, query, null));
+  }
+
+  /**
+   * Queries a vocabulary without ordering and sorts its terms and synonyms together. A synonym of
+   * more than one term refers to the last of them in the order, regardless of query result order.
+   * 
+   * @param dataset vocabulary
+   * @param order order of rows
+   * @return rows of a glossary table in order
+   * @throws IOException If the query cannot be loaded
+   */
+  List<GlossaryRow> sortedRows(Dataset dataset, RowOrder<?> order) throws IOException {
+    final Query query = QueryRegistry.getDefault().getQuery(UNORDERED_QUERY);
+    final QueryResultSet resultSet = new Query2Doc().executeSelectCursor(dataset, query, null);
+    final List<GlossaryRow> rows = new ArrayList<>();
+    final Map<String, String> synonyms = new HashMap<>();
+    try {
+      collectRows(resultSet, rows, synonyms, order::later);
     } finally {
-      resultSetForSynonyms.close();
+      resultSet.close();
+    }
+    for (Entry<String, String> synonym : synonyms.entrySet()) {
+      rows.add(GlossaryRow.synonym(synonym.getKey(), synonym.getValue()));
+    }
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.MERGE);
+    final List<GlossaryRow> sorted = order.sort(rows);
+    instrumentation.stop(Stage.MERGE, start);
+    return sorted;
+  }
+
+  /**
+   * Merges synonyms into terms in a single pass over results of the all terms query
+   * 
+   * @param resultSet results ordered by term. It is consumed and closed.
+   * @return rows of a glossary table in order
+   */
+  List<GlossaryRow> mergeRows(QueryResultSet resultSet) {
+    final List<GlossaryRow> terms = new ArrayList<>();
+    final SortedMap<String, String> synonyms = new TreeMap<>();
+    try {
+      collectRows(resultSet, terms, synonyms);
+    } finally {
+      resultSet.close();
+    }
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.MERGE);
+    final List<GlossaryRow> rows = new ArrayList<>(terms.size() + synonyms.size());
+    new GlossaryRow.Merger(terms.iterator(), synonyms.entrySet().iterator())
+        .forEachRemaining(rows::add);
+    instrumentation.stop(Stage.MERGE, start);
+    return rows;
+  }
+
+  /**
+   * Collects term rows and synonyms from a single pass over a result set. Where a synonym belongs
+   * to more than one term, the last term wins.
+   * 
+   * @param resultSet results of the all terms query, ordered by term
+   * @param terms collection to receive a row per query solution, in result order
+   * @param synonyms map to receive synonym to term entries
+   */
+  void collectRows(QueryResultSet resultSet, List<GlossaryRow> terms,
+      Map<String, String> synonyms) {
+    collectRows(resultSet, terms, synonyms, (collected, term) -> term);
+  }
+
+  /**
+   * Collects term rows and synonyms from a single pass over a result set in any order
+   * 
+   * @param resultSet results of the all terms query
+   * @param terms collection to receive a row per query solution, in result order
+   * @param synonyms map to receive synonym to term entries
+   * @param choice chooses the term of a synonym that belongs to more than one term, given the
+   *        term collected so far and another term. To be independent of result order, it must
+   *        choose the same term whichever order they are given in.
+   */
+  void collectRows(QueryResultSet resultSet, List<GlossaryRow> terms,
+      Map<String, String> synonyms, BinaryOperator<String> choice) {
+    final List<String> variableNames = resultSet.getVariableNames();
+    final int termIndex = variableNames.indexOf("term");
+    final int synonymIndex = variableNames.indexOf("synonym");
+    final int definitionIndex = variableNames.indexOf("definition");
+    final int sourceIndex = variableNames.indexOf("source");
+    final int specIndex = variableNames.indexOf("spec");
+    while (resultSet.hasNext()) {
+      final QueryResultRecord record = resultSet.next();
+      final String term = resultSet.getValue(record, termIndex);
+      final String synonym = resultSet.getValue(record, synonymIndex);
+      if (!synonym.isEmpty()) {
+        synonyms.merge(synonym, term, choice);
+      }
+      terms.add(new GlossaryRow(term, resultSet.getValue(record, definitionIndex),
+          resultSet.getValue(record, sourceIndex), resultSet.getValue(record, specIndex)));
+    }
+  }
+
+  /**
+   * Opens a file for writing as UTF-8 through a buffered channel. A file name ending with
+   * {@code .gz} is compressed.
+   * 
+   * @param targetFilename name of file to write
+   * @return a new Writer
+   * @throws IOException If the file cannot be opened
+   */
+  static Writer openWriter(String targetFilename) throws IOException {
+    return new EncodingWriter(openSink(targetFilename));
+  }
+
+  /**
+   * Opens a file for writing bytes. A file name ending with {@code .gz} is compressed.
+   * 
+   * @param targetFilename name of file to write
+   * @return a new sink
+   * @throws IOException If the file cannot be opened
+   */
+  static OutputSink openSink(String targetFilename) throws IOException {
+    OutputSink sink = new FileChannelSink(Paths.get(targetFilename));
+    if (targetFilename.endsWith(GZIP_EXTENSION)) {
+      sink = new GzipSink(sink);
+    }
+    return sink;
+  }
+
+  static void startTable(Appendable writer, TextFormatter formatter) throws IOException {
+    formatter.startTable(writer);
+    writeColumnTitles(COLUMN_TITLES, writer, formatter);
+  }
+
+  static void writeTable(Appendable writer, TextFormatter formatter, Iterator<GlossaryRow> rows)
+      throws IOException {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.RENDER);
+    startTable(writer, formatter);
+    long count = 0;
+    while (rows.hasNext()) {
+      rows.next().write(writer, formatter);
+      count++;
     }
+    formatter.endTable(writer);
+    instrumentation.stop(Stage.RENDER, start);
+    instrumentation.count(Counter.ROWS, count);
   }
 
 }
@@ -0,0 +1,576 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Counter;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.sparql.QueryRegistry;
+import io.fixprotocol.sparql.QueryResultRecord;
+import io.fixprotocol.sparql.QueryResultSet;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Compares two versions of a vocabulary and reports concepts that were added, removed or changed
+ * 
+ * Concepts are joined by IRI. Each version is queried twice, unordered. The first pass keeps only
+ * a 64-bit digest of each concept, the sum of digests of its property values, so it does not
+ * depend on the order of results. The digests of the two versions are joined in a hash table.
+ * The second pass collects the values of only those concepts that differ, so memory beyond the
+ * digests is bounded by the size of the change, not the size of the vocabulary.
+ * <p>
+ * Changed definitions and preferred labels are compared word by word. Deleted and inserted words
+ * are written with {@link TextFormatter#startDeletion(Appendable)} and
+ * {@link TextFormatter#startInsertion(Appendable)}.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public class VocabularyDiff {
+
+  /**
+   * Kind of difference of a concept between versions
+   */
+  public enum Kind {
+    ADDED("Added"), REMOVED("Removed"), CHANGED("Changed");
+
+    private final String title;
+
+    Kind(String title) {
+      this.title = title;
+    }
+
+    /**
+     * @return title of the kind in a report
+     */
+    public String getTitle() {
+      return title;
+    }
+  }
+
+  /**
+   * A concept that differs between versions
+   */
+  public static final class Change {
+    private final String concept;
+    private final Kind kind;
+    private final List<SortedSet<String>> newValues;
+    private final List<SortedSet<String>> oldValues;
+
+    Change(Kind kind, String concept, List<SortedSet<String>> oldValues,
+        List<SortedSet<String>> newValues) {
+      this.kind = kind;
+      this.concept = concept;
+      this.oldValues = oldValues;
+      this.newValues = newValues;
+    }
+
+    /**
+     * @return IRI of the concept
+     */
+    public String getConcept() {
+      return concept;
+    }
+
+    /**
+     * @return kind of difference
+     */
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * @return preferred label of the newer version of the concept, or the older version if the
+     *         concept was removed
+     */
+    public String getTerm() {
+      final SortedSet<String> labels = (kind == Kind.REMOVED ? oldValues : newValues)
+          .get(MultilingualVocabulary2Doc.PREF_LABEL);
+      return labels.isEmpty() ? concept : labels.first();
+    }
+
+    List<SortedSet<String>> getNewValues() {
+      return newValues;
+    }
+
+    List<SortedSet<String>> getOldValues() {
+      return oldValues;
+    }
+  }
+
+  static final List<String> COLUMN_TITLES = List.of("Change", "Term", "Property", "Value");
+
+  /**
+   * Maximum number of cells of the table of longest common subsequence of two texts. Texts with
+   * larger changes are shown as a deletion of the old text and an insertion of the new.
+   */
+  static final int MAX_WORD_DIFF_CELLS = 1 << 22;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final List<String> PROPERTY_TITLES =
+      List.of("Term", "Synonyms", "Definition", "Source", "Specification");
+  private static final String VALUE_SEPARATOR = "; ";
+
+  /**
+   * Reports differences between two versions of a vocabulary
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of the older version of the controlled vocabulary</li>
+   *        <li>URI of the newer version of the controlled vocabulary</li>
+   *        <li>Name of file to write</li>
+   *        <li>Optional code for output format. Defaults to HTML.</li>
+   *        </ol>
+   * @throws IOException If an I/O error occurs
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      useage();
+    } else {
+      final String format = args.length > 3 ? args[3] : TextFormatterFactory.HTML;
+      final List<Change> changes = new VocabularyDiff().generate(args[0], args[1], args[2], format);
+      System.out.format("%d concepts changed%n", changes.size());
+    }
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.vocabulary.VocabularyDiff"
+        + " <old-URI> <new-URI> <out-file> [html|md]");
+  }
+
+  /**
+   * Writes the differences of two texts word by word
+   * 
+   * Words common to both texts are written as they are. Runs of words that differ are written
+   * as a deletion of the old words followed by an insertion of the new words.
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @param formatter text formatter
+   * @param oldText older version of text
+   * @param newText newer version of text
+   * @throws IOException If an I/O error occurs
+   */
+  static void writeWordDiff(Appendable appendable, TextFormatter formatter, String oldText,
+      String newText) throws IOException {
+    final List<String> oldTokens = tokenize(oldText);
+    final List<String> newTokens = tokenize(newText);
+    int prefix = 0;
+    final int maxPrefix = Math.min(oldTokens.size(), newTokens.size());
+    while (prefix < maxPrefix && oldTokens.get(prefix).equals(newTokens.get(prefix))) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < maxPrefix - prefix && oldTokens.get(oldTokens.size() - 1 - suffix)
+        .equals(newTokens.get(newTokens.size() - 1 - suffix))) {
+      suffix++;
+    }
+    final List<String> oldMiddle = oldTokens.subList(prefix, oldTokens.size() - suffix);
+    final List<String> newMiddle = newTokens.subList(prefix, newTokens.size() - suffix);
+
+    for (String token : oldTokens.subList(0, prefix)) {
+      formatter.render(appendable, token);
+    }
+    final StringBuilder deleted = new StringBuilder();
+    final StringBuilder inserted = new StringBuilder();
+    if ((long) (oldMiddle.size() + 1) * (newMiddle.size() + 1) > MAX_WORD_DIFF_CELLS) {
+      oldMiddle.forEach(deleted::append);
+      newMiddle.forEach(inserted::append);
+    } else {
+      // Table of lengths of longest common subsequences of suffixes
+      final int n = oldMiddle.size();
+      final int m = newMiddle.size();
+      final int[][] lcs = new int[n + 1][m + 1];
+      for (int i = n - 1; i >= 0; i--) {
+        for (int j = m - 1; j >= 0; j--) {
+          lcs[i][j] = oldMiddle.get(i).equals(newMiddle.get(j)) ? lcs[i + 1][j + 1] + 1
+              : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+        }
+      }
+      int i = 0;
+      int j = 0;
+      while (i < n || j < m) {
+        if (i < n && j < m && oldMiddle.get(i).equals(newMiddle.get(j))) {
+          writeEdit(appendable, formatter, deleted, inserted);
+          formatter.render(appendable, oldMiddle.get(i));
+          i++;
+          j++;
+        } else if (j < m && (i == n || lcs[i][j + 1] >= lcs[i + 1][j])) {
+          inserted.append(newMiddle.get(j++));
+        } else {
+          deleted.append(oldMiddle.get(i++));
+        }
+      }
+    }
+    writeEdit(appendable, formatter, deleted, inserted);
+    for (String token : oldTokens.subList(oldTokens.size() - suffix, oldTokens.size())) {
+      formatter.render(appendable, token);
+    }
+  }
+
+  private static void accumulate(Map<String, long[]> digests, String concept, String property,
+      String lang, String value) {
+    long hash = fnv(FNV_OFFSET, property);
+    hash = fnv(hash, lang);
+    hash = fnv(hash, value);
+    // Finalizer of MurmurHash3 spreads bits so that a sum of digests is well distributed
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    digests.computeIfAbsent(concept, k -> new long[1])[0] += hash;
+  }
+
+  private static List<SortedSet<String>> emptyValues() {
+    final List<SortedSet<String>> values =
+        new ArrayList<>(MultilingualVocabulary2Doc.PROPERTIES.size());
+    for (int i = 0; i < MultilingualVocabulary2Doc.PROPERTIES.size(); i++) {
+      values.add(new TreeSet<>());
+    }
+    return values;
+  }
+
+  private static long fnv(long hash, String s) {
+    for (int i = 0; i < s.length(); i++) {
+      hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+    }
+    // Separator outside the range of char so that adjacent strings cannot run together
+    return (hash ^ 0x10000) * FNV_PRIME;
+  }
+
+  private static boolean isBlank(CharSequence text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (!Character.isWhitespace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String join(SortedSet<String> values) {
+    return String.join(VALUE_SEPARATOR, values);
+  }
+
+  private static QueryResultSet queryLabels(Dataset dataset) throws IOException {
+    final Query query =
+        QueryRegistry.getDefault().getQuery(MultilingualVocabulary2Doc.LABELS_QUERY);
+    return new Query2Doc().executeSelectCursor(dataset, query, null);
+  }
+
+  /**
+   * Splits text into alternating runs of whitespace and other characters
+   */
+  private static List<String> tokenize(String text) {
+    final List<String> tokens = new ArrayList<>();
+    int start = 0;
+    for (int i = 1; i <= text.length(); i++) {
+      if (i == text.length() || Character.isWhitespace(text.charAt(i)) != Character
+          .isWhitespace(text.charAt(start))) {
+        tokens.add(text.substring(start, i));
+        start = i;
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Writes all values of a property, marking values that were deleted or inserted
+   */
+  private static void writeSetDiff(Appendable appendable, TextFormatter formatter,
+      SortedSet<String> oldValues, SortedSet<String> newValues) throws IOException {
+    final SortedSet<String> all = new TreeSet<>(oldValues);
+    all.addAll(newValues);
+    boolean first = true;
+    for (String value : all) {
+      if (!first) {
+        formatter.render(appendable, VALUE_SEPARATOR);
+      }
+      first = false;
+      if (!newValues.contains(value)) {
+        formatter.startDeletion(appendable);
+        formatter.render(appendable, value);
+        formatter.endDeletion(appendable);
+      } else if (!oldValues.contains(value)) {
+        formatter.startInsertion(appendable);
+        formatter.render(appendable, value);
+        formatter.endInsertion(appendable);
+      } else {
+        formatter.render(appendable, value);
+      }
+    }
+  }
+
+  /**
+   * Writes pending deleted and inserted text, if any, and clears it. Whitespace at either end is
+   * written outside of the markers.
+   */
+  private static void writeEdit(Appendable appendable, TextFormatter formatter,
+      StringBuilder deleted, StringBuilder inserted) throws IOException {
+    if (deleted.length() == 0 && inserted.length() == 0) {
+      return;
+    }
+    final boolean hasDeletion = !isBlank(deleted);
+    final boolean hasInsertion = !isBlank(inserted);
+    if (!hasDeletion && !hasInsertion) {
+      // Only whitespace changed
+      formatter.render(appendable, inserted.toString());
+    } else {
+      final String edge = hasDeletion ? deleted.toString() : inserted.toString();
+      final int leading = edge.length() - edge.stripLeading().length();
+      formatter.render(appendable, edge.substring(0, leading));
+      if (hasDeletion) {
+        formatter.startDeletion(appendable);
+        formatter.render(appendable, deleted.toString().strip());
+        formatter.endDeletion(appendable);
+      }
+      if (hasInsertion) {
+        if (hasDeletion) {
+          formatter.render(appendable, " ");
+        }
+        formatter.startInsertion(appendable);
+        formatter.render(appendable, inserted.toString().strip());
+        formatter.endInsertion(appendable);
+      }
+      final String trailingEdge = hasInsertion ? inserted.toString() : deleted.toString();
+      formatter.render(appendable, trailingEdge.substring(trailingEdge.stripTrailing().length()));
+    }
+    deleted.setLength(0);
+    inserted.setLength(0);
+  }
+
+  /**
+   * Compares two versions of a vocabulary
+   * 
+   * @param oldVersion older version of a vocabulary
+   * @param newVersion newer version of a vocabulary
+   * @return changed concepts, ordered by kind of change, then by term
+   * @throws IOException If a query fails
+   */
+  public List<Change> compare(Dataset oldVersion, Dataset newVersion) throws IOException {
+    final Map<String, long[]> oldDigests = digests(oldVersion);
+    final Map<String, long[]> newDigests = digests(newVersion);
+
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.MERGE);
+    final Map<String, Kind> kinds = new HashMap<>();
+    for (Map.Entry<String, long[]> entry : newDigests.entrySet()) {
+      final long[] oldDigest = oldDigests.remove(entry.getKey());
+      if (oldDigest == null) {
+        kinds.put(entry.getKey(), Kind.ADDED);
+      } else if (oldDigest[0] != entry.getValue()[0]) {
+        kinds.put(entry.getKey(), Kind.CHANGED);
+      }
+    }
+    newDigests.clear();
+    for (String concept : oldDigests.keySet()) {
+      kinds.put(concept, Kind.REMOVED);
+    }
+    oldDigests.clear();
+    instrumentation.stop(Stage.MERGE, start);
+
+    final Map<String, List<SortedSet<String>>> oldValues =
+        values(oldVersion, kinds, Kind.ADDED);
+    final Map<String, List<SortedSet<String>>> newValues =
+        values(newVersion, kinds, Kind.REMOVED);
+    final List<Change> changes = new ArrayList<>(kinds.size());
+    for (Map.Entry<String, Kind> entry : kinds.entrySet()) {
+      final String concept = entry.getKey();
+      changes.add(new Change(entry.getValue(), concept,
+          oldValues.getOrDefault(concept, emptyValues()),
+          newValues.getOrDefault(concept, emptyValues())));
+    }
+    changes.sort(Comparator.comparing(Change::getKind)
+        .thenComparing(Change::getTerm, RowOrder::compareCodePoints)
+        .thenComparing(Change::getConcept));
+    return changes;
+  }
+
+  /**
+   * Loads two versions of a vocabulary and writes a report of their differences
+   * 
+   * @param oldUri URI of the older version of a vocabulary
+   * @param newUri URI of the newer version of a vocabulary
+   * @param targetFilename name of file to write
+   * @param format code for text format. See {@link io.fixprotocol.TextFormatterFactory} for valid
+   *        codes.
+   * @return changed concepts
+   * @throws IOException If a vocabulary cannot be loaded or queried, or the file cannot be written
+   */
+  public List<Change> generate(String oldUri, String newUri, String targetFilename, String format)
+      throws IOException {
+    final TextFormatter formatter = TextFormatterFactory.getInstance(format);
+    final Query2Doc query2Doc = new Query2Doc();
+    final List<Change> changes =
+        compare(query2Doc.getDataset(oldUri), query2Doc.getDataset(newUri));
+    try (Writer writer = Vocabulary2Doc.openWriter(targetFilename)) {
+      writeReport(writer, formatter, changes);
+    }
+    return changes;
+  }
+
+  /**
+   * Writes a table of changes. A concept that was added or removed has a row for its definition.
+   * A concept that changed has a row for each property that changed.
+   * 
+   * @param appendable An object to which char sequences and values can be appended
+   * @param formatter text formatter
+   * @param changes changed concepts
+   * @throws IOException If an I/O error occurs
+   */
+  public void writeReport(Appendable appendable, TextFormatter formatter, List<Change> changes)
+      throws IOException {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.RENDER);
+    formatter.startTable(appendable);
+    Vocabulary2Doc.writeColumnTitles(COLUMN_TITLES, appendable, formatter);
+    long count = 0;
+    for (Change change : changes) {
+      if (change.getKind() != Kind.CHANGED) {
+        final List<SortedSet<String>> values =
+            change.getKind() == Kind.ADDED ? change.getNewValues() : change.getOldValues();
+        startRow(appendable, formatter, change, MultilingualVocabulary2Doc.DEFINITION);
+        formatter.render(appendable, join(values.get(MultilingualVocabulary2Doc.DEFINITION)));
+        endRow(appendable, formatter);
+        count++;
+        continue;
+      }
+      for (int property = 0; property < PROPERTY_TITLES.size(); property++) {
+        final SortedSet<String> oldValues = change.getOldValues().get(property);
+        final SortedSet<String> newValues = change.getNewValues().get(property);
+        if (oldValues.equals(newValues)) {
+          continue;
+        }
+        startRow(appendable, formatter, change, property);
+        if (property == MultilingualVocabulary2Doc.DEFINITION
+            || property == MultilingualVocabulary2Doc.PREF_LABEL) {
+          writeWordDiff(appendable, formatter, join(oldValues), join(newValues));
+        } else {
+          writeSetDiff(appendable, formatter, oldValues, newValues);
+        }
+        endRow(appendable, formatter);
+        count++;
+      }
+    }
+    formatter.endTable(appendable);
+    instrumentation.stop(Stage.RENDER, start);
+    instrumentation.count(Counter.ROWS, count);
+  }
+
+  /**
+   * @return map of concept IRI to a digest of all of its property values
+   */
+  private Map<String, long[]> digests(Dataset dataset) throws IOException {
+    final Map<String, long[]> digests = new HashMap<>();
+    final QueryResultSet resultSet = queryLabels(dataset);
+    try {
+      final List<String> variableNames = resultSet.getVariableNames();
+      final int conceptIndex = variableNames.indexOf("concept");
+      final int propertyIndex = variableNames.indexOf("property");
+      final int valueIndex = variableNames.indexOf("value");
+      final int langIndex = variableNames.indexOf("lang");
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        accumulate(digests, resultSet.getValue(record, conceptIndex),
+            resultSet.getValue(record, propertyIndex),
+            resultSet.getValue(record, langIndex).toLowerCase(Locale.ROOT),
+            resultSet.getValue(record, valueIndex));
+      }
+    } finally {
+      resultSet.close();
+    }
+    return digests;
+  }
+
+  private void endRow(Appendable appendable, TextFormatter formatter) throws IOException {
+    formatter.endCell(appendable);
+    formatter.endRow(appendable);
+  }
+
+  private void startRow(Appendable appendable, TextFormatter formatter, Change change,
+      int property) throws IOException {
+    formatter.startRow(appendable);
+    for (String text : List.of(change.getKind().getTitle(), change.getTerm(),
+        PROPERTY_TITLES.get(property))) {
+      formatter.startCell(appendable);
+      formatter.render(appendable, text);
+      formatter.endCell(appendable);
+    }
+    formatter.startCell(appendable);
+  }
+
+  /**
+   * Collects property values of concepts of one version that differ from the other version
+   * 
+   * @param dataset a version of a vocabulary
+   * @param kinds kinds of change by concept IRI
+   * @param excluded kind of change of concepts missing from this version
+   * @return map of concept IRI to values of each property. A language-tagged value has its tag
+   *         appended after {@code @}.
+   */
+  private Map<String, List<SortedSet<String>>> values(Dataset dataset, Map<String, Kind> kinds,
+      Kind excluded) throws IOException {
+    final Set<String> concepts = new HashSet<>();
+    for (Map.Entry<String, Kind> entry : kinds.entrySet()) {
+      if (entry.getValue() != excluded) {
+        concepts.add(entry.getKey());
+      }
+    }
+    final Map<String, List<SortedSet<String>>> values = new HashMap<>();
+    if (concepts.isEmpty()) {
+      return values;
+    }
+    final QueryResultSet resultSet = queryLabels(dataset);
+    try {
+      final List<String> variableNames = resultSet.getVariableNames();
+      final int conceptIndex = variableNames.indexOf("concept");
+      final int propertyIndex = variableNames.indexOf("property");
+      final int valueIndex = variableNames.indexOf("value");
+      final int langIndex = variableNames.indexOf("lang");
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        final String concept = resultSet.getValue(record, conceptIndex);
+        final int property = MultilingualVocabulary2Doc.PROPERTIES
+            .indexOf(resultSet.getValue(record, propertyIndex));
+        if (property >= 0 && concepts.contains(concept)) {
+          final String lang = resultSet.getValue(record, langIndex).toLowerCase(Locale.ROOT);
+          final String value = resultSet.getValue(record, valueIndex);
+          values.computeIfAbsent(concept, k -> emptyValues()).get(property)
+              .add(lang.isEmpty() ? value : value + "@" + lang);
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+    return values;
+  }
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.jena.query.Dataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.search.SearchHit;
+import io.fixprotocol.search.SearchIndex;
+import io.fixprotocol.sparql.DatasetCache;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+
+/**
+ * Serves documentation of a controlled vocabulary over HTTP, rendered on demand
+ * 
+ * Resources, each taking an optional {@code format} parameter (default {@code html}):
+ * <ul>
+ * <li>{@code /glossary} the full glossary table</li>
+ * <li>{@code /term/<term>} rows of a single term, ignoring case</li>
+ * <li>{@code /search?q=<text>&mode=prefix|fuzzy|keyword} rows of matching terms</li>
+ * </ul>
+ * Rendered rows of each term and rendered glossaries are kept in a bounded least recently used
+ * cache keyed by term and format. Every response carries an entity tag, so a client that sends it
+ * back in {@code If-None-Match} receives 304 Not Modified. The vocabulary is checked for changes at
+ * most once per reload interval and reloaded when its content changes; cached fragments of the
+ * previous content are never served after a reload. One request thread reloads while the others
+ * keep serving the current content. If a reload fails, for example on a partially written file,
+ * the failure is logged and the previous content is served until the next check.
+ * <p>
+ * With system property {@code io.fixprotocol.instrumentation=jfr}, each request and the stages it
+ * performs are recorded as flight recorder events. See
+ * {@link io.fixprotocol.metrics.JfrInstrumentation}.
+ * <p>
+ * {@link #main(String[])} enables TCP_NODELAY of the JDK HTTP server. An application that embeds
+ * this server should run with {@code -Dsun.net.httpserver.nodelay=true}; otherwise a small
+ * response may be delayed by about 40 ms by delayed acknowledgement.
+ * <p>
+ * Failures to handle a request are logged and answered with status 500.
+ * 
+ * @author Don Mendelson
+ *
+ */
+public final class VocabularyServer {
+
+  /**
+   * Default maximum number of rendered fragments to cache
+   */
+  public static final int DEFAULT_CACHE_CAPACITY = 4096;
+
+  /**
+   * Default port to listen on
+   */
+  public static final int DEFAULT_PORT = 8080;
+
+  /**
+   * Default minimum time between checks of the vocabulary for changes
+   */
+  public static final long DEFAULT_RELOAD_INTERVAL_MILLIS = 1000;
+
+  private static final class Content {
+    final Dataset dataset;
+    final long generation;
+    final List<GlossaryRow> rows;
+    final Map<String, List<GlossaryRow>> rowsByTerm = new HashMap<>();
+    final SearchIndex searchIndex;
+
+    Content(Dataset dataset, long generation) throws IOException {
+      this.dataset = dataset;
+      this.generation = generation;
+      this.rows = new Vocabulary2Doc().queryRows(dataset);
+      for (GlossaryRow row : rows) {
+        rowsByTerm.computeIfAbsent(termKey(row.term), k -> new ArrayList<>(1)).add(row);
+      }
+      this.searchIndex = SearchIndex.build(dataset);
+    }
+  }
+
+  private static final class Fragment {
+    final byte[] body;
+    final String etag;
+
+    Fragment(byte[] body, String etag) {
+      this.body = body;
+      this.etag = etag;
+    }
+  }
+
+  private static final class HttpStatusException extends Exception {
+    private static final long serialVersionUID = 1L;
+    final int status;
+
+    HttpStatusException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+
+  private static final int SEARCH_LIMIT = 50;
+  private static final int FUZZY_EDITS = 2;
+  private static final Logger LOGGER = LoggerFactory.getLogger(VocabularyServer.class);
+  private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+  /**
+   * Serves a vocabulary until the process is stopped
+   * 
+   * @param args command line arguments
+   *        <ol>
+   *        <li>URI of the controlled vocabulary</li>
+   *        <li>Optional port, default 8080</li>
+   *        </ol>
+   * @throws IOException If the vocabulary cannot be loaded or the port cannot be bound
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      useage();
+    } else {
+      // The JDK server writes headers and body separately, so without TCP_NODELAY a small response
+      // waits on the client's delayed acknowledgement, about 40 ms. The property is read once,
+      // when the first server is created.
+      if (System.getProperty(NODELAY_PROPERTY) == null) {
+        System.setProperty(NODELAY_PROPERTY, "true");
+      }
+      final int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+      final VocabularyServer server = new VocabularyServer(args[0], new InetSocketAddress(port));
+      server.start();
+      System.out.format("Serving %s at http://localhost:%d/glossary%n", args[0],
+          server.getAddress().getPort());
+    }
+  }
+
+  public static void useage() {
+    System.err.println("Useage: java io.fixprotocol.vocabulary.VocabularyServer <in-URI> [port]");
+  }
+
+  private static String contentType(String format) {
+    return (TextFormatterFactory.MARKDOWN.equals(format) ? "text/markdown" : "text/html")
+        + "; charset=utf-8";
+  }
+
+  private static String etag(String format, byte[] body) {
+    final MessageDigest digest = RowManifest.digest();
+    digest.update(format.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    return '"' + RowManifest.toHex(digest.digest(body), 16) + '"';
+  }
+
+  private static boolean matchesAny(String ifNoneMatch, String etag) {
+    for (String tag : ifNoneMatch.split(",")) {
+      String candidate = tag.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Map<String, String> parameters(String rawQuery) {
+    final Map<String, String> parameters = new HashMap<>();
+    if (rawQuery != null) {
+      for (String pair : rawQuery.split("&")) {
+        final int equals = pair.indexOf('=');
+        if (equals > 0) {
+          parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+              URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+      }
+    }
+    return parameters;
+  }
+
+  private static String termKey(String term) {
+    return term.toLowerCase(Locale.ROOT);
+  }
+
+  private final Map<String, Fragment> cache;
+  private volatile Content content;
+  private final DatasetCache datasets = new DatasetCache(1);
+  private final ExecutorService executor;
+  private volatile long nextCheckNanos;
+  private final ReentrantLock reloadLock = new ReentrantLock();
+  private final long reloadIntervalNanos;
+  private final HttpServer server;
+  private final String sourceUri;
+
+  /**
+   * Constructs a server with default settings. The vocabulary is loaded immediately.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param address address to listen on. Port 0 selects an ephemeral port.
+   * @throws IOException If the vocabulary cannot be loaded or the address cannot be bound
+   */
+  public VocabularyServer(String sourceUri, InetSocketAddress address) throws IOException {
+    this(sourceUri, address, DEFAULT_CACHE_CAPACITY, DEFAULT_RELOAD_INTERVAL_MILLIS,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a server. The vocabulary is loaded immediately.
+   * 
+   * @param sourceUri vocabulary URI
+   * @param address address to listen on. Port 0 selects an ephemeral port.
+   * @param cacheCapacity maximum number of rendered fragments to cache
+   * @param reloadIntervalMillis minimum time between checks of the vocabulary for changes
+   * @param threads number of threads to handle requests
+   * @throws IOException If the vocabulary cannot be loaded or the address cannot be bound
+   */
+  public VocabularyServer(String sourceUri, InetSocketAddress address, int cacheCapacity,
+      long reloadIntervalMillis, int threads) throws IOException {
+    this.sourceUri = sourceUri;
+    this.reloadIntervalNanos = reloadIntervalMillis * 1000000L;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Fragment> eldest) {
+        return size() > cacheCapacity;
+      }
+    };
+    this.content = new Content(datasets.get(sourceUri), 0);
+    this.nextCheckNanos = System.nanoTime() + reloadIntervalNanos;
+    this.server = HttpServer.create(address, 0);
+    this.executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+  }
+
+  /**
+   * @return address the server is bound to
+   */
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * Starts accepting requests
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops accepting requests and releases threads. Requests in progress are abandoned.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private Fragment cached(String key) {
+    synchronized (cache) {
+      return cache.get(key);
+    }
+  }
+
+  private void cache(String key, Fragment fragment) {
+    synchronized (cache) {
+      cache.put(key, fragment);
+    }
+  }
+
+  private Content currentContent() {
+    if (System.nanoTime() - nextCheckNanos >= 0 && reloadLock.tryLock()) {
+      try {
+        if (System.nanoTime() - nextCheckNanos >= 0) {
+          reload();
+        }
+      } finally {
+        reloadLock.unlock();
+      }
+    }
+    return content;
+  }
+
+  private void reload() {
+    try {
+      final Dataset dataset = datasets.get(sourceUri);
+      if (dataset != content.dataset) {
+        content = new Content(dataset, content.generation + 1);
+        synchronized (cache) {
+          cache.clear();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Failed to reload {}; serving previous content", sourceUri, e);
+    } finally {
+      nextCheckNanos = System.nanoTime() + reloadIntervalNanos;
+    }
+  }
+
+  private Fragment glossary(Content content, String format, TextFormatter formatter)
+      throws IOException {
+    final String key = content.generation + "\u0000" + format;
+    Fragment fragment = cached(key);
+    if (fragment == null) {
+      final StringBuilder sb = new StringBuilder(content.rows.size() * 256);
+      Vocabulary2Doc.writeTable(sb, formatter, content.rows.iterator());
+      final byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+      fragment = new Fragment(body, etag(format, body));
+      cache(key, fragment);
+    }
+    return fragment;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    final Instrumentation instrumentation = Instrumentation.getDefault();
+    final long start = instrumentation.start(Stage.REQUEST);
+    try {
+      final String method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        throw new HttpStatusException(405, "Method not allowed");
+      }
+      final Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+      final String format = parameters.getOrDefault("format", TextFormatterFactory.HTML);
+      final TextFormatter formatter;
+      try {
+        formatter = TextFormatterFactory.getInstance(format);
+      } catch (IllegalArgumentException e) {
+        throw new HttpStatusException(400, "Unknown format " + format);
+      }
+      final Content content = currentContent();
+      final String path = exchange.getRequestURI().getPath();
+      final Fragment fragment;
+      if (path.equals("/") || path.equals("/glossary")) {
+        fragment = glossary(content, format, formatter);
+      } else if (path.startsWith("/term/")) {
+        final Fragment rows = termRows(content, path.substring("/term/".length()), format,
+            formatter);
+        if (rows == null) {
+          throw new HttpStatusException(404, "Term not found");
+        }
+        fragment = new Fragment(table(formatter, List.of(rows)), rows.etag);
+      } else if (path.equals("/search")) {
+        fragment = search(content, parameters, format, formatter);
+      } else {
+        throw new HttpStatusException(404, "Not found");
+      }
+      send(exchange, format, fragment);
+    } catch (HttpStatusException e) {
+      final byte[] body = e.getMessage().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+      exchange.sendResponseHeaders(e.status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.error("Failed to handle {} {}", exchange.getRequestMethod(),
+          exchange.getRequestURI(), e);
+      // A failure while writing a body is too late to change the status
+      if (exchange.getResponseCode() == -1) {
+        exchange.sendResponseHeaders(500, -1);
+      }
+    } finally {
+      exchange.close();
+      instrumentation.stop(Stage.REQUEST, start);
+    }
+  }
+
+  private Fragment search(Content content, Map<String, String> parameters, String format,
+      TextFormatter formatter) throws IOException, HttpStatusException {
+    final String text = parameters.get("q");
+    if (text == null) {
+      throw new HttpStatusException(400, "Missing parameter q");
+    }
+    final List<SearchHit> hits;
+    switch (parameters.getOrDefault("mode", "prefix")) {
+      case "prefix":
+        hits = content.searchIndex.findByPrefix(text, SEARCH_LIMIT);
+        break;
+      case "fuzzy":
+        hits = content.searchIndex.findFuzzy(text, FUZZY_EDITS, SEARCH_LIMIT);
+        break;
+      case "keyword":
+        hits = content.searchIndex.findByKeywords(text, SEARCH_LIMIT);
+        break;
+      default:
+        throw new HttpStatusException(400, "Unknown search mode");
+    }
+    final Set<String> terms = new LinkedHashSet<>();
+    for (SearchHit hit : hits) {
+      terms.add(hit.getTerm());
+    }
+    final List<Fragment> rows = new ArrayList<>(terms.size());
+    for (String term : terms) {
+      final Fragment termRows = termRows(content, term, format, formatter);
+      if (termRows != null) {
+        rows.add(termRows);
+      }
+    }
+    final byte[] body = table(formatter, rows);
+    return new Fragment(body, etag(format, body));
+  }
+
+  private void send(HttpExchange exchange, String format, Fragment fragment) throws IOException {
+    final Headers responseHeaders = exchange.getResponseHeaders();
+    responseHeaders.set("ETag", fragment.etag);
+    responseHeaders.set("Cache-Control", "no-cache");
+    final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    if (ifNoneMatch != null && matchesAny(ifNoneMatch, fragment.etag)) {
+      exchange.sendResponseHeaders(304, -1);
+    } else {
+      responseHeaders.set("Content-Type", contentType(format));
+      if ("HEAD".equals(exchange.getRequestMethod())) {
+        responseHeaders.set("Content-Length", Integer.toString(fragment.body.length));
+        exchange.sendResponseHeaders(200, -1);
+      } else {
+        exchange.sendResponseHeaders(200, fragment.body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(fragment.body);
+        }
+      }
+    }
+  }
+
+  private byte[] table(TextFormatter formatter, List<Fragment> rows) throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    Vocabulary2Doc.startTable(sb, formatter);
+    final byte[] start = sb.toString().getBytes(StandardCharsets.UTF_8);
+    sb.setLength(0);
+    formatter.endTable(sb);
+    final byte[] end = sb.toString().getBytes(StandardCharsets.UTF_8);
+    int length = start.length + end.length;
+    for (Fragment row : rows) {
+      length += row.body.length;
+    }
+    final byte[] body = new byte[length];
+    System.arraycopy(start, 0, body, 0, start.length);
+    int position = start.length;
+    for (Fragment row : rows) {
+      System.arraycopy(row.body, 0, body, position, row.body.length);
+      position += row.body.length;
+    }
+    System.arraycopy(end, 0, body, position, end.length);
+    return body;
+  }
+
+  /**
+   * Returns the rendered rows of a term, without table start or end
+   */
+  private Fragment termRows(Content content, String term, String format, TextFormatter formatter)
+      throws IOException {
+    final String termKey = termKey(term);
+    final String key = content.generation + "\u0000" + format + "\u0000" + termKey;
+    Fragment fragment = cached(key);
+    if (fragment == null) {
+      final List<GlossaryRow> rows = content.rowsByTerm.get(termKey);
+      if (rows == null) {
+        return null;
+      }
+      final StringBuilder sb = new StringBuilder();
+      for (GlossaryRow row : rows) {
+        row.write(sb, formatter);
+      }
+      final byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+      fragment = new Fragment(body, etag(format, body));
+      cache(key, fragment);
+    }
+    return fragment;
+  }
+}
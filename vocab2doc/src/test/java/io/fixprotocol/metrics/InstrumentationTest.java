@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.metrics.Instrumentation.Counter;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.vocabulary.Vocabulary2Doc;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class InstrumentationTest {
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    Instrumentation.setDefault(null);
+  }
+
+  @Test
+  void timingSummary() throws IOException {
+    TimingSummary summary = new TimingSummary();
+    Instrumentation.setDefault(summary);
+    String target = "target/test/Vocabulary-timed.html";
+    new Vocabulary2Doc().generate("fix-vocabulary.ttl", target, "html");
+
+    for (Stage stage : new Stage[] {Stage.LOAD, Stage.QUERY, Stage.MERGE, Stage.RENDER,
+        Stage.WRITE}) {
+      assertTrue(summary.getOccurrences(stage) > 0, stage.name());
+    }
+    assertTrue(summary.getCount(Counter.ROWS) > 0);
+    assertTrue(summary.getCount(Counter.ESCAPES) > 0);
+    assertEquals(Files.size(Paths.get(target)), summary.getCount(Counter.BYTES));
+    assertTrue(summary.toString().startsWith("stage"));
+  }
+
+  @Test
+  void flightRecorder() throws IOException {
+    JfrInstrumentation jfr = new JfrInstrumentation();
+    Instrumentation.setDefault(jfr);
+    Path recordingPath = Paths.get("target/test/instrumentation.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(JfrInstrumentation.STAGE_EVENT);
+      recording.start();
+      new Vocabulary2Doc().generate("fix-vocabulary.ttl", "target/test/Vocabulary-jfr.md", "md");
+      recording.stop();
+      recording.dump(recordingPath);
+    } finally {
+      jfr.close();
+    }
+    List<RecordedEvent> events = RecordingFile.readAllEvents(recordingPath);
+    Set<String> stages = events.stream()
+        .filter(e -> e.getEventType().getName().equals(JfrInstrumentation.STAGE_EVENT))
+        .map(e -> e.getString("stage")).collect(Collectors.toSet());
+    assertTrue(stages.containsAll(Set.of("load", "query", "merge", "render", "write")),
+        stages.toString());
+  }
+}
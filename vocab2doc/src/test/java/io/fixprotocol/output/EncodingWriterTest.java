@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.output;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class EncodingWriterTest {
+
+  // Includes characters outside the Basic Multilingual Plane, encoded as surrogate pairs
+  private static final String TEXT = "Fish & chips – “quoted” 📈 price ✓ 😀";
+
+  @Test
+  void encodeAcrossBufferBoundaries() throws IOException {
+    final StringBuilder expected = new StringBuilder();
+    final MemorySink sink = new MemorySink(16);
+    // Odd buffer size splits surrogate pairs between batches
+    try (EncodingWriter writer = new EncodingWriter(sink, 7)) {
+      for (int i = 0; i < 100; i++) {
+        writer.append(TEXT);
+        writer.append('|');
+        writer.append(new StringBuilder(TEXT), 2, 9);
+        expected.append(TEXT).append('|').append(TEXT, 2, 9);
+      }
+    }
+    final byte[] expectedBytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(expectedBytes, sink.toByteArray());
+    assertEquals(expectedBytes.length, sink.getBytesWritten());
+    assertTrue(sink.getWriteCount() > 1);
+  }
+
+  @Test
+  void batchWrites() throws IOException {
+    final MemorySink sink = new MemorySink();
+    try (EncodingWriter writer = new EncodingWriter(sink)) {
+      for (int i = 0; i < 1000; i++) {
+        writer.append('<').append("td").append('>');
+      }
+    }
+    assertEquals(1, sink.getWriteCount());
+    assertEquals(4000, sink.getBytesWritten());
+  }
+
+  @Test
+  void gzip() throws IOException {
+    final MemorySink compressed = new MemorySink();
+    final GzipSink sink = new GzipSink(compressed);
+    try (EncodingWriter writer = new EncodingWriter(sink)) {
+      for (int i = 0; i < 100; i++) {
+        writer.append(TEXT);
+      }
+    }
+    final byte[] expected = TEXT.repeat(100).getBytes(StandardCharsets.UTF_8);
+    assertEquals(expected.length, sink.getBytesWritten());
+    assertTrue(compressed.getBytesWritten() < expected.length);
+    try (GZIPInputStream in =
+        new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+      assertArrayEquals(expected, in.readAllBytes());
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sparql.Query2Doc;
+
+class SearchIndexTest {
+
+  private static SearchIndex built;
+  private static SearchIndex loaded;
+
+  @BeforeAll
+  public static void setUpOnce() throws IOException {
+    new File("target/test").mkdirs();
+    built = SearchIndex.build(new Query2Doc().getDataset("fix-vocabulary.ttl"));
+    final Path path = Paths.get("target/test/vocabulary.idx");
+    built.save(path);
+    loaded = SearchIndex.load(path);
+  }
+
+  private static List<String> labels(List<SearchHit> hits) {
+    return hits.stream().map(SearchHit::getLabel).collect(Collectors.toList());
+  }
+
+  @Test
+  void prefix() {
+    for (SearchIndex index : new SearchIndex[] {built, loaded}) {
+      final List<SearchHit> hits = index.findByPrefix("central reg", 10);
+      assertEquals(List.of("Central Registration Depository"), labels(hits));
+      // synonym
+      final List<SearchHit> synonymHits = index.findByPrefix("asian", 10);
+      assertEquals("Asian Option", synonymHits.get(0).getLabel());
+      assertEquals("Average Price Option", synonymHits.get(0).getTerm());
+      assertEquals(index.getConceptCount(), index.findByPrefix("", Integer.MAX_VALUE).size());
+    }
+  }
+
+  @Test
+  void fuzzy() {
+    for (SearchIndex index : new SearchIndex[] {built, loaded}) {
+      final List<SearchHit> hits = index.findFuzzy("Centrl Registraton Depository", 2, 5);
+      assertEquals("Central Registration Depository", hits.get(0).getTerm());
+      assertEquals(2, hits.get(0).getDistance());
+      assertTrue(index.findFuzzy("Centrl Registraton Depository", 1, 5).isEmpty());
+    }
+  }
+
+  @Test
+  void keywords() {
+    for (SearchIndex index : new SearchIndex[] {built, loaded}) {
+      // scope note
+      final List<SearchHit> hits = index.findByKeywords("recognized markets", 10);
+      assertTrue(labels(hits).contains("Confirmed Trade Report"));
+      // definition
+      final List<SearchHit> definitionHits = index.findByKeywords("computerized database", 10);
+      assertEquals(List.of("Central Registration Depository"), labels(definitionHits));
+      assertTrue(definitionHits.get(0).getConceptIri().endsWith("#CentralRegistrationDepository"));
+      assertTrue(index.findByKeywords("computerized nonesuch", 10).isEmpty());
+    }
+  }
+
+  @Test
+  void rejectInvalidFile() throws IOException {
+    final Path path = Paths.get("target/test/invalid.idx");
+    Files.writeString(path, "not an index", StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> SearchIndex.load(path));
+  }
+}
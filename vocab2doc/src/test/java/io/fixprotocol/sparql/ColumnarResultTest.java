@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.Query;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ColumnarResultTest {
+
+  private static Dataset dataset;
+  private static Query query;
+  private static final Query2Doc query2Doc = new Query2Doc();
+
+  @BeforeAll
+  public static void setUpOnce() throws IOException {
+    dataset = query2Doc.getDataset("fix-vocabulary.ttl");
+    query = QueryRegistry.getDefault().getQuery("allterms");
+  }
+
+  private static List<List<String>> byName(QueryResultSet resultSet) {
+    final List<List<String>> rows = new ArrayList<>();
+    try {
+      final List<String> variableNames = resultSet.getVariableNames();
+      while (resultSet.hasNext()) {
+        final QueryResultRecord record = resultSet.next();
+        final List<String> row = new ArrayList<>();
+        for (String variableName : variableNames) {
+          row.add(record.getValue(variableName));
+        }
+        rows.add(row);
+      }
+    } finally {
+      resultSet.close();
+    }
+    return rows;
+  }
+
+  @Test
+  void cursorMatchesRecords() {
+    final List<List<String>> expected = byName(query2Doc.executeSelect(dataset, query, null));
+    final QueryResultSet cursor = query2Doc.executeSelectCursor(dataset, query, null);
+    final int columnCount = cursor.getVariableNames().size();
+    QueryResultRecord previous = null;
+    int row = 0;
+    try {
+      while (cursor.hasNext()) {
+        final QueryResultRecord record = cursor.next();
+        if (previous != null) {
+          assertSame(previous, record);
+        }
+        previous = record;
+        for (int col = 0; col < columnCount; col++) {
+          assertEquals(expected.get(row).get(col), cursor.getValue(record, col));
+        }
+        row++;
+      }
+    } finally {
+      cursor.close();
+    }
+    assertEquals(expected.size(), row);
+  }
+
+  @Test
+  void columnarMatchesRecords() {
+    final List<List<String>> expected = byName(query2Doc.executeSelect(dataset, query, null));
+    final ColumnarResult columnar =
+        ColumnarResult.of(query2Doc.executeSelectCursor(dataset, query, null));
+    assertEquals(expected.size(), columnar.getRowCount());
+    // values such as source and spec repeat across rows
+    assertTrue(columnar.getDistinctValueCount() < expected.size()
+        * columnar.getVariableNames().size());
+    assertEquals(1, columnar.getVariableIndex("synonym"));
+    assertEquals(-1, columnar.getVariableIndex("nonesuch"));
+    for (int pass = 0; pass < 2; pass++) {
+      assertEquals(expected, byName(columnar.cursor()));
+    }
+    final QueryResultSet cursor = columnar.cursor();
+    cursor.close();
+    assertFalse(cursor.hasNext());
+  }
+
+  @Test
+  void plainRecords() {
+    // implements only the methods of the original interfaces, as a result set outside this
+    // package would
+    final List<Map<String, String>> solutions =
+        List.of(Map.of("term", "Alpha", "definition", "First"), Map.of("term", "Beta"));
+    final Iterator<Map<String, String>> iter = solutions.iterator();
+    final QueryResultSet resultSet = new QueryResultSet() {
+
+      @Override
+      public void close() {}
+
+      @Override
+      public List<String> getVariableNames() {
+        return List.of("term", "definition");
+      }
+
+      @Override
+      public boolean hasNext() {
+        return iter.hasNext();
+      }
+
+      @Override
+      public QueryResultRecord next() {
+        final Map<String, String> solution = iter.next();
+        return new QueryResultRecord() {
+
+          @Override
+          public boolean contains(String variableName) {
+            return solution.containsKey(variableName);
+          }
+
+          @Override
+          public String getValue(String variableName) {
+            return solution.getOrDefault(variableName, "");
+          }
+
+          @Override
+          public Iterator<String> variableNames() {
+            return solution.keySet().iterator();
+          }
+        };
+      }
+    };
+    final ColumnarResult columnar = ColumnarResult.of(resultSet);
+    assertEquals(2, columnar.getRowCount());
+    assertEquals("Alpha", columnar.getValue(0, 0));
+    assertEquals("First", columnar.getValue(0, 1));
+    assertEquals("Beta", columnar.getValue(1, 0));
+    assertEquals("", columnar.getValue(1, 1));
+  }
+}
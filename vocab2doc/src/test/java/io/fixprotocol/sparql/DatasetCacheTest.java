@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.apache.jena.query.Dataset;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class DatasetCacheTest {
+
+  private static final String TURTLE = "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .%n"
+      + "<http://example.org/a> a skos:Concept ; skos:prefLabel \"%s\" .%n";
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void reuseUnchanged() throws IOException {
+    DatasetCache cache = new DatasetCache();
+    Dataset first = cache.get("fix-vocabulary.ttl");
+    Dataset second = cache.get("fix-vocabulary.ttl");
+    assertSame(first, second);
+  }
+
+  @Test
+  void reloadChanged() throws IOException {
+    Path path = Paths.get("target/test/cache-changed.ttl");
+    Files.writeString(path, String.format(TURTLE, "Alpha"), StandardCharsets.UTF_8);
+    DatasetCache cache = new DatasetCache();
+    Dataset first = cache.get(path.toString());
+
+    // Touch without changing content
+    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    assertSame(first, cache.get(path.toString()));
+
+    Files.writeString(path, String.format(TURTLE, "Beta"), StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 4000));
+    assertNotSame(first, cache.get(path.toString()));
+  }
+
+  @Test
+  void evictLeastRecentlyUsed() throws IOException {
+    DatasetCache cache = new DatasetCache(2);
+    String[] names = {"a", "b", "c"};
+    for (String name : names) {
+      Path path = Paths.get("target/test/cache-" + name + ".ttl");
+      Files.writeString(path, String.format(TURTLE, name), StandardCharsets.UTF_8);
+    }
+    Dataset a = cache.get("target/test/cache-a.ttl");
+    Dataset b = cache.get("target/test/cache-b.ttl");
+    cache.get("target/test/cache-a.ttl");
+    cache.get("target/test/cache-c.ttl");
+    assertEquals(2, cache.size());
+    assertSame(a, cache.get("target/test/cache-a.ttl"));
+    // b was least recently used, so it is parsed again
+    assertNotSame(b, cache.get("target/test/cache-b.ttl"));
+  }
+}
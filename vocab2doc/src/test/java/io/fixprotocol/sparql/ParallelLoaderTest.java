@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelLoaderTest {
+
+  private static final String EXTENSION = "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n"
+      + "<http://example.org/venue#X> a skos:Concept ; skos:prefLabel \"Venue term\" .\n";
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void multipleSources() throws IOException {
+    Path extension = Paths.get("target/test/loader-extension.ttl");
+    Files.writeString(extension, EXTENSION, StandardCharsets.UTF_8);
+    List<String> sources = List.of("fix-vocabulary.ttl", extension.toString());
+    Graph core = DatasetFactory.create("fix-vocabulary.ttl").asDatasetGraph().getDefaultGraph();
+
+    for (boolean union : new boolean[] {false, true}) {
+      Dataset dataset = new ParallelLoader(2).load(sources, union);
+      assertTrue(dataset.containsNamedModel("fix-vocabulary.ttl"));
+      assertTrue(dataset.getNamedModel("fix-vocabulary.ttl").getGraph().isIsomorphicWith(core));
+      assertEquals(core.size() + 2, dataset.getDefaultModel().size());
+    }
+  }
+
+  @Test
+  void splitNTriples() throws IOException {
+    // Blank nodes whose statements are likely to fall in different pieces
+    Path path = Paths.get("target/test/loader-split.nt");
+    try (OutputStream out = Files.newOutputStream(path)) {
+      RDFDataMgr.write(out, DatasetFactory.create("fix-vocabulary.ttl").getDefaultModel(),
+          Lang.NTRIPLES);
+      for (int i = 0; i < 100; i++) {
+        out.write(String.format("_:b%d <http://example.org/p> \"%d\" .\n", i % 10, i)
+            .getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    Graph expected = DatasetFactory.create(path.toString()).asDatasetGraph().getDefaultGraph();
+
+    Dataset dataset = new ParallelLoader(4, 1024).load(List.of(path.toString()));
+    Graph actual = dataset.asDatasetGraph().getDefaultGraph();
+    assertEquals(expected.size(), actual.size());
+    assertTrue(actual.isIsomorphicWith(expected));
+  }
+
+  @Test
+  void lineStart() throws IOException {
+    Path path = Paths.get("target/test/loader-lines.nt");
+    Files.writeString(path, "abc\ndef\n", StandardCharsets.UTF_8);
+    try (FileChannel channel = FileChannel.open(path)) {
+      assertEquals(0, ParallelLoader.lineStart(channel, 0));
+      assertEquals(4, ParallelLoader.lineStart(channel, 2));
+      assertEquals(4, ParallelLoader.lineStart(channel, 4));
+      assertEquals(8, ParallelLoader.lineStart(channel, 5));
+    }
+  }
+}
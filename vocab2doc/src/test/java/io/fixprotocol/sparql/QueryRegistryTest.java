@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import org.apache.jena.query.ParameterizedSparqlString;
+import org.apache.jena.query.Query;
+import org.junit.jupiter.api.Test;
+
+class QueryRegistryTest {
+
+  @Test
+  void parseOnce() throws IOException {
+    QueryRegistry registry = new QueryRegistry();
+    Query first = registry.getQuery("allterms");
+    assertSame(first, registry.getQuery("allterms"));
+    // A name with extension identifies the same query
+    assertSame(first, registry.getQuery("allterms" + QueryRegistry.QUERY_EXTENSION));
+  }
+
+  @Test
+  void register() throws IOException {
+    QueryRegistry registry = new QueryRegistry();
+    Query resource = registry.getQuery("allterms");
+    String queryString = "SELECT ?s WHERE { ?s ?p ?o }";
+    registry.register("allterms", queryString);
+    assertEquals(queryString, registry.getQueryString("allterms"));
+    assertNotSame(resource, registry.getQuery("allterms"));
+    assertEquals(1, registry.getQuery("allterms").getProjectVars().size());
+  }
+
+  @Test
+  void parameterized() throws IOException {
+    QueryRegistry registry = new QueryRegistry();
+    registry.register("byterm", "SELECT ?concept WHERE { ?concept ?p ?term }");
+    ParameterizedSparqlString first = registry.getParameterized("byterm");
+    first.setLiteral("term", "Price");
+    assertTrue(first.toString().contains("\"Price\""));
+    // Each parameterized query is owned by its caller
+    ParameterizedSparqlString second = registry.getParameterized("byterm");
+    assertTrue(second.toString().contains("?term"));
+  }
+
+  @Test
+  void missingResource() {
+    QueryRegistry registry = new QueryRegistry();
+    assertThrows(IOException.class, () -> registry.getQuery("nosuchquery"));
+  }
+}
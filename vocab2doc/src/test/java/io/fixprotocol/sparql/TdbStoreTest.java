@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.sparql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.apache.jena.query.Dataset;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.metrics.Instrumentation;
+import io.fixprotocol.metrics.Instrumentation.Stage;
+import io.fixprotocol.metrics.TimingSummary;
+
+class TdbStoreTest {
+
+  private static final String TURTLE = "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .%n"
+      + "<http://example.org/a> a skos:Concept ; skos:prefLabel \"%s\" ;"
+      + " skos:definition \"A definition\" .%n";
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void reloadOnlyChanged() throws IOException {
+    final String directory = "target/test/tdb-" + System.nanoTime();
+    final Path source = Paths.get("target/test/tdb-source.ttl");
+    Files.writeString(source, String.format(TURTLE, "Alpha"), StandardCharsets.UTF_8);
+
+    TdbStore store = new TdbStore(directory);
+    assertEquals(2, store.update(source.toString(), "fix-vocabulary.ttl"));
+    assertEquals(0, store.update(source.toString(), "fix-vocabulary.ttl"));
+    assertEquals(1, countTerms(store, "Alpha"));
+
+    Files.writeString(source, String.format(TURTLE, "Beta"), StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    // Checksums persist across instances
+    store = new TdbStore(directory);
+    assertEquals(1, store.update(source.toString(), "fix-vocabulary.ttl"));
+    assertEquals(0, countTerms(store, "Alpha"));
+    assertEquals(1, countTerms(store, "Beta"));
+  }
+
+  @Test
+  void sourceView() throws IOException {
+    final String directory = "target/test/tdb-" + System.nanoTime();
+    final Path source = Paths.get("target/test/tdb-view.ttl");
+    Files.writeString(source, String.format(TURTLE, "Gamma"), StandardCharsets.UTF_8);
+
+    TdbStore store = new TdbStore(directory);
+    store.update(source.toString(), "fix-vocabulary.ttl");
+    assertEquals(1, countTerms(store.getDataset(), "Gamma"));
+    assertEquals(1, countTerms(store.getDataset(source.toString()), "Gamma"));
+    assertEquals(0, countTerms(store.getDataset("fix-vocabulary.ttl"), "Gamma"));
+    assertEquals(1, countTerms(store.getDataset("fix-vocabulary.ttl"), "ACPN"));
+  }
+
+  @Test
+  void closeTwice() throws IOException {
+    final TdbStore store = new TdbStore("target/test/tdb-" + System.nanoTime());
+    store.update("fix-vocabulary.ttl");
+    final Dataset dataset = store.getDataset();
+    final TimingSummary summary = new TimingSummary();
+    Instrumentation.setDefault(summary);
+    try {
+      final QueryResultSet resultSet = new Query2Doc().executeSelect(dataset,
+          QueryRegistry.getDefault().getQuery("allterms"), null);
+      resultSet.close();
+      resultSet.close();
+    } finally {
+      Instrumentation.setDefault(null);
+    }
+    assertEquals(1, summary.getOccurrences(Stage.QUERY));
+    assertFalse(dataset.isInTransaction());
+    assertEquals(1, countTerms(store, "ACPN"));
+  }
+
+  private static int countTerms(TdbStore store, String term) throws IOException {
+    return countTerms(store.getDataset(), term);
+  }
+
+  private static int countTerms(Dataset dataset, String term) throws IOException {
+    final QueryResultSet resultSet = new Query2Doc().executeSelect(dataset,
+        QueryRegistry.getDefault().getQuery("allterms"), null);
+    int count = 0;
+    try {
+      while (resultSet.hasNext()) {
+        if (term.equals(resultSet.next().getValue("term"))) {
+          count++;
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+    return count;
+  }
+}
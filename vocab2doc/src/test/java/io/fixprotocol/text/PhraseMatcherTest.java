@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.text.PhraseMatcher.Match;
+
+class PhraseMatcherTest {
+
+  private static List<String> find(PhraseMatcher<String> matcher, String text) {
+    return matcher.findAll(text).stream()
+        .map(m -> text.substring(m.getStart(), m.getEnd()) + "=" + m.getValue())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void longestLeftmost() {
+    PhraseMatcher<String> matcher = new PhraseMatcher<>(Map.of("order", "Order", "order type",
+        "Order Type", "type", "Type", "limit order", "Limit Order"));
+    assertEquals(List.of("Limit order=Limit Order", "type=Type"),
+        find(matcher, "A Limit order type"));
+    assertEquals(List.of("order type=Order Type"), find(matcher, "an order type."));
+  }
+
+  @Test
+  void wordBoundaries() {
+    PhraseMatcher<String> matcher = new PhraseMatcher<>(Map.of("CFD", "CFD", "he", "he"));
+    assertEquals(List.of("CFD=CFD"), find(matcher, "the CFD, not CFDs"));
+    assertTrue(matcher.findAll("the sheep").isEmpty());
+  }
+
+  @Test
+  void failureLinks() {
+    // Matching "abcd" fails at the last character, and the scan resumes in the middle
+    PhraseMatcher<Integer> matcher = new PhraseMatcher<>(Map.of("a b c d", 1, "b c", 2));
+    List<Match<Integer>> matches = matcher.findAll("a b c e");
+    assertEquals(1, matches.size());
+    assertEquals(2, matches.get(0).getStart());
+    assertEquals(2, (int) matches.get(0).getValue());
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.text.PlainText2HTMLRenderer.RenderState;
+import io.fixprotocol.text.PlainText2HTMLRenderer.Transform;
+import io.fixprotocol.text.TextRenderer.ParagraphOption;
+
+class PlainText2HTMLRendererTest {
+
+  @Test
+  void escapeWithParagraphs() {
+    assertEquals("<p>Fish &amp; <q>chips</q> &lt;b&gt;</p>", render(ParagraphOption.USE_PARAGRAPH,
+        "Fish & \"chips\" <b>"));
+    assertEquals("<p>It&apos;s <q>quoted</q> &#x2013; &bull;</p>",
+        render(ParagraphOption.USE_PARAGRAPH, "It's “quoted” – •"));
+  }
+
+  @Test
+  void newlineWithParagraphs() {
+    assertEquals("<p>Line one</p><p>Line two</p><p>three</p>",
+        render(ParagraphOption.USE_PARAGRAPH, "Line one\r\nLine two\nthree"));
+  }
+
+  @Test
+  void newlineWithBreaks() {
+    assertEquals("Line one<br/>Line two<br/>three",
+        render(ParagraphOption.USE_BREAK, "Line one\r\nLine two\nthree"));
+  }
+
+  @Test
+  void empty() {
+    assertEquals("", render(ParagraphOption.USE_PARAGRAPH, ""));
+  }
+
+  @Test
+  void overlappingTransforms() {
+    PlainText2HTMLRenderer renderer = new PlainText2HTMLRenderer();
+    renderer.setParagraphOption(ParagraphOption.USE_BREAK);
+    renderer.addTransforms(List.of(renderer.new Transform("-", "&#x2010;"),
+        renderer.new Transform("--", "&#x2013;")));
+    // The longest key matches first, and a shorter key matches the remainder
+    assertEquals("a&#x2010;b&#x2013;c&#x2013;&#x2010;d&lt;", renderer.render("a-b--c---d<"));
+  }
+
+  @Test
+  void matchesLinearScan() {
+    PlainText2HTMLRenderer outer = new PlainText2HTMLRenderer(List.of());
+    List<Transform> transforms = new ArrayList<>(List.of(
+        outer.new EndParagraphTransform("\n"),
+        outer.new EndParagraphTransform("\r\n"),
+        outer.new Transform("&", "&amp;"),
+        outer.new Transform("<", "&lt;"),
+        outer.new Transform("\u201c", "<q>"),
+        outer.new Transform("\u201d", "</q>"),
+        outer.new DoubleQuoteTransform(),
+        outer.new Transform("-", "&#x2010;"),
+        outer.new Transform("--", "&#x2013;"),
+        outer.new Transform("---", "&#x2014;"),
+        outer.new Transform("ab", from -> from.toUpperCase(Locale.ROOT))));
+    SortedSet<Transform> sorted = new TreeSet<>(transforms);
+    String alphabet = "ab-\n\r\"&<\u201c\u201d x";
+    Random random = new Random(11);
+    for (ParagraphOption option : ParagraphOption.values()) {
+      PlainText2HTMLRenderer renderer = new PlainText2HTMLRenderer(transforms);
+      renderer.setParagraphOption(option);
+      for (int i = 0; i < 2000; i++) {
+        StringBuilder input = new StringBuilder();
+        int length = random.nextInt(30);
+        for (int j = 0; j < length; j++) {
+          input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        String text = input.toString();
+        assertEquals(linearScan(sorted, option, text), renderer.render(text), text);
+      }
+    }
+  }
+
+  /**
+   * Renders by trying transforms in sort order at each position, as the renderer did before its
+   * transforms were compiled into a trie
+   */
+  private static String linearScan(SortedSet<Transform> transforms, ParagraphOption option,
+      String input) {
+    StringBuilder output = new StringBuilder();
+    if (input.isEmpty()) {
+      return "";
+    }
+    RenderState state = new RenderState(option);
+    int index = 0;
+    while (index < input.length()) {
+      if (option == ParagraphOption.USE_PARAGRAPH
+          && state.lastParagraphCount != state.paragraphCount) {
+        output.append(state.paragraphCount % 2 == 0 ? "<p>" : "</p>");
+        state.paragraphCount++;
+        state.lastParagraphCount = state.paragraphCount;
+      }
+      boolean transformed = false;
+      for (Transform transform : transforms) {
+        String from = transform.getFrom();
+        if (from.regionMatches(0, input, index, from.length())) {
+          output.append(transform.transform(state));
+          index += from.length();
+          transformed = true;
+          break;
+        }
+      }
+      if (!transformed) {
+        output.append(input.charAt(index));
+        index++;
+      }
+    }
+    if (option == ParagraphOption.USE_PARAGRAPH) {
+      output.append("</p>");
+    }
+    return output.toString();
+  }
+
+  private static String render(ParagraphOption option, String input) {
+    TextRenderer renderer = new PlainText2HTMLRenderer();
+    renderer.setParagraphOption(option);
+    return renderer.render(input);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class TextFormatterConcurrencyTest {
+
+  private static final int THREADS = 8;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  void sharedHtml() throws Exception {
+    stress(TextFormatterFactory.HTML);
+  }
+
+  @Test
+  void sharedMarkdown() throws Exception {
+    stress(TextFormatterFactory.MARKDOWN);
+  }
+
+  @Test
+  void abandonedHeadingRow() throws Exception {
+    final TextFormatter shared = TextFormatterFactory.getInstance(TextFormatterFactory.MARKDOWN);
+    final List<String> texts = List.of("a", "b");
+    final String expected = writeTable(shared, texts);
+    // A heading row left unfinished leaves nothing behind for the next table
+    shared.startRow(new StringBuilder());
+    shared.startColumnHeading(new StringBuilder());
+    assertEquals(expected, writeTable(shared, texts));
+  }
+
+  private static void stress(String format) throws Exception {
+    final List<String> texts = randomTexts(500);
+    final String expected = writeTable(TextFormatterFactory.create(format), texts);
+
+    final TextFormatter shared = TextFormatterFactory.getInstance(format);
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < ITERATIONS; i++) {
+        futures.add(executor.submit((Callable<String>) () -> writeTable(shared, texts)));
+      }
+      for (Future<String> future : futures) {
+        assertEquals(expected, future.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static List<String> randomTexts(int count) {
+    final String alphabet = "abc \n\r\"'&<>‘’“”–—•";
+    final Random random = new Random(7);
+    final List<String> texts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final StringBuilder sb = new StringBuilder();
+      final int length = random.nextInt(40);
+      for (int j = 0; j < length; j++) {
+        sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      texts.add(sb.toString());
+    }
+    return texts;
+  }
+
+  private static String writeTable(TextFormatter formatter, List<String> texts)
+      throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    formatter.startTable(sb);
+    formatter.columnHeadings(sb, List.of("Term", "Definition"));
+    for (int i = 0; i + 1 < texts.size(); i += 2) {
+      formatter.startRow(sb);
+      formatter.startCell(sb);
+      formatter.render(sb, texts.get(i));
+      formatter.endCell(sb);
+      formatter.startCell(sb);
+      formatter.render(sb, texts.get(i + 1));
+      formatter.endCell(sb);
+      formatter.endRow(sb);
+    }
+    formatter.endTable(sb);
+    return sb.toString();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.vocabulary.SKOS;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.validation.Rule.Severity;
+
+class ValidatorTest {
+
+  private static final String NS = "http://example.org/vocabulary#";
+  private static final String TURTLE = "@prefix : <" + NS + "> .\n"
+      + "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n"
+      + "@prefix dct: <http://purl.org/dc/terms/> .\n"
+      + ":apple a skos:Concept ; skos:prefLabel \"Apple\" ; skos:definition \"A fruit\" .\n"
+      + ":pome a skos:Concept ; skos:prefLabel \"Apple\" ; skos:definition \"A \\\"fruit\\\"\" .\n"
+      + ":pear a skos:Concept ; skos:prefLabel \"Pear\", \"Perry\" ; skos:altLabel \"Apple\" ;\n"
+      + "  skos:definition \" \" ; dct:isPartOf :orchard .\n"
+      + ":plum a skos:Concept ; skos:prefLabel \"Plum\"@en, \"Pflaume\"@de .\n"
+      + ":quince skos:prefLabel \"Quince\" ; skos:definition \"Not a concept\" .\n";
+
+  private static Dataset dataset;
+
+  @BeforeAll
+  public static void setUpOnce() throws IOException {
+    new File("target/test").mkdirs();
+    Path source = Paths.get("target/test/lint.ttl");
+    Files.writeString(source, TURTLE, StandardCharsets.UTF_8);
+    dataset = new Query2Doc().getDataset(source.toString());
+  }
+
+  @Test
+  void defaultRules() throws IOException {
+    List<Finding> findings = new Validator(2).validate(dataset);
+    List<String> summary = findings.stream()
+        .map(f -> f.getRule() + " " + f.getFocus().replace(NS, ""))
+        .collect(Collectors.toList());
+    // Errors before warnings, then by rule and focus
+    assertEquals(List.of("dangling-isPartOf pear", "duplicate-prefLabel apple",
+        "duplicate-prefLabel pome", "missing-definition plum", "multiple-prefLabels pear",
+        "altLabel-collision pear", "altLabel-collision pear", "blank-text pear",
+        "non-concept-label quince"), summary);
+    assertEquals("Preferred label \"Apple\" is also the preferred label of " + NS + "pome",
+        findings.get(1).getMessage());
+  }
+
+  @Test
+  void splitConceptRule() throws IOException {
+    List<Rule> rules = new ArrayList<>();
+    rules.add(new ConceptRule("has-altLabel", Severity.WARNING, "No synonym",
+        c -> c.hasProperty(SKOS.altLabel)));
+    rules.add(new QueryRule("has-concepts", Severity.ERROR, "Has concepts",
+        QueryFactory.create("PREFIX skos: <http://www.w3.org/2004/02/skos/core#>\n"
+            + "ASK WHERE { ?c a skos:Concept }")));
+    // Threshold of one concept divides the concept rule into a task per concept
+    List<Finding> findings = new Validator(rules, 4, 1).validate(dataset);
+    assertEquals(4, findings.size());
+    assertEquals(new Finding("has-concepts", Severity.ERROR, "", "Has concepts"),
+        findings.get(0));
+    assertEquals(List.of(NS + "apple", NS + "plum", NS + "pome"), findings.subList(1, 4)
+        .stream().map(Finding::getFocus).collect(Collectors.toList()));
+  }
+
+  @Test
+  void invalidRule() {
+    assertThrows(IllegalArgumentException.class, () -> new QueryRule("construct",
+        Severity.ERROR, "", QueryFactory.create("CONSTRUCT WHERE { ?s ?p ?o }")));
+  }
+
+  @Test
+  void fixVocabulary() throws IOException {
+    List<Finding> findings =
+        new Validator(2).validate(new Query2Doc().getDataset("fix-vocabulary.ttl"));
+    assertFalse(findings.stream().anyMatch(f -> f.getSeverity() == Severity.ERROR));
+    // Three labeled individuals lack type skos:Concept
+    assertEquals(3, findings.size());
+  }
+
+  @Test
+  void writeFindings() throws IOException {
+    List<Finding> findings = List.of(new Finding("rule", Severity.WARNING, NS + "pome",
+        "Label \"A\"\tB"));
+    StringBuilder json = new StringBuilder();
+    Validator.writeJson(json, findings);
+    assertEquals("[\n  {\"severity\": \"WARNING\", \"rule\": \"rule\", \"focus\": \"" + NS
+        + "pome\", \"message\": \"Label \\\"A\\\"\\tB\"}\n]\n", json.toString());
+
+    StringBuilder empty = new StringBuilder();
+    Validator.writeJson(empty, List.of());
+    assertEquals("[\n]\n", empty.toString());
+
+    StringBuilder html = new StringBuilder();
+    Validator.writeReport(html, TextFormatterFactory.getInstance(TextFormatterFactory.HTML),
+        findings);
+    assertTrue(html.toString().contains(
+        "<tr><td>WARNING</td><td>rule</td><td>" + NS + "pome</td><td>Label <q>A</q>"));
+  }
+}
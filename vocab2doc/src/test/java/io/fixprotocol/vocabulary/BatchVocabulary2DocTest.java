@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.vocabulary.BatchVocabulary2Doc.Job;
+import io.fixprotocol.vocabulary.BatchVocabulary2Doc.JobResult;
+
+class BatchVocabulary2DocTest {
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void run() throws IOException {
+    Files.writeString(Paths.get("target/test/manifest.txt"),
+        "# test manifest\n" + "fix-vocabulary.ttl target/test/Batch.html html\n"
+            + "fix-vocabulary.ttl target/test/Batch.md md\n"
+            + "fix-vocabulary.ttl target/test/Batch.pdf pdf\n",
+        StandardCharsets.UTF_8);
+    List<Job> jobs = BatchVocabulary2Doc.readManifest("target/test/manifest.txt");
+    assertEquals(3, jobs.size());
+
+    List<JobResult> results = new BatchVocabulary2Doc(2).run(jobs);
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertTrue(results.get(1).isSuccessful());
+    assertFalse(results.get(2).isSuccessful());
+    PrintStream nowhere = new PrintStream(PrintStream.nullOutputStream());
+    assertFalse(BatchVocabulary2Doc.report(results, nowhere, nowhere));
+
+    new Vocabulary2Doc().generate("fix-vocabulary.ttl", "target/test/Single.md", "md");
+    assertEquals(Files.readString(Paths.get("target/test/Single.md")),
+        Files.readString(Paths.get("target/test/Batch.md")));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.jena.query.Dataset;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sparql.Query2Doc;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.vocabulary.ChunkedVocabulary2Doc.Chunk;
+import io.fixprotocol.vocabulary.ChunkedVocabulary2Doc.Chunking;
+
+class ChunkedVocabulary2DocTest {
+
+  private static Dataset dataset;
+
+  @BeforeAll
+  public static void setUpOnce() throws IOException {
+    new File("target/test").mkdirs();
+    dataset = new Query2Doc().getDataset("fix-vocabulary.ttl");
+  }
+
+  private static String header(String format) throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    Vocabulary2Doc.startTable(sb, TextFormatterFactory.getInstance(format));
+    return sb.toString();
+  }
+
+  @Test
+  void fixedSize() throws IOException {
+    final Path dir = Paths.get("target/test/chunked-fixed");
+    final List<Chunk> chunks = new ChunkedVocabulary2Doc(3).generate(dataset,
+        dir.resolve("glossary.md"), "md", Chunking.fixedSize(50));
+    new Vocabulary2Doc().generate(dataset, "target/test/chunked-full.md", "md");
+    final String full = Files.readString(Paths.get("target/test/chunked-full.md"));
+    final String header = header("md");
+
+    final StringBuilder joined = new StringBuilder(header);
+    int rows = 0;
+    for (Chunk chunk : chunks) {
+      final String text = Files.readString(dir.resolve(chunk.getFileName()));
+      assertTrue(text.startsWith(header));
+      joined.append(text, header.length(), text.length());
+      rows += chunk.getRowCount();
+    }
+    assertEquals(full, joined.toString());
+    assertEquals("glossary-001.md", chunks.get(0).getFileName());
+    assertTrue(
+        chunks.subList(0, chunks.size() - 1).stream().allMatch(c -> c.getRowCount() == 50));
+    assertTrue(rows > 300);
+    assertTrue(Files.exists(dir.resolve("glossary.md")));
+  }
+
+  @Test
+  void alphabetical() throws IOException {
+    final Path dir = Paths.get("target/test/chunked-alpha");
+    final List<Chunk> chunks = new ChunkedVocabulary2Doc(2).generate(dataset,
+        dir.resolve("glossary.html"), "html", Chunking.alphabetical());
+    for (Chunk chunk : chunks) {
+      assertEquals(chunk.getLabel().substring(0, 1),
+          chunk.getFirstTerm().substring(0, 1).toUpperCase());
+      assertEquals(chunk.getLabel().substring(0, 1),
+          chunk.getLastTerm().substring(0, 1).toUpperCase());
+      assertTrue(Files.exists(dir.resolve(chunk.getFileName())));
+    }
+    assertEquals("glossary-A.html", chunks.get(0).getFileName());
+    final String index = Files.readString(dir.resolve("glossary.html"), StandardCharsets.UTF_8);
+    assertTrue(index.contains("<a href=\"glossary-A.html\">A</a>"));
+  }
+
+  @Test
+  void alphabeticalCodePointOrder() throws IOException {
+    final StringBuilder turtle =
+        new StringBuilder("@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n");
+    for (String term : List.of("(Paren)", "Alpha", "Beta", "alpha lower", "zeta", "~tilde")) {
+      turtle.append(String.format("<http://example.org/t%d> a skos:Concept ;"
+          + " skos:prefLabel \"%s\" ; skos:definition \"A term\" .%n", term.hashCode(), term));
+    }
+    final Path source = Paths.get("target/test/chunked-case.ttl");
+    Files.writeString(source, turtle, StandardCharsets.UTF_8);
+    final Path dir = Paths.get("target/test/chunked-case");
+    final List<Chunk> chunks = new ChunkedVocabulary2Doc(2).generate(
+        new Query2Doc().getDataset(source.toString()), dir.resolve("glossary.md"), "md",
+        Chunking.alphabetical());
+    // Lower case and late punctuation follow Z in code point order
+    assertEquals(List.of("#", "A", "B", "A 2", "Z", "# 2"),
+        chunks.stream().map(Chunk::getLabel).collect(Collectors.toList()));
+    assertEquals(List.of("glossary-other.md", "glossary-A.md", "glossary-B.md",
+        "glossary-A-2.md", "glossary-Z.md", "glossary-other-2.md"),
+        chunks.stream().map(Chunk::getFileName).collect(Collectors.toList()));
+  }
+}
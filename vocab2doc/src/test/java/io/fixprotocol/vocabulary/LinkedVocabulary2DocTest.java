@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sparql.Query2Doc;
+
+class LinkedVocabulary2DocTest {
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void slug() {
+    assertEquals("average-price-option", LinkedVocabulary2Doc.slug("Average Price Option"));
+    assertEquals("c-i-v", LinkedVocabulary2Doc.slug("(C.I.V.)"));
+    assertEquals("term", LinkedVocabulary2Doc.slug("--"));
+  }
+
+  @Test
+  void generatePages() throws IOException {
+    Path dir = Paths.get("target/test/pages");
+    Map<String, String> pages = new LinkedVocabulary2Doc(4)
+        .generate(new Query2Doc().getDataset("fix-vocabulary.ttl"), dir, "html");
+    assertTrue(pages.size() > 300);
+    for (String fileName : pages.values()) {
+      assertTrue(Files.exists(dir.resolve(fileName)), fileName);
+    }
+    assertEquals("average-price-option.html", pages.get("Average Price Option"));
+
+    String index = Files.readString(dir.resolve("index.html"));
+    assertTrue(index.contains(
+        "<td>Asian Option</td><td><b>See: </b>"
+            + "<a href=\"average-price-option.html\">Average Price Option</a></td>"));
+    assertTrue(index.contains("<td><a href=\"average-price-option.html\">Average Price Option"));
+    // Source and specification follow a linked definition
+    assertTrue(index.contains("every month.<br/>\n<b>Source: </b>www.investopedia.com</td></tr>"));
+    assertTrue(index.contains("clearing house<br/>\n<b>Specification: </b>EP83</td></tr>"));
+
+    // A definition that mentions another term links to its page but not to its own page
+    String page = Files.readString(dir.resolve("average-price-option.html"));
+    assertTrue(page.contains("<td>Average Price Option</td>"));
+    assertTrue(page.contains("<td>Asian Option</td><td><b>See: </b>Average Price Option</td>"));
+    page = Files.readString(dir.resolve(pages.get("Bermuda style option")));
+    assertTrue(page.contains("<b>Source: </b>www.investopedia.com</td></tr>"));
+    page = Files.readString(dir.resolve(pages.get("ACPN")));
+    assertTrue(page.contains("<b>Specification: </b>EP83</td></tr>"));
+    page = Files.readString(dir.resolve("all-or-none.html"));
+    assertTrue(page.contains("unlike <a href=\"fill-or-kill.html\">Fill or Kill</a> orders"));
+  }
+
+  @Test
+  void collisions() throws IOException {
+    final String turtle = "@prefix : <http://example.org/vocabulary#> .\n"
+        + "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n"
+        + ":hyphen a skos:Concept ; skos:prefLabel \"Order-Type\" ;\n"
+        + "  skos:altLabel \"Kind\" ; skos:definition \"Hyphenated\" .\n"
+        + ":space a skos:Concept ; skos:prefLabel \"Order Type\" ;\n"
+        + "  skos:altLabel \"Kind\" ; skos:definition \"Spaced\" .\n"
+        + ":zeta a skos:Concept ; skos:prefLabel \"Zeta\" ;\n"
+        + "  skos:altLabel \"Kind\" ; skos:definition \"Last\" .\n";
+    final Path source = Paths.get("target/test/linked-collisions.ttl");
+    Files.writeString(source, turtle, StandardCharsets.UTF_8);
+    final Path dir = Paths.get("target/test/linked-collisions");
+    final Map<String, String> pages = new LinkedVocabulary2Doc(2)
+        .generate(new Query2Doc().getDataset(source.toString()), dir, "md");
+    // Names are assigned in code point order, where space precedes hyphen
+    assertEquals("order-type.md", pages.get("Order Type"));
+    assertEquals("order-type-2.md", pages.get("Order-Type"));
+    // A shared synonym links to the last of its terms, as in a glossary document
+    final String index = Files.readString(dir.resolve("index.md"), StandardCharsets.UTF_8);
+    assertTrue(index.contains("| Kind | **See: **[Zeta](zeta.md)  |"), index);
+  }
+}
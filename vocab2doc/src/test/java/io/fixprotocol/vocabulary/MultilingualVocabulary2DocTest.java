@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.sparql.Query2Doc;
+
+class MultilingualVocabulary2DocTest {
+
+  private static final String TURTLE = "@prefix : <http://example.org/vocabulary#> .\n"
+      + "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n"
+      + ":apple a skos:Concept ; skos:prefLabel \"Apple\"@en, \"Apfel\"@de, \"りんご\"@ja ;\n"
+      + "  skos:altLabel \"Pomme\"@en ;\n"
+      + "  skos:definition \"A fruit\"@en, \"Eine Frucht\"@de .\n"
+      + ":esophagus a skos:Concept ; skos:prefLabel \"Esophagus\"@en, \"Ösophagus\"@de ;\n"
+      + "  skos:definition \"A tube\"@en, \"Eine Röhre\"@de .\n"
+      + ":zebra a skos:Concept ; skos:prefLabel \"Zebra\"@en ;\n"
+      + "  skos:definition \"A horse\"@en, \"Ein Pferd\"@de-CH .\n";
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void fallbackChain() {
+    assertEquals(List.of("de-ch", "de", "en", ""),
+        MultilingualVocabulary2Doc.fallbackChain(Locale.forLanguageTag("de-CH"), Locale.ENGLISH));
+    assertEquals(List.of("en", ""),
+        MultilingualVocabulary2Doc.fallbackChain(Locale.ENGLISH, Locale.ENGLISH));
+  }
+
+  @Test
+  void generateLocales() throws IOException {
+    Path source = Paths.get("target/test/multilingual.ttl");
+    Files.writeString(source, TURTLE, StandardCharsets.UTF_8);
+    List<Locale> locales =
+        List.of(Locale.ENGLISH, Locale.GERMAN, Locale.forLanguageTag("de-CH"), Locale.JAPANESE);
+    Map<Locale, Path> documents = new MultilingualVocabulary2Doc(Locale.ENGLISH, 2).generate(
+        new Query2Doc().getDataset(source.toString()), Paths.get("target/test/glossary.md"), "md",
+        locales);
+    assertEquals(locales, List.copyOf(documents.keySet()));
+    assertEquals(Paths.get("target/test/glossary-de-CH.md").toAbsolutePath(),
+        documents.get(Locale.forLanguageTag("de-CH")));
+
+    String de = Files.readString(documents.get(Locale.GERMAN), StandardCharsets.UTF_8);
+    // Collation order, not code point order, which would put Ö after Z
+    assertTrue(de.indexOf("Apfel") < de.indexOf("Ösophagus"));
+    assertTrue(de.indexOf("Ösophagus") < de.indexOf("Zebra"));
+    assertTrue(de.contains("Eine Frucht"));
+    // Falls back to English where there is no German label or definition
+    assertTrue(de.contains("| Zebra | A horse  |"));
+
+    String deCh = Files.readString(documents.get(Locale.forLanguageTag("de-CH")),
+        StandardCharsets.UTF_8);
+    assertTrue(deCh.contains("Ein Pferd"));
+
+    String ja = Files.readString(documents.get(Locale.JAPANESE), StandardCharsets.UTF_8);
+    assertTrue(ja.contains("| りんご | A fruit  |"));
+    assertFalse(ja.contains("Pomme"));
+
+    String en = Files.readString(documents.get(Locale.ENGLISH), StandardCharsets.UTF_8);
+    assertTrue(en.indexOf("Esophagus") < en.indexOf("Pomme"));
+    assertTrue(en.contains("| Pomme | **See: **Apple  |"));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class RowOrderTest {
+
+  private static List<String> sort(RowOrder<?> order, String... terms) {
+    final List<GlossaryRow> rows = new ArrayList<>();
+    for (String term : terms) {
+      rows.add(new GlossaryRow(term, "", "", ""));
+    }
+    return order.sort(rows).stream().map(r -> r.term).collect(Collectors.toList());
+  }
+
+  @Test
+  void codePoint() {
+    // U+FF21 is a BMP character above the surrogates; U+1D400 is supplementary
+    final String supplementary = new String(Character.toChars(0x1D400));
+    assertTrue("Ａ".compareTo(supplementary) > 0);
+    assertEquals(List.of("B", "a", "Ａ", supplementary),
+        sort(RowOrder.codePoint(), supplementary, "Ａ", "a", "B"));
+  }
+
+  @Test
+  void caseInsensitive() {
+    assertEquals(List.of("Apple", "apple", "banana", "Cherry"),
+        sort(RowOrder.caseInsensitive(), "banana", "apple", "Cherry", "Apple"));
+  }
+
+  @Test
+  void collator() {
+    assertEquals(List.of("Apfel", "Ösophagus", "Zebra"),
+        sort(RowOrder.collator(Locale.GERMAN), "Zebra", "Ösophagus", "Apfel"));
+  }
+
+  @Test
+  void synonymFollowsEqualTerm() {
+    final List<GlossaryRow> rows = new ArrayList<>();
+    rows.add(GlossaryRow.synonym("Order", "Request"));
+    rows.add(new GlossaryRow("Order", "", "", ""));
+    final List<GlossaryRow> sorted = RowOrder.codePoint().sort(rows);
+    assertTrue(!sorted.get(0).isSynonym() && sorted.get(1).isSynonym());
+  }
+
+  @Test
+  void later() {
+    assertEquals("banana", RowOrder.caseInsensitive().later("Apple", "banana"));
+    assertEquals("banana", RowOrder.caseInsensitive().later("banana", "Apple"));
+    // Equal keys are decided by code point
+    final RowOrder<String> ignoreCase = RowOrder.of(t -> t.toLowerCase(Locale.ROOT),
+        String::compareTo);
+    assertEquals("apple", ignoreCase.later("Apple", "apple"));
+    assertEquals("apple", ignoreCase.later("apple", "Apple"));
+  }
+}
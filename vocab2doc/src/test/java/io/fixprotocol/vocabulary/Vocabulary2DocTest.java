@@ -15,12 +15,26 @@
 
 package io.fixprotocol.vocabulary;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.fixprotocol.snapshot.Snapshot;
+import io.fixprotocol.sparql.Query2Doc;
 
 class Vocabulary2DocTest {
   
@@ -56,5 +70,174 @@ class Vocabulary2DocTest {
     assertTrue(file.exists());
   }
 
+  @Test
+  void generateMultipleFormats() throws IOException {
+    String sourceUri = "fix-vocabulary.ttl";
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-single.html", "html");
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-single.md", "md");
+    vocabulary2Doc.generate(sourceUri, Map.of("html", "target/test/Vocabulary-multi.html", "md",
+        "target/test/Vocabulary-multi.md"));
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-single.html")),
+        Files.readAllBytes(Paths.get("target/test/Vocabulary-multi.html")));
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-single.md")),
+        Files.readAllBytes(Paths.get("target/test/Vocabulary-multi.md")));
+  }
+
+  @Test
+  void closeAll() throws IOException {
+    final List<Closeable> resources = new ArrayList<>();
+    final int[] closed = new int[1];
+    for (String message : List.of("first", "second")) {
+      resources.add(() -> {
+        closed[0]++;
+        throw new IOException(message);
+      });
+    }
+    // A failure to close does not replace the exception that ended use of the resources
+    final IllegalStateException primary = new IllegalStateException("primary");
+    Vocabulary2Doc.closeAll(resources, primary);
+    assertEquals(2, closed[0]);
+    assertEquals(2, primary.getSuppressed().length);
+
+    final IOException failure =
+        assertThrows(IOException.class, () -> Vocabulary2Doc.closeAll(resources, null));
+    assertEquals("first", failure.getMessage());
+    assertEquals("second", failure.getSuppressed()[0].getMessage());
+  }
+
+  @Test
+  void generateFromSnapshot() throws IOException {
+    String sourceUri = "fix-vocabulary.ttl";
+    String snapshotFilename = "target/test/Vocabulary" + Snapshot.FILE_EXTENSION;
+    Snapshot.export(new Query2Doc().getDataset(sourceUri), Vocabulary2Doc.ALLTERMS_QUERY,
+        Paths.get(snapshotFilename));
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-loaded.html", "html");
+    vocabulary2Doc.generateFromSnapshot(snapshotFilename, "target/test/Vocabulary-snapshot.html",
+        "html");
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-loaded.html")),
+        Files.readAllBytes(Paths.get("target/test/Vocabulary-snapshot.html")));
+  }
+
+  @Test
+  void generateIncremental() throws IOException {
+    Path source = Paths.get("target/test/incremental.ttl");
+    String vocabulary = Files.readString(Paths.get("src/test/resources/fix-vocabulary.ttl"),
+        StandardCharsets.UTF_8);
+    Files.writeString(source, vocabulary, StandardCharsets.UTF_8);
+    String targetFilename = "target/test/Vocabulary-incremental.html";
+    Files.deleteIfExists(Paths.get(targetFilename + RowManifest.FILE_EXTENSION));
+    vocabulary2Doc.generate(source.toString(), "target/test/Vocabulary-full.html", "html");
+
+    int rendered = vocabulary2Doc.generateIncremental(source.toString(), targetFilename, "html");
+    assertTrue(rendered > 300);
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-full.html")),
+        Files.readAllBytes(Paths.get(targetFilename)));
+    assertEquals(0, vocabulary2Doc.generateIncremental(source.toString(), targetFilename, "html"));
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-full.html")),
+        Files.readAllBytes(Paths.get(targetFilename)));
+
+    Files.writeString(source, vocabulary.replace("computerized database", "computerised database"),
+        StandardCharsets.UTF_8);
+    vocabulary2Doc.generate(source.toString(), "target/test/Vocabulary-full.html", "html");
+    assertEquals(1, vocabulary2Doc.generateIncremental(source.toString(), targetFilename, "html"));
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-full.html")),
+        Files.readAllBytes(Paths.get(targetFilename)));
+
+    // A document changed since it was generated is not spliced
+    Files.writeString(Paths.get(targetFilename), "edited", StandardCharsets.UTF_8);
+    assertEquals(rendered,
+        vocabulary2Doc.generateIncremental(source.toString(), targetFilename, "html"));
+  }
+
+  @Test
+  void generateSorted() throws IOException {
+    String sourceUri = "fix-vocabulary.ttl";
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-ordered.md", "md");
+    vocabulary2Doc.generateSorted(sourceUri, "target/test/Vocabulary-sorted.md", "md",
+        RowOrder.codePoint());
+    String ordered = Files.readString(Paths.get("target/test/Vocabulary-ordered.md"));
+    String sorted = Files.readString(Paths.get("target/test/Vocabulary-sorted.md"));
+    // Identical but for a synonym that sorts after the last term, which a merge drops
+    assertTrue(sorted.startsWith(ordered));
+    assertTrue(sorted.substring(ordered.length()).startsWith("| privately negotiated trade |"));
+  }
+
+  @Test
+  void generateSortedSharedSynonym() throws IOException {
+    String turtle = "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n"
+        + "<http://example.org/a> a skos:Concept ; skos:prefLabel \"Order Type\" ;"
+        + " skos:altLabel \"Kind\" ; skos:definition \"First\" .\n"
+        + "<http://example.org/b> a skos:Concept ; skos:prefLabel \"Zeta\" ;"
+        + " skos:altLabel \"Kind\" ; skos:definition \"Last\" .\n"
+        + "<http://example.org/c> a skos:Concept ; skos:prefLabel \"Middle\" ;"
+        + " skos:altLabel \"Kind\" ; skos:definition \"Between\" .\n";
+    Path source = Paths.get("target/test/shared-synonym.ttl");
+    Files.writeString(source, turtle, StandardCharsets.UTF_8);
+    vocabulary2Doc.generate(source.toString(), "target/test/shared-ordered.md", "md");
+    vocabulary2Doc.generateSorted(source.toString(), "target/test/shared-sorted.md", "md",
+        RowOrder.codePoint());
+    String sorted = Files.readString(Paths.get("target/test/shared-sorted.md"));
+    assertEquals(Files.readString(Paths.get("target/test/shared-ordered.md")), sorted);
+    assertTrue(sorted.contains("| Kind | **See: **Zeta  |"));
+  }
+
+  @Test
+  void generatePipelined() throws IOException {
+    String sourceUri = "fix-vocabulary.ttl";
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-serial.html", "html");
+    for (int workers : new int[] {1, 4}) {
+      vocabulary2Doc.generatePipelined(sourceUri, "target/test/Vocabulary-pipelined.html", "html",
+          workers);
+      assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-serial.html")),
+          Files.readAllBytes(Paths.get("target/test/Vocabulary-pipelined.html")));
+    }
+  }
+
+  @Test
+  void generateStreaming() throws IOException {
+    String sourceUri = "fix-vocabulary.ttl";
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-loaded.md", "md");
+    vocabulary2Doc.generateStreaming(sourceUri, "target/test/Vocabulary-streamed.md", "md");
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-loaded.md")),
+        Files.readAllBytes(Paths.get("target/test/Vocabulary-streamed.md")));
+  }
+
+  @Test
+  void generateStreamingWithSpill() throws IOException {
+    String sourceUri = "fix-vocabulary.ttl";
+    vocabulary2Doc.generate(sourceUri, "target/test/Vocabulary-loaded.html", "html");
+    // Small buffer forces sorting stages to spill to disk
+    vocabulary2Doc.generateStreaming(sourceUri, "target/test/Vocabulary-spilled.html", "html",
+        4096);
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-loaded.html")),
+        Files.readAllBytes(Paths.get("target/test/Vocabulary-spilled.html")));
+  }
+
+  @Test
+  void generateFromStore() throws IOException {
+    String turtle = "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .%n"
+        + "<http://example.org/%s> a skos:Concept ; skos:prefLabel \"%s\" ;"
+        + " skos:definition \"A definition\" .%n";
+    Path a = Paths.get("target/test/store-a.ttl");
+    Path b = Paths.get("target/test/store-b.ttl");
+    Files.writeString(a, String.format(turtle, "a", "Alpha"), StandardCharsets.UTF_8);
+    Files.writeString(b, String.format(turtle, "b", "Beta"), StandardCharsets.UTF_8);
+    String store = "target/test/store-" + System.nanoTime();
 
+    Vocabulary2Doc.main(new String[] {a.toString(), "target/test/store-a.md", "md", store});
+    Vocabulary2Doc.main(new String[] {b.toString(), "target/test/store-b.md", "md", store});
+    // Only the requested vocabulary is rendered, though both are loaded into the store
+    String document =
+        Files.readString(Paths.get("target/test/store-b.md"), StandardCharsets.UTF_8);
+    assertTrue(document.contains("Beta"));
+    assertFalse(document.contains("Alpha"));
+
+    // Incremental rendering from the store writes a manifest of rows
+    Vocabulary2Doc.main(new String[] {Vocabulary2Doc.INCREMENTAL_OPTION, b.toString(),
+        "target/test/store-b-incremental.md", "md", store});
+    assertTrue(
+        Files.exists(Paths.get("target/test/store-b-incremental.md" + RowManifest.FILE_EXTENSION)));
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/store-b.md")),
+        Files.readAllBytes(Paths.get("target/test/store-b-incremental.md")));
+  }
 }
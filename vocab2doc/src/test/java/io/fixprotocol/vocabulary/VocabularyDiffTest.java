@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.fixprotocol.text.TextFormatter;
+import io.fixprotocol.text.TextFormatterFactory;
+import io.fixprotocol.vocabulary.VocabularyDiff.Change;
+import io.fixprotocol.vocabulary.VocabularyDiff.Kind;
+
+class VocabularyDiffTest {
+
+  private static final String PREFIXES = "@prefix : <http://example.org/vocabulary#> .\n"
+      + "@prefix skos: <http://www.w3.org/2004/02/skos/core#> .\n"
+      + "@prefix dct: <http://purl.org/dc/terms/> .\n";
+
+  private static final String OLD_VERSION = PREFIXES
+      + ":apple a skos:Concept ; skos:prefLabel \"Apple\" ;\n"
+      + "  skos:definition \"A round fruit of a tree\" .\n"
+      + ":banana a skos:Concept ; skos:prefLabel \"Banana\" ; skos:altLabel \"Plantain\" ;\n"
+      + "  skos:definition \"A long fruit\" ; dct:source \"FIX\" .\n"
+      + ":cherry a skos:Concept ; skos:prefLabel \"Cherry\" ;\n"
+      + "  skos:definition \"A small fruit\" .\n";
+
+  private static final String NEW_VERSION = PREFIXES
+      + ":apple a skos:Concept ; skos:prefLabel \"Apple\" ;\n"
+      + "  skos:definition \"A round red fruit of an apple tree\" .\n"
+      + ":banana a skos:Concept ; skos:prefLabel \"Banana\" ; skos:altLabel \"Cavendish\" ;\n"
+      + "  skos:definition \"A long fruit\" ; dct:source \"FIX\" .\n"
+      + ":date a skos:Concept ; skos:prefLabel \"Date\" ;\n"
+      + "  skos:definition \"A sweet fruit\" .\n";
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  @Test
+  void generate() throws IOException {
+    Path oldPath = Paths.get("target/test/diff-old.ttl");
+    Path newPath = Paths.get("target/test/diff-new.ttl");
+    Files.writeString(oldPath, OLD_VERSION, StandardCharsets.UTF_8);
+    Files.writeString(newPath, NEW_VERSION, StandardCharsets.UTF_8);
+    List<Change> changes = new VocabularyDiff().generate(oldPath.toString(), newPath.toString(),
+        "target/test/diff.html", TextFormatterFactory.HTML);
+
+    assertEquals(4, changes.size());
+    assertEquals(Kind.ADDED, changes.get(0).getKind());
+    assertEquals("Date", changes.get(0).getTerm());
+    assertEquals(Kind.REMOVED, changes.get(1).getKind());
+    assertEquals("Cherry", changes.get(1).getTerm());
+    assertEquals(Kind.CHANGED, changes.get(2).getKind());
+    assertEquals("Apple", changes.get(2).getTerm());
+    assertEquals("Banana", changes.get(3).getTerm());
+
+    String html = Files.readString(Paths.get("target/test/diff.html"), StandardCharsets.UTF_8);
+    assertTrue(html.contains(
+        "<td>A round <ins>red</ins> fruit of <del>a</del> <ins>an apple</ins> tree</td>"));
+    assertTrue(html.contains(
+        "<td>Synonyms</td><td><ins>Cavendish</ins>; <del>Plantain</del></td>"));
+    // Unchanged properties of changed concepts are not reported
+    assertFalse(html.contains("A long fruit"));
+  }
+
+  @Test
+  void wordDiff() throws IOException {
+    TextFormatter formatter = TextFormatterFactory.getInstance(TextFormatterFactory.MARKDOWN);
+    StringBuilder sb = new StringBuilder();
+    VocabularyDiff.writeWordDiff(sb, formatter, "The quick brown fox", "The slow brown fox");
+    assertEquals("The ~~quick~~ **slow** brown fox", sb.toString());
+
+    sb.setLength(0);
+    VocabularyDiff.writeWordDiff(sb, formatter, "a b c", "a c");
+    assertEquals("a ~~b~~ c", sb.toString());
+
+    sb.setLength(0);
+    VocabularyDiff.writeWordDiff(sb, formatter, "same", "same");
+    assertEquals("same", sb.toString());
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 FIX Protocol Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package io.fixprotocol.vocabulary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VocabularyServerTest {
+
+  private static final Path SOURCE = Paths.get("target/test/server.ttl");
+
+  @BeforeAll
+  public static void setUpOnce() {
+    new File("target/test").mkdirs();
+  }
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private VocabularyServer server;
+  private String vocabulary;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    vocabulary = Files.readString(Paths.get("src/test/resources/fix-vocabulary.ttl"),
+        StandardCharsets.UTF_8);
+    Files.writeString(SOURCE, vocabulary, StandardCharsets.UTF_8);
+    server = new VocabularyServer(SOURCE.toString(),
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16, 0, 2);
+    server.start();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    server.stop();
+  }
+
+  private HttpResponse<String> get(String pathAndQuery, String ifNoneMatch)
+      throws IOException, InterruptedException {
+    final HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(
+        "http://localhost:" + server.getAddress().getPort() + pathAndQuery));
+    if (ifNoneMatch != null) {
+      builder.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Test
+  void glossary() throws IOException, InterruptedException {
+    new Vocabulary2Doc().generate(SOURCE.toString(), "target/test/Vocabulary-server.md", "md");
+    final HttpResponse<String> response = get("/glossary?format=md", null);
+    assertEquals(200, response.statusCode());
+    assertArrayEquals(Files.readAllBytes(Paths.get("target/test/Vocabulary-server.md")),
+        response.body().getBytes(StandardCharsets.UTF_8));
+
+    final String etag = response.headers().firstValue("ETag").orElseThrow();
+    assertEquals(304, get("/glossary?format=md", etag).statusCode());
+    assertEquals(200, get("/glossary?format=html", etag).statusCode());
+    assertEquals(400, get("/glossary?format=pdf", null).statusCode());
+  }
+
+  @Test
+  void termAndSearch() throws IOException, InterruptedException {
+    final HttpResponse<String> term = get("/term/central%20registration%20depository", null);
+    assertEquals(200, term.statusCode());
+    assertTrue(term.body().startsWith("<table>"));
+    assertTrue(term.body().contains("computerized database"));
+    assertEquals(404, get("/term/nonesuch", null).statusCode());
+
+    final HttpResponse<String> search = get("/search?q=computerized+database&mode=keyword", null);
+    assertTrue(search.body().contains("Central Registration Depository"));
+    final HttpResponse<String> fuzzy =
+        get("/search?q=Centrl%20Registraton%20Depository&mode=fuzzy&format=md", null);
+    assertTrue(fuzzy.body().contains("Central Registration Depository"));
+    assertEquals(400, get("/search", null).statusCode());
+  }
+
+  @Test
+  void reloadOnChange() throws IOException, InterruptedException {
+    final String path = "/term/Central%20Registration%20Depository";
+    final String etag = get(path, null).headers().firstValue("ETag").orElseThrow();
+    assertEquals(304, get(path, etag).statusCode());
+
+    Files.writeString(SOURCE, vocabulary.replace("computerized database", "computerised database"),
+        StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(SOURCE, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    final HttpResponse<String> changed = get(path, etag);
+    assertEquals(200, changed.statusCode());
+    assertTrue(changed.body().contains("computerised database"));
+    assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+  }
+
+  @Test
+  void reloadFailure() throws IOException, InterruptedException {
+    final String path = "/term/Central%20Registration%20Depository";
+    final HttpResponse<String> before = get(path, null);
+    assertEquals(200, before.statusCode());
+
+    // a changed definition followed by a statement cut off part way
+    Files.writeString(SOURCE,
+        vocabulary.replace("computerized database", "computerised database")
+            + "\n<urn:x-test:a> <urn:x-test:b> \"unterminated",
+        StandardCharsets.UTF_8);
+    Files.setLastModifiedTime(SOURCE, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    for (int i = 0; i < 2; i++) {
+      final HttpResponse<String> after = get(path, null);
+      assertEquals(200, after.statusCode());
+      assertEquals(before.body(), after.body());
+    }
+  }
+}